@@ -0,0 +1,78 @@
+/**
+* Lance l'ensemble des mesures de performance du simulateur et enregistre leurs résultats au format JSON, afin de
+* pouvoir comparer les performances de différentes versions.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import ch.epfl.gameboj.component.cartridge.Cartridge;
+
+public final class BenchmarkMain {
+    private static final String DEFAULT_RESULT_FILE = "bench_result.json";
+    private static final String ROM_EXTENSION = ".gb";
+
+    private BenchmarkMain() {
+    }
+
+    /**
+     * Méthode principale des mesures. Le premier argument, facultatif, est le fichier dans lequel écrire les
+     * résultats au format JSON ; les suivants sont des expressions régulières restreignant les mesures à lancer.
+     * Toutes les cartouches du dossier data/ROMs gérées par le simulateur sont mesurées.
+     *
+     * @param args
+     *            les arguments de la ligne de commande
+     * @throws RunnerException
+     *             en cas d'erreur lors des mesures
+     */
+    public static void main(String[] args) throws RunnerException {
+        String resultFile = args.length > 0 ? args[0] : DEFAULT_RESULT_FILE;
+        ChainedOptionsBuilder options = new OptionsBuilder().resultFormat(ResultFormatType.JSON).result(resultFile)
+                .param("rom", supportedRoms());
+        if (args.length > 1) {
+            for (String include : Arrays.copyOfRange(args, 1, args.length)) {
+                options.include(include);
+            }
+        } else {
+            options.include(BenchmarkMain.class.getPackage().getName() + "\\..*Benchmark");
+        }
+        new Runner(options.build()).run();
+    }
+
+    /**
+     * Retourne les noms des cartouches du dossier data/ROMs que le simulateur sait charger.
+     *
+     * @return les noms des cartouches gérées
+     */
+    private static String[] supportedRoms() {
+        File[] files = GameBoyBenchmark.ROM_DIRECTORY.listFiles((dir, name) -> name.endsWith(ROM_EXTENSION));
+        if (files == null) {
+            throw new IllegalStateException("Dossier introuvable : " + GameBoyBenchmark.ROM_DIRECTORY);
+        }
+        Arrays.sort(files);
+        List<String> roms = new ArrayList<>();
+        for (File file : files) {
+            try {
+                Cartridge.ofFile(file);
+                roms.add(file.getName());
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Cartouche ignorée : " + file.getName() + " (" + e.getMessage() + ")");
+            }
+        }
+        return roms.toArray(new String[roms.size()]);
+    }
+}
@@ -0,0 +1,94 @@
+/**
+* Mesure le temps d'exécution des principales opérations sur les vecteurs de bits, pour des vecteurs de la taille
+* d'une ligne de l'image de fond.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.epfl.gameboj.bits.BitVector;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitVectorBenchmark {
+    private static final long SEED = 2018;
+    private static final int SIZE = 256;
+    private static final int LINE_SIZE = 160;
+
+    private BitVector v1;
+    private BitVector v2;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(SEED);
+        v1 = randomVector(random);
+        v2 = randomVector(random);
+    }
+
+    private static BitVector randomVector(Random random) {
+        BitVector.Builder builder = new BitVector.Builder(SIZE);
+        for (int i = 0; i < SIZE / Byte.SIZE; i++) {
+            builder.setByte(i, random.nextInt(0x100));
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public BitVector not() {
+        return v1.not();
+    }
+
+    @Benchmark
+    public BitVector and() {
+        return v1.and(v2);
+    }
+
+    @Benchmark
+    public BitVector or() {
+        return v1.or(v2);
+    }
+
+    @Benchmark
+    public BitVector shift() {
+        return v1.shift(-13);
+    }
+
+    @Benchmark
+    public BitVector extractWrapped() {
+        return v1.extractWrapped(203, LINE_SIZE);
+    }
+
+    @Benchmark
+    public BitVector extractZeroExtended() {
+        return v1.extractZeroExtended(-37, LINE_SIZE);
+    }
+
+    @Benchmark
+    public BitVector build() {
+        BitVector.Builder builder = new BitVector.Builder(SIZE);
+        for (int i = 0; i < SIZE / Byte.SIZE; i++) {
+            builder.setByte(i, i);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,84 @@
+/**
+* Mesure le temps de lecture d'un octet sur le bus d'un GameBoy, selon la zone de l'espace d'adressage lue.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.epfl.gameboj.AddressMap;
+import ch.epfl.gameboj.Bus;
+import ch.epfl.gameboj.GameBoy;
+import ch.epfl.gameboj.component.cartridge.Cartridge;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusBenchmark {
+    private static final int ADDRESS_SPACE_SIZE = 0x10000;
+    private static final int ROM_ADDRESS = 0x0150;
+    private static final int LY_ADDRESS = 0xFF44;
+
+    @Param({ "ROM", "WORK_RAM", "HIGH_RAM", "LCD_REGISTER" })
+    public String region;
+
+    private Bus bus;
+    private int address;
+
+    @Setup
+    public void setup() throws IOException {
+        bus = new GameBoy(Cartridge.ofFile(new File(GameBoyBenchmark.ROM_DIRECTORY, "Tetris.gb"))).bus();
+        switch (region) {
+        case "ROM":
+            address = ROM_ADDRESS;
+            break;
+        case "WORK_RAM":
+            address = AddressMap.WORK_RAM_START;
+            break;
+        case "HIGH_RAM":
+            address = AddressMap.HIGH_RAM_START;
+            break;
+        case "LCD_REGISTER":
+            address = LY_ADDRESS;
+            break;
+        default:
+            throw new IllegalArgumentException("Zone inconnue : " + region);
+        }
+    }
+
+    @Benchmark
+    public int read() {
+        return bus.read(address);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ADDRESS_SPACE_SIZE)
+    public int readWholeAddressSpace() {
+        int sum = 0;
+        for (int a = 0; a < ADDRESS_SPACE_SIZE; a++) {
+            sum += bus.read(a);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,130 @@
+/**
+* Mesure le temps d'exécution d'un cycle du processeur sur différents mélanges d'instructions, chacun exécuté en
+* boucle depuis la mémoire vive.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.epfl.gameboj.Bus;
+import ch.epfl.gameboj.component.cpu.Cpu;
+import ch.epfl.gameboj.component.memory.Ram;
+import ch.epfl.gameboj.component.memory.RamController;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CpuBenchmark {
+    private static final int CYCLES_PER_INVOCATION = 1024;
+
+    // Arithmétique et logique sur les registres, en boucle
+    private static final int[] ALU_PROGRAM = new int[] {
+            0x3E, 0x12,       // LD A, 0x12
+            0x06, 0x34,       // LD B, 0x34
+            0x80,             // ADD A, B
+            0x91,             // SUB A, C
+            0xA2,             // AND A, D
+            0xB3,             // OR A, E
+            0xAC,             // XOR A, H
+            0xCB, 0x37,       // SWAP A
+            0xCB, 0x11,       // RL C
+            0x27,             // DAA
+            0x3C,             // INC A
+            0x18, 0xF3        // JR -13
+    };
+
+    // Lectures et écritures en mémoire vive et sur la pile, en boucle
+    private static final int[] LOAD_STORE_PROGRAM = new int[] {
+            0x31, 0x00, 0xD0, // LD SP, 0xD000
+            0x21, 0x00, 0xC0, // LD HL, 0xC000
+            0x22,             // LD (HL+), A
+            0x2A,             // LD A, (HL+)
+            0x77,             // LD (HL), A
+            0x46,             // LD B, (HL)
+            0xC5,             // PUSH BC
+            0xD1,             // POP DE
+            0xEA, 0x00, 0xC1, // LD (0xC100), A
+            0xFA, 0x00, 0xC1, // LD A, (0xC100)
+            0xE0, 0x80,       // LDH (0x80), A
+            0xF0, 0x80,       // LDH A, (0x80)
+            0x18, 0xEB        // JR -21
+    };
+
+    // Sauts, appels et retours, conditionnels ou non, en boucle
+    private static final int[] CONTROL_PROGRAM = new int[] {
+            0x31, 0x00, 0xD0, // LD SP, 0xD000
+            0xCD, 0x10, 0x00, // CALL 0x0010
+            0xC3, 0x03, 0x00, // JP 0x0003
+            0, 0, 0, 0, 0, 0, 0,
+            0xAF,             // XOR A, A
+            0x28, 0x00,       // JR Z, +0
+            0xC4, 0x20, 0x00, // CALL NZ, 0x0020
+            0xC9              // RET
+    };
+
+    @Param({ "ALU", "LOAD_STORE", "CONTROL" })
+    public String mix;
+
+    @Param({ "false", "true" })
+    public boolean codeCache;
+
+    private Cpu cpu;
+    private long cycle;
+
+    @Setup
+    public void setup() {
+        int[] program;
+        switch (mix) {
+        case "ALU":
+            program = ALU_PROGRAM;
+            break;
+        case "LOAD_STORE":
+            program = LOAD_STORE_PROGRAM;
+            break;
+        case "CONTROL":
+            program = CONTROL_PROGRAM;
+            break;
+        default:
+            throw new IllegalArgumentException("Mélange inconnu : " + mix);
+        }
+        cpu = new Cpu();
+        Bus bus = new Bus();
+        cpu.attachTo(bus);
+        bus.attach(new RamController(new Ram(0xFFFF), 0));
+        for (int i = 0; i < program.length; i++) {
+            bus.write(i, program[i]);
+        }
+        cpu.setCodeCacheEnabled(codeCache);
+        cycle = 0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES_PER_INVOCATION)
+    public long cycle() {
+        long end = cycle + CYCLES_PER_INVOCATION;
+        for (; cycle < end; cycle++) {
+            cpu.cycle(cycle);
+        }
+        return cycle;
+    }
+}
@@ -0,0 +1,64 @@
+/**
+* Mesure le temps nécessaire à la simulation d'une image complète par un GameBoy, pour chacune des cartouches du
+* dossier data/ROMs.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.epfl.gameboj.GameBoy;
+import ch.epfl.gameboj.component.cartridge.Cartridge;
+import ch.epfl.gameboj.component.lcd.LcdController;
+import ch.epfl.gameboj.component.lcd.LcdImage;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameBoyBenchmark {
+    /**
+     * Dossier contenant les cartouches utilisées par les mesures.
+     */
+    static final File ROM_DIRECTORY = new File("data/ROMs");
+
+    // Les cartouches effectivement mesurées sont déterminées par BenchmarkMain à partir du contenu du dossier
+    @Param({ "Tetris.gb", "Mario Land.gb", "Zelda.gb" })
+    public String rom;
+
+    @Param({ "false", "true" })
+    public boolean codeCache;
+
+    private GameBoy gameBoy;
+
+    @Setup
+    public void setup() throws IOException {
+        gameBoy = new GameBoy(Cartridge.ofFile(new File(ROM_DIRECTORY, rom)));
+        gameBoy.cpu().setCodeCacheEnabled(codeCache);
+    }
+
+    @Benchmark
+    public LcdImage runFrame() {
+        gameBoy.runUntil(gameBoy.cycles() + LcdController.CYCLES_PER_FRAME);
+        return gameBoy.lcdController().currentImage();
+    }
+}
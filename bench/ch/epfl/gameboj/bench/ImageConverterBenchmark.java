@@ -0,0 +1,81 @@
+/**
+* Mesure le temps de conversion d'une image Game Boy en image JavaFX.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.epfl.gameboj.component.lcd.LcdController;
+import ch.epfl.gameboj.component.lcd.LcdImage;
+import ch.epfl.gameboj.component.lcd.LcdImageLine;
+import ch.epfl.gameboj.gui.ImageConverter;
+import javafx.scene.image.Image;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageConverterBenchmark {
+    private static final long SEED = 2018;
+    private static final int[] PALETTE = new int[] { 0xFF_FF_FF_FF, 0xFF_D3_D3_D3, 0xFF_A9_A9_A9, 0xFF_00_00_00 };
+
+    private LcdImage image;
+    private LcdImage otherImage;
+    private ImageConverter converter;
+    private boolean other;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(SEED);
+        image = randomImage(random);
+        otherImage = randomImage(random);
+        converter = new ImageConverter(LcdController.LCD_WIDTH, LcdController.LCD_HEIGHT);
+    }
+
+    private static LcdImage randomImage(Random random) {
+        LcdImage.Builder builder = new LcdImage.Builder(LcdController.LCD_HEIGHT, LcdController.LCD_WIDTH);
+        for (int y = 0; y < LcdController.LCD_HEIGHT; y++) {
+            LcdImageLine.Builder line = new LcdImageLine.Builder(LcdController.LCD_WIDTH);
+            for (int i = 0; i < LcdController.LCD_WIDTH / Byte.SIZE; i++) {
+                line.setBytes(i, random.nextInt(0x100), random.nextInt(0x100));
+            }
+            builder.setLine(y, line.build());
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public Image convert() {
+        return ImageConverter.convert(image, PALETTE);
+    }
+
+    @Benchmark
+    public Image update() {
+        // Alterne entre deux images pour que chaque appel transfère effectivement les pixels
+        other = !other;
+        return converter.update(other ? otherImage : image, PALETTE);
+    }
+
+    @Benchmark
+    public Image updateUnchanged() {
+        return converter.update(image, PALETTE);
+    }
+}
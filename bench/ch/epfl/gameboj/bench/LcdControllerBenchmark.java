@@ -0,0 +1,84 @@
+/**
+* Mesure le temps nécessaire au contrôleur LCD pour calculer une image complète (fond, fenêtre et sprites), à partir
+* d'une mémoire vidéo remplie aléatoirement.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.epfl.gameboj.AddressMap;
+import ch.epfl.gameboj.Bus;
+import ch.epfl.gameboj.component.cpu.Cpu;
+import ch.epfl.gameboj.component.lcd.LcdController;
+import ch.epfl.gameboj.component.lcd.LcdImage;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LcdControllerBenchmark {
+    private static final long SEED = 2018;
+    // Écran, fenêtre, sprites et fond activés, tuiles à partir de 0x8000
+    private static final int LCDC = 0b1111_0011;
+    private static final int REG_LCDC = AddressMap.REGS_LCDC_START;
+    private static final int REG_WY = AddressMap.REGS_LCDC_START + 10;
+    private static final int REG_WX = AddressMap.REGS_LCDC_START + 11;
+    private static final int REG_BGP = AddressMap.REGS_LCDC_START + 7;
+
+    @Param({ "BIT_VECTOR", "DIRECT" })
+    public LcdController.Renderer renderer;
+
+    private LcdController lcdController;
+    private long cycle;
+
+    @Setup
+    public void setup() {
+        Cpu cpu = new Cpu();
+        Bus bus = new Bus();
+        cpu.attachTo(bus);
+        lcdController = new LcdController(cpu);
+        lcdController.setRenderer(renderer);
+        lcdController.attachTo(bus);
+
+        Random random = new Random(SEED);
+        for (int a = AddressMap.VIDEO_RAM_START; a < AddressMap.VIDEO_RAM_END; a++) {
+            bus.write(a, random.nextInt(0x100));
+        }
+        for (int a = AddressMap.OAM_START; a < AddressMap.OAM_END; a++) {
+            bus.write(a, random.nextInt(0x100));
+        }
+        bus.write(REG_BGP, 0b11_10_01_00);
+        bus.write(REG_WY, LcdController.LCD_HEIGHT / 2);
+        bus.write(REG_WX, LcdController.LCD_WIDTH / 2);
+        bus.write(REG_LCDC, LCDC);
+        cycle = 0;
+    }
+
+    @Benchmark
+    public LcdImage renderFrame() {
+        long end = cycle + LcdController.CYCLES_PER_FRAME;
+        for (; cycle < end; cycle = lcdController.nextEventCycle(cycle)) {
+            lcdController.cycle(cycle);
+        }
+        return lcdController.currentImage();
+    }
+}
@@ -0,0 +1,77 @@
+/**
+* Mesure le temps d'exécution des opérations de composition des lignes d'image utilisées par le contrôleur LCD.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.epfl.gameboj.bits.BitVector;
+import ch.epfl.gameboj.component.lcd.LcdImageLine;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LcdImageLineBenchmark {
+    private static final long SEED = 2018;
+    private static final int SIZE = 160;
+    private static final int PALETTE = 0b00_01_11_10;
+
+    private LcdImageLine line1;
+    private LcdImageLine line2;
+    private BitVector opacity;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(SEED);
+        line1 = randomLine(random);
+        line2 = randomLine(random);
+        opacity = randomLine(random).opacity();
+    }
+
+    private static LcdImageLine randomLine(Random random) {
+        LcdImageLine.Builder builder = new LcdImageLine.Builder(SIZE);
+        for (int i = 0; i < SIZE / Byte.SIZE; i++) {
+            builder.setBytes(i, random.nextInt(0x100), random.nextInt(0x100));
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public LcdImageLine mapColors() {
+        return line1.mapColors(PALETTE);
+    }
+
+    @Benchmark
+    public LcdImageLine below() {
+        return line1.below(line2);
+    }
+
+    @Benchmark
+    public LcdImageLine belowWithOpacity() {
+        return line1.below(line2, opacity);
+    }
+
+    @Benchmark
+    public LcdImageLine join() {
+        return line1.join(line2, 87);
+    }
+}
@@ -18,11 +18,15 @@ public interface AddressMap {
     // Memory-mapped "IO" registers
     int REGS_START = 0xFF00;
     int REG_P1 = 0xFF00;
+    int REG_SB = 0xFF01;
+    int REG_SC = 0xFF02;
     int REG_DIV = 0xFF04;
     int REG_TIMA = 0xFF05;
     int REG_TMA = 0xFF06;
     int REG_TAC = 0xFF07;
     int REG_IF = 0xFF0F;
+    int REGS_APU_START = 0xFF10, REGS_APU_END = 0xFF40;
+    int WAVE_RAM_START = 0xFF30, WAVE_RAM_END = 0xFF40;
     int REGS_LCDC_START = 0xFF40, REGS_LCDC_END = 0xFF4C;
     int REG_BOOT_ROM_DISABLE = 0xFF50;
     int REG_IE = 0xFFFF;
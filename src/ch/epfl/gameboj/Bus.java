@@ -7,37 +7,52 @@
 
 package ch.epfl.gameboj;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Objects;
 
 import ch.epfl.gameboj.component.Component;
 
 public final class Bus {
-	private final ArrayList<Component> components;
 	private static final int DEFAULT_READ_VALUE = 0xFF;
+	private static final int PAGE_BITS = 8;
+	private static final int PAGE_SIZE = 1 << PAGE_BITS;
+	private static final int PAGE_COUNT = 0x10000 / PAGE_SIZE;
+
+	// Table de décodage des adresses : pour chaque page de 256 octets, les composants qui la couvrent, dans leur
+	// ordre d'attachement. La plupart des pages n'ont qu'un seul propriétaire, seules les pages partagées (par
+	// exemple celle des registres d'entrée/sortie) en contiennent plusieurs.
+	private final Component[][] pages;
 
 	/**
-	 * Crée un nouveau bus et initialise son tableau de composants.
+	 * Crée un nouveau bus et initialise sa table de décodage des adresses.
 	 */
 	public Bus() {
-		components = new ArrayList<Component>();
+		pages = new Component[PAGE_COUNT][];
+		Arrays.fill(pages, new Component[0]);
 	}
 
 	/**
-	 * Attache le composant donné au bus.
-	 * 
+	 * Attache le composant donné au bus et l'ajoute aux pages d'adresses qu'il couvre.
+	 *
 	 * @param component
 	 *            le composant à attacher au bus
 	 * @throws NullPointerException
 	 *             si le composant vaut null
 	 */
 	public void attach(Component component) {
-		components.add(Objects.requireNonNull(component));
+		Objects.requireNonNull(component);
+		for (int page = 0; page < PAGE_COUNT; page++) {
+			if (coversPage(component, page)) {
+				Component[] owners = Arrays.copyOf(pages[page], pages[page].length + 1);
+				owners[owners.length - 1] = component;
+				pages[page] = owners;
+			}
+		}
 	}
 
 	/**
 	 * Retourne la valeur stockée à l'adresse donnée.
-	 * 
+	 *
 	 * @param address
 	 *            l'adresse de la valeur à retourner
 	 * @throws IllegalArgumentException
@@ -47,17 +62,19 @@ public final class Bus {
 	 */
 	public int read(int address) {
 		Preconditions.checkBits16(address);
-		for (Component c : components) {
-			if (c.read(address) != Component.NO_DATA) {
-				return c.read(address);
+		for (Component c : pages[address >>> PAGE_BITS]) {
+			int data = c.read(address);
+			if (data != Component.NO_DATA) {
+				return data;
 			}
 		}
 		return DEFAULT_READ_VALUE;
 	}
 
 	/**
-	 * Ecrit la valeur à l'adresse donnée dans tous les composants connectés au bus.
-	 * 
+	 * Ecrit la valeur à l'adresse donnée dans tous les composants connectés au bus
+	 * qui couvrent cette adresse.
+	 *
 	 * @param address
 	 *            l'adresse où écrire la valeur
 	 * @param data
@@ -69,9 +86,21 @@ public final class Bus {
 	public void write(int address, int data) {
 		Preconditions.checkBits16(address);
 		Preconditions.checkBits8(data);
-		for (Component c : components) {
-			c.write(address, data);
+		for (Component c : pages[address >>> PAGE_BITS]) {
+			if (c.covers(address)) {
+				c.write(address, data);
+			}
+		}
+	}
+
+	private static boolean coversPage(Component component, int page) {
+		int start = page << PAGE_BITS;
+		for (int address = start; address < start + PAGE_SIZE; address++) {
+			if (component.covers(address)) {
+				return true;
+			}
 		}
+		return false;
 	}
 
 }
@@ -0,0 +1,330 @@
+/**
+* Simule un GameBoy en temps réel sur un fil d'exécution qui lui est propre. Les images produites sont transmises au
+* fil d'exécution de l'interface graphique au moyen d'un triple tampon, et les évènements du clavier ainsi que les
+* autres demandes lui parviennent au moyen d'une file d'attente, tous deux sans verrou.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+
+import ch.epfl.gameboj.component.Joypad.Key;
+import ch.epfl.gameboj.component.lcd.LcdController;
+import ch.epfl.gameboj.component.lcd.LcdImage;
+
+public final class Emulator implements AutoCloseable {
+    /**
+     * Nombre maximal de demandes en attente d'exécution par le fil d'exécution du simulateur
+     */
+    public static final int TASK_QUEUE_CAPACITY = 256;
+
+    /**
+     * Nombre maximal d'images en temps réel dont le retard est rattrapé
+     */
+    public static final int MAX_CATCH_UP_FRAMES = 4;
+
+    /**
+     * Nombre d'images simulées pour chaque image calculée et affichée en avance rapide
+     */
+    public static final int FAST_FORWARD_RENDER_INTERVAL = 16;
+
+    private static final int STATISTICS_WINDOW = 120;
+
+    private final GameBoy gameBoy;
+    private final RewindBuffer rewindBuffer;
+    private final RunAhead runAhead;
+    private final SpscQueue<Runnable> tasks;
+    private final TripleBuffer<LcdImage> images;
+    private final FramePacer pacer;
+    // Actions d'appui et de relâchement des touches, créées une fois pour toutes
+    private final Map<Key, Runnable> keyPressedTasks;
+    private final Map<Key, Runnable> keyReleasedTasks;
+    private final Thread thread;
+
+    private volatile boolean running;
+    private volatile boolean paused;
+    private volatile boolean rewinding;
+    private volatile boolean fastForward;
+    private volatile float speed;
+
+    /**
+     * Construit un simulateur, non encore démarré, pour le GameBoy et le tampon de retour en arrière donnés. Une fois
+     * le simulateur démarré, le GameBoy et le tampon ne doivent plus être utilisés qu'au travers de execute.
+     *
+     * @param gameBoy
+     *            le GameBoy à simuler
+     * @param rewindBuffer
+     *            le tampon de retour en arrière du GameBoy, alimenté à chaque image simulée
+     * @throws NullPointerException
+     *             si le GameBoy ou le tampon sont nuls
+     */
+    public Emulator(GameBoy gameBoy, RewindBuffer rewindBuffer) {
+        this.gameBoy = Objects.requireNonNull(gameBoy);
+        this.rewindBuffer = Objects.requireNonNull(rewindBuffer);
+        runAhead = new RunAhead(gameBoy);
+        tasks = new SpscQueue<>(TASK_QUEUE_CAPACITY);
+        images = new TripleBuffer<>();
+        pacer = new FramePacer(MAX_CATCH_UP_FRAMES, STATISTICS_WINDOW);
+        keyPressedTasks = new EnumMap<>(Key.class);
+        keyReleasedTasks = new EnumMap<>(Key.class);
+        for (Key k : Key.values()) {
+            keyPressedTasks.put(k, () -> gameBoy.joypad().keyPressed(k));
+            keyReleasedTasks.put(k, () -> gameBoy.joypad().keyReleased(k));
+        }
+        thread = new Thread(this::run, "emulator");
+        thread.setDaemon(true);
+        speed = 1f;
+    }
+
+    /**
+     * Démarre le fil d'exécution du simulateur.
+     *
+     * @throws IllegalStateException
+     *             si le simulateur a déjà été démarré
+     */
+    public void start() {
+        if (thread.getState() != Thread.State.NEW) {
+            throw new IllegalStateException("Simulateur déjà démarré");
+        }
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Demande au fil d'exécution du simulateur d'exécuter la tâche donnée avant la prochaine image simulée. Les tâches
+     * sont exécutées dans l'ordre de leurs demandes ; si la file d'attente est pleine, l'appel attend qu'une place s'y
+     * libère. Cette méthode ne doit être appelée que depuis un seul fil d'exécution, celui de l'interface graphique.
+     *
+     * @param task
+     *            la tâche à exécuter
+     * @throws NullPointerException
+     *             si la tâche est nulle
+     */
+    public void execute(Runnable task) {
+        while (!tasks.offer(task)) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Simule l'appui sur la touche donnée.
+     *
+     * @param k
+     *            la touche appuyée
+     */
+    public void keyPressed(Key k) {
+        execute(keyPressedTasks.get(k));
+    }
+
+    /**
+     * Simule le relâchement de la touche donnée.
+     *
+     * @param k
+     *            la touche relâchée
+     */
+    public void keyReleased(Key k) {
+        execute(keyReleasedTasks.get(k));
+    }
+
+    /**
+     * Suspend ou reprend la simulation.
+     *
+     * @param paused
+     *            vrai pour suspendre la simulation, faux pour la reprendre
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    /**
+     * Active ou désactive le retour en arrière : tant qu'il est actif, chaque image simulée est remplacée par la
+     * restauration du plus récent état du tampon de retour en arrière.
+     *
+     * @param rewinding
+     *            vrai pour remonter le temps
+     */
+    public void setRewinding(boolean rewinding) {
+        this.rewinding = rewinding;
+    }
+
+    /**
+     * Active ou désactive l'avance rapide : tant qu'elle est active, la simulation progresse aussi vite que possible,
+     * sans être cadencée sur le temps réel, et seule une image sur FAST_FORWARD_RENDER_INTERVAL est calculée et
+     * affichée.
+     *
+     * @param fastForward
+     *            vrai pour simuler aussi vite que possible
+     */
+    public void setFastForward(boolean fastForward) {
+        this.fastForward = fastForward;
+    }
+
+    /**
+     * Modifie la vitesse de la simulation par rapport au temps réel.
+     *
+     * @param speed
+     *            la vitesse de la simulation
+     * @throws IllegalArgumentException
+     *             si la vitesse n'est pas strictement positive
+     */
+    public void setSpeed(float speed) {
+        Preconditions.checkArgument(speed > 0);
+        this.speed = speed;
+    }
+
+    /**
+     * Modifie le nombre d'images simulées en avance, 0 désactivant la simulation en avance.
+     *
+     * @param frames
+     *            le nombre d'images simulées en avance
+     * @throws IllegalArgumentException
+     *             si le nombre d'images est négatif
+     */
+    public void setRunAheadFrames(int frames) {
+        Preconditions.checkArgument(frames >= 0);
+        execute(() -> runAhead.setFrames(frames));
+    }
+
+    /**
+     * Retourne l'image à afficher la plus récente. Cette méthode ne doit être appelée que depuis un seul fil
+     * d'exécution, celui de l'interface graphique.
+     *
+     * @return la dernière image produite par le simulateur, ou null s'il n'en a encore produit aucune
+     */
+    public LcdImage latestImage() {
+        return images.latest();
+    }
+
+    /**
+     * Retourne la fréquence mesurée des images récemment produites par le simulateur.
+     *
+     * @return le nombre d'images produites par seconde
+     */
+    public double fps() {
+        return pacer.fps();
+    }
+
+    /**
+     * Retourne le centile donné des durées mesurées entre les images récemment produites par le simulateur.
+     *
+     * @param p
+     *            la proportion, entre 0 et 1
+     * @throws IllegalArgumentException
+     *             si la proportion n'est pas entre 0 et 1
+     * @return la durée correspondant au centile, en nanosecondes
+     */
+    public long frameTimePercentile(double p) {
+        return pacer.frameTimePercentile(p);
+    }
+
+    /**
+     * Retourne le nombre total d'images abandonnées, parce que le simulateur avait pris trop de retard pour les
+     * rattraper.
+     *
+     * @return le nombre d'images abandonnées
+     */
+    public long droppedFrames() {
+        return pacer.droppedFrames();
+    }
+
+    /**
+     * Arrête le fil d'exécution du simulateur et attend qu'il se termine. Les tâches encore en attente ne sont pas
+     * exécutées, et le GameBoy peut de nouveau être utilisé directement.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        pacer.reset(System.nanoTime());
+        while (running) {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+
+            long now = System.nanoTime();
+            float currentSpeed = speed;
+            long waitNanos;
+            if (paused || rewinding) {
+                // Chaque image remonte le temps d'une image simulée ; le temps écoulé n'est pas à rattraper
+                if (!paused) {
+                    rewindBuffer.rewind();
+                }
+                pacer.reset(now);
+                publish(gameBoy.lcdController().currentImage(), now);
+                waitNanos = FramePacer.FRAME_NANOS;
+            } else if (fastForward) {
+                // Les lignes des images intermédiaires ne sont pas calculées, et la simulation en avance est inutile ;
+                // le son, qui ne pourrait être joué assez vite, est abandonné
+                int renderInterval = gameBoy.lcdController().renderInterval();
+                boolean outputEnabled = gameBoy.apu().outputEnabled();
+                gameBoy.lcdController().setRenderInterval(FAST_FORWARD_RENDER_INTERVAL);
+                gameBoy.apu().setOutputEnabled(false);
+                long frame = gameBoy.cycles() / LcdController.CYCLES_PER_FRAME;
+                gameBoy.runUntil((frame + FAST_FORWARD_RENDER_INTERVAL) * LcdController.CYCLES_PER_FRAME);
+                gameBoy.apu().setOutputEnabled(outputEnabled);
+                gameBoy.lcdController().setRenderInterval(renderInterval);
+                rewindBuffer.captureIfDue();
+                publish(gameBoy.lcdController().currentImage(), now);
+                pacer.reset(System.nanoTime());
+                waitNanos = 0;
+            } else {
+                int frames = pacer.framesDue(now, currentSpeed);
+                if (frames > 0) {
+                    publish(runFrames(frames), now);
+                }
+                waitNanos = pacer.nanosUntilNextFrame(System.nanoTime(), currentSpeed);
+            }
+            LockSupport.parkNanos(waitNanos);
+        }
+    }
+
+    private LcdImage runFrames(int frames) {
+        long frame = gameBoy.cycles() / LcdController.CYCLES_PER_FRAME;
+        if (frames > 1) {
+            // Les images de rattrapage ne sont pas affichées, il est donc inutile de les simuler en avance ; seule la
+            // dernière d'entre elles, qui peut encore être celle affichée à la fin de l'image suivante, est calculée
+            if (frames > 2) {
+                int renderInterval = gameBoy.lcdController().renderInterval();
+                gameBoy.lcdController().setRenderInterval(frames - 1);
+                gameBoy.runUntil((frame + frames - 2) * LcdController.CYCLES_PER_FRAME);
+                gameBoy.lcdController().setRenderInterval(renderInterval);
+            }
+            gameBoy.runUntil((frame + frames - 1) * LcdController.CYCLES_PER_FRAME);
+            rewindBuffer.captureIfDue();
+        }
+        // L'image simulée en avance est affichée, mais l'état conservé est celui du temps réel
+        LcdImage image = runAhead.runUntil((frame + frames) * LcdController.CYCLES_PER_FRAME);
+        rewindBuffer.captureIfDue();
+        return image;
+    }
+
+    private void publish(LcdImage image, long now) {
+        images.publish(image);
+        pacer.frameShown(now);
+    }
+}
@@ -0,0 +1,183 @@
+/**
+* Cadence la simulation d'un GameBoy sur le temps réel, image par image, à la fréquence exacte de son écran. Le retard
+* accumulé (par exemple lorsque le fil d'exécution s'est réveillé trop tard) est rattrapé lors des images suivantes,
+* dans une certaine limite au-delà de laquelle il est abandonné. Mesure également la fréquence et la durée des images
+* effectivement affichées.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj;
+
+import java.util.Arrays;
+
+import ch.epfl.gameboj.component.lcd.LcdController;
+
+public final class FramePacer {
+    /**
+     * Fréquence des images de l'écran du GameBoy, en hertz (environ 59.73)
+     */
+    public static final double FRAME_RATE = (double) GameBoy.CYCLES_PER_SECOND / LcdController.CYCLES_PER_FRAME;
+
+    /**
+     * Durée d'une image de l'écran du GameBoy, en nanosecondes
+     */
+    public static final long FRAME_NANOS = Math.round(1e9 / FRAME_RATE);
+
+    private final int maxCatchUpFrames;
+    private final long[] frameTimes;
+
+    // Nombre (fractionnaire) d'images dues mais pas encore simulées
+    private double credit;
+    private long lastTime;
+    private volatile long droppedFrames;
+
+    private int frameCount;
+    private long lastShownTime;
+
+    /**
+     * Construit un cadenceur, dont le temps de référence est l'instant de sa construction.
+     *
+     * @param maxCatchUpFrames
+     *            le nombre maximal d'images en temps réel dont le retard est rattrapé ; à vitesse accélérée, ce nombre
+     *            est multiplié par la vitesse
+     * @param statisticsWindow
+     *            le nombre d'images affichées récentes sur lequel les mesures sont faites
+     * @throws IllegalArgumentException
+     *             si l'un des nombres n'est pas strictement positif
+     */
+    public FramePacer(int maxCatchUpFrames, int statisticsWindow) {
+        Preconditions.checkArgument(maxCatchUpFrames > 0 && statisticsWindow > 0);
+        this.maxCatchUpFrames = maxCatchUpFrames;
+        frameTimes = new long[statisticsWindow];
+        reset(System.nanoTime());
+    }
+
+    /**
+     * Abandonne les images dues et fait de l'instant donné le nouveau temps de référence, par exemple à la reprise
+     * d'une simulation suspendue.
+     *
+     * @param now
+     *            l'instant actuel, en nanosecondes
+     */
+    public void reset(long now) {
+        credit = 0;
+        lastTime = now;
+    }
+
+    /**
+     * Retourne le nombre d'images entières à simuler à l'instant donné pour rester en phase avec le temps réel, à la
+     * vitesse donnée, et considère ces images comme simulées. Si le retard dépasse le maximum rattrapable, l'excédent
+     * est abandonné.
+     *
+     * @param now
+     *            l'instant actuel, en nanosecondes
+     * @param speed
+     *            la vitesse de la simulation par rapport au temps réel
+     * @throws IllegalArgumentException
+     *             si la vitesse n'est pas strictement positive
+     * @return le nombre d'images à simuler
+     */
+    public int framesDue(long now, float speed) {
+        Preconditions.checkArgument(speed > 0);
+        credit += (double) (now - lastTime) * speed / FRAME_NANOS;
+        lastTime = now;
+
+        double maxCredit = maxCatchUpFrames * Math.max(1, speed);
+        if (credit > maxCredit) {
+            droppedFrames += (long) (credit - maxCredit);
+            credit = maxCredit;
+        }
+        int frames = (int) credit;
+        credit -= frames;
+        return frames;
+    }
+
+    /**
+     * Retourne le temps à attendre, depuis l'instant donné, avant que framesDue ne retourne au moins une image, ou au
+     * moins autant d'images que la vitesse donnée lorsque celle-ci est supérieure à 1, afin que les images affichées
+     * ne soient jamais plus fréquentes que celles de l'écran du GameBoy.
+     *
+     * @param now
+     *            l'instant actuel, en nanosecondes
+     * @param speed
+     *            la vitesse de la simulation par rapport au temps réel
+     * @throws IllegalArgumentException
+     *             si la vitesse n'est pas strictement positive
+     * @return le temps à attendre, en nanosecondes, éventuellement négatif si des images sont déjà dues
+     */
+    public long nanosUntilNextFrame(long now, float speed) {
+        Preconditions.checkArgument(speed > 0);
+        double missing = Math.max(1, speed) - credit;
+        return (long) (missing * FRAME_NANOS / speed) - (now - lastTime);
+    }
+
+    /**
+     * Retourne le nombre total d'images abandonnées faute d'avoir pu être rattrapées. Cette méthode peut être appelée
+     * depuis n'importe quel fil d'exécution.
+     *
+     * @return le nombre d'images abandonnées
+     */
+    public long droppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * Signale qu'une image a été affichée à l'instant donné, pour les mesures.
+     *
+     * @param now
+     *            l'instant actuel, en nanosecondes
+     */
+    public synchronized void frameShown(long now) {
+        if (frameCount > 0) {
+            frameTimes[(frameCount - 1) % frameTimes.length] = now - lastShownTime;
+        }
+        frameCount++;
+        lastShownTime = now;
+    }
+
+    /**
+     * Retourne la fréquence mesurée des images affichées récentes. Cette méthode peut être appelée depuis n'importe
+     * quel fil d'exécution.
+     *
+     * @return le nombre d'images affichées par seconde, 0 si moins de deux images ont été affichées
+     */
+    public synchronized double fps() {
+        int count = measuredFrames();
+        if (count == 0) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += frameTimes[i];
+        }
+        return total == 0 ? 0 : count * 1e9 / total;
+    }
+
+    /**
+     * Retourne le centile donné des durées mesurées des images affichées récentes, c'est-à-dire la durée que ne
+     * dépassent pas la proportion donnée d'entre elles. Cette méthode peut être appelée depuis n'importe quel fil
+     * d'exécution.
+     *
+     * @param p
+     *            la proportion, entre 0 et 1
+     * @throws IllegalArgumentException
+     *             si la proportion n'est pas entre 0 et 1
+     * @return la durée correspondant au centile, en nanosecondes, 0 si moins de deux images ont été affichées
+     */
+    public synchronized long frameTimePercentile(double p) {
+        Preconditions.checkArgument(p >= 0 && p <= 1);
+        int count = measuredFrames();
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(frameTimes, count);
+        Arrays.sort(sorted);
+        return sorted[Math.max(0, (int) Math.ceil(p * count) - 1)];
+    }
+
+    private int measuredFrames() {
+        return Math.min(Math.max(frameCount - 1, 0), frameTimes.length);
+    }
+}
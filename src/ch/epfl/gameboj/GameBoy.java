@@ -8,24 +8,37 @@
 package ch.epfl.gameboj;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
+import ch.epfl.gameboj.component.Clocked;
 import ch.epfl.gameboj.component.Joypad;
+import ch.epfl.gameboj.component.Stateful;
 import ch.epfl.gameboj.component.Timer;
+import ch.epfl.gameboj.component.apu.Apu;
 import ch.epfl.gameboj.component.cartridge.Cartridge;
 import ch.epfl.gameboj.component.cpu.Cpu;
 import ch.epfl.gameboj.component.lcd.LcdController;
 import ch.epfl.gameboj.component.memory.BootRomController;
 import ch.epfl.gameboj.component.memory.Ram;
 import ch.epfl.gameboj.component.memory.RamController;
+import ch.epfl.gameboj.component.serial.SerialPort;
+
+public final class GameBoy implements Stateful {
+    private static final int STATE_MAGIC = 0x47424A53; // "GBJS"
+    private static final int STATE_HEADER_SIZE = 4 + 4 + 8 + 8;
 
-public final class GameBoy {
     private final Bus bus;
     private final Cpu cpu;
     private final Timer timer;
     private final LcdController lcdController;
     private final Joypad joypad;
+    private final Apu apu;
+    private final SerialPort serialPort;
     private final Cartridge cartridge;
+    private final BootRomController bootRomController;
+    private final Clocked[] clockedComponents;
+    private final Stateful[] statefulComponents;
     private long totalCycles = 0;
 
     /**
@@ -36,6 +49,10 @@ public final class GameBoy {
      * Nombre de cycle que le GameBoy effectue chaque nanoseconde
      */
     public static final double CYCLES_PER_NANOSECOND = CYCLES_PER_SECOND * Math.pow(10, -9);
+    /**
+     * Version du format des états sauvegardés, à incrémenter à chaque modification de celui-ci
+     */
+    public static final int STATE_VERSION = 6;
 
     /**
      * Construit un nouveau GameBoy, crée un bus, un processeur, ainsi que de la mémoire vive et attache tous les
@@ -54,13 +71,23 @@ public final class GameBoy {
         Ram workRAM = new Ram(AddressMap.WORK_RAM_SIZE);
         new RamController(workRAM, AddressMap.WORK_RAM_START, AddressMap.WORK_RAM_END).attachTo(bus);
         new RamController(workRAM, AddressMap.ECHO_RAM_START, AddressMap.ECHO_RAM_END).attachTo(bus);
-        new BootRomController(Objects.requireNonNull(cartridge)).attachTo(bus);
+        bootRomController = new BootRomController(Objects.requireNonNull(cartridge));
+        bootRomController.attachTo(bus);
         timer = new Timer(cpu);
         timer.attachTo(bus);
         lcdController = new LcdController(cpu);
         lcdController.attachTo(bus);
         joypad = new Joypad(cpu);
         joypad.attachTo(bus);
+        apu = new Apu();
+        apu.attachTo(bus);
+        serialPort = new SerialPort(cpu);
+        serialPort.attachTo(bus);
+        // L'ordre des composants détermine l'ordre dans lequel ils sont exécutés durant un même cycle
+        clockedComponents = new Clocked[] { timer, apu, serialPort, cpu, lcdController };
+        // L'ordre des composants détermine l'ordre dans lequel leurs états sont sauvegardés
+        statefulComponents = new Stateful[] { cpu, workRAM, bootRomController, cartridge, timer, lcdController,
+                joypad, apu, serialPort };
     }
 
     /**
@@ -109,7 +136,35 @@ public final class GameBoy {
     }
 
     /**
-     * Simule le fonctionnement du GameBoy jusqu'au cycle donné moins 1.
+     * Retourne l'unité de traitement audio du GameBoy.
+     * 
+     * @return l'unité de traitement audio du GameBoy
+     */
+    public Apu apu() {
+        return apu;
+    }
+
+    /**
+     * Retourne le port série du GameBoy.
+     * 
+     * @return le port série du GameBoy
+     */
+    public SerialPort serialPort() {
+        return serialPort;
+    }
+
+    /**
+     * Retourne la cartouche du GameBoy.
+     * 
+     * @return la cartouche du GameBoy
+     */
+    public Cartridge cartridge() {
+        return cartridge;
+    }
+
+    /**
+     * Simule le fonctionnement du GameBoy jusqu'au cycle donné moins 1. Seuls les cycles durant lesquels au moins un
+     * composant a besoin d'être exécuté sont simulés, ainsi que le dernier cycle, les autres sont sautés.
      * 
      * @param cycle
      *            nombre de cycle à simuler
@@ -118,14 +173,31 @@ public final class GameBoy {
      */
     public void runUntil(long cycle) {
         Preconditions.checkArgument(totalCycles <= cycle);
-        for (long i = totalCycles; i < cycle; i++) {
-            timer.cycle(i);
-            cpu.cycle(i);
-            lcdController.cycle(i);
+        long current = totalCycles;
+        while (current < cycle) {
+            for (Clocked c : clockedComponents) {
+                c.cycle(current);
+            }
+            current = current == cycle - 1 ? cycle : Math.min(nextEventCycle(current), cycle - 1);
         }
         totalCycles = cycle;
     }
 
+    /**
+     * Retourne le prochain cycle durant lequel au moins un des composants doit être exécuté.
+     * 
+     * @param cycle
+     *            le dernier cycle exécuté
+     * @return le prochain cycle à exécuter, strictement supérieur au cycle donné
+     */
+    private long nextEventCycle(long cycle) {
+        long next = Long.MAX_VALUE;
+        for (Clocked c : clockedComponents) {
+            next = Math.min(next, c.nextEventCycle(cycle));
+        }
+        return Math.max(cycle + 1, next);
+    }
+
     /**
      * Retourne le nombre de cycles déjà simulés.
      * 
@@ -135,6 +207,97 @@ public final class GameBoy {
         return totalCycles;
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#stateSize()
+     */
+    @Override
+    public int stateSize() {
+        int size = STATE_HEADER_SIZE;
+        for (Stateful s : statefulComponents) {
+            size += s.stateSize();
+        }
+        return size;
+    }
+
+    /**
+     * Écrit l'état complet du GameBoy dans le tampon donné, en une seule passe : un en-tête contenant un nombre
+     * magique, la version du format, la somme de contrôle de la mémoire morte de la cartouche et le nombre de cycles
+     * simulés, suivi de l'état de chacun des composants. La mémoire morte de la cartouche n'en fait pas partie, l'état
+     * ne peut donc être restauré que dans un GameBoy simulant la même cartouche.
+     *
+     * @see ch.epfl.gameboj.component.Stateful#saveState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putInt(STATE_MAGIC);
+        buffer.putInt(STATE_VERSION);
+        buffer.putLong(cartridge.romChecksum());
+        buffer.putLong(totalCycles);
+        for (Stateful s : statefulComponents) {
+            s.saveState(buffer);
+        }
+    }
+
+    /**
+     * Restaure l'état complet du GameBoy depuis le tampon donné, tel qu'écrit par saveState. La taille et l'en-tête
+     * de l'état sont validés avant que l'état d'un quelconque composant ne soit modifié : si l'un d'eux est invalide,
+     * le GameBoy est inchangé. Le contenu de l'état des composants n'est en revanche pas validé au préalable : si
+     * celui-ci est corrompu, l'exception peut être levée alors qu'une partie des composants a déjà été restaurée, et
+     * l'état du GameBoy est alors indéterminé.
+     *
+     * @throws IllegalArgumentException
+     *             si le tampon contient moins d'octets que la taille de l'état, s'il ne commence pas par un en-tête
+     *             d'état valide, de la version actuelle, ou si l'état a été sauvegardé avec une autre cartouche, ou si
+     *             l'état d'un composant est invalide
+     * @see ch.epfl.gameboj.component.Stateful#loadState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        Preconditions.checkArgument(buffer.remaining() >= stateSize());
+        Preconditions.checkArgument(buffer.getInt() == STATE_MAGIC);
+        Preconditions.checkArgument(buffer.getInt() == STATE_VERSION);
+        Preconditions.checkArgument(buffer.getLong() == cartridge.romChecksum());
+        totalCycles = buffer.getLong();
+        boolean bootRomDisabled = bootRomController.disabled();
+        int romBanks = cartridge.romBanks();
+        for (Stateful s : statefulComponents) {
+            s.loadState(buffer);
+        }
+        // Le cache des instructions n'est invalidé que si le contenu visible de la mémoire morte a changé, afin que
+        // les restaurations répétées (retour en arrière, simulation en avance) ne le vident pas
+        if (bootRomController.disabled() != bootRomDisabled || cartridge.romBanks() != romBanks) {
+            cpu.invalidateCodeCache();
+        }
+    }
+
+    /**
+     * Sauvegarde l'état complet du GameBoy dans un nouveau tableau d'octets.
+     *
+     * @return l'état sauvegardé
+     */
+    public byte[] saveState() {
+        ByteBuffer buffer = ByteBuffer.allocate(stateSize());
+        saveState(buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Restaure l'état complet du GameBoy depuis le tableau d'octets donné, tel que retourné par saveState().
+     *
+     * @param state
+     *            l'état sauvegardé
+     * @throws IllegalArgumentException
+     *             si la taille du tableau n'est pas celle de l'état du GameBoy (par exemple parce que l'état est celui
+     *             d'une cartouche dont la mémoire vive a une autre taille), ou s'il ne contient pas un état valide, de la
+     *             version actuelle et sauvegardé avec la même cartouche (voir loadState(ByteBuffer))
+     */
+    public void loadState(byte[] state) {
+        Preconditions.checkArgument(state.length == stateSize());
+        loadState(ByteBuffer.wrap(state));
+    }
+
     /**
      * Sauvegarde le contenu de la mémoire vive de la cartouche dans le fichier spécifié
      * 
@@ -0,0 +1,227 @@
+/**
+* Représente un tampon de retour en arrière, conservant les états récents d'un GameBoy afin de pouvoir remonter le
+* temps. Les états sont regroupés : le premier de chaque groupe (l'état clef) est conservé en entier, les suivants
+* sous la forme de leur différence (ou exclusif) avec lui, et tous sont compressés.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import ch.epfl.gameboj.component.lcd.LcdController;
+
+public final class RewindBuffer {
+    private final GameBoy gameBoy;
+    private final int capacity;
+    private final int framesPerSnapshot;
+    private final int snapshotsPerKeyframe;
+
+    private final Deque<Group> groups;
+    private final Deflater deflater;
+    private final Inflater inflater;
+    private final byte[] state;
+    private final byte[] lastKeyframe;
+    private final byte[] compressed;
+    private int size;
+    private long memoryUsage;
+    private long lastSnapshotFrame;
+
+    /**
+     * Représente un groupe d'états : un état clef compressé, suivi des différences compressées des états suivants
+     * avec celui-ci.
+     */
+    private static final class Group {
+        private final byte[] keyframe;
+        private final List<byte[]> deltas;
+
+        private Group(byte[] keyframe) {
+            this.keyframe = keyframe;
+            deltas = new ArrayList<>();
+        }
+
+        private int size() {
+            return 1 + deltas.size();
+        }
+
+        private long memoryUsage() {
+            long usage = keyframe.length;
+            for (byte[] d : deltas) {
+                usage += d.length;
+            }
+            return usage;
+        }
+    }
+
+    /**
+     * Construit un tampon de retour en arrière vide pour le GameBoy donné.
+     *
+     * @param gameBoy
+     *            le GameBoy dont les états sont à conserver
+     * @param capacity
+     *            le nombre maximal d'états conservés ; lorsqu'il est dépassé, le plus ancien groupe d'états est oublié
+     * @param framesPerSnapshot
+     *            le nombre d'images séparant deux états conservés par captureIfDue
+     * @param snapshotsPerKeyframe
+     *            le nombre d'états de chaque groupe, état clef compris
+     * @throws NullPointerException
+     *             si le GameBoy est nul
+     * @throws IllegalArgumentException
+     *             si l'un des nombres n'est pas strictement positif, ou si la capacité est inférieure au nombre d'états
+     *             d'un groupe
+     */
+    public RewindBuffer(GameBoy gameBoy, int capacity, int framesPerSnapshot, int snapshotsPerKeyframe) {
+        Preconditions.checkArgument(framesPerSnapshot > 0 && snapshotsPerKeyframe > 0);
+        Preconditions.checkArgument(capacity >= snapshotsPerKeyframe);
+        this.gameBoy = Objects.requireNonNull(gameBoy);
+        this.capacity = capacity;
+        this.framesPerSnapshot = framesPerSnapshot;
+        this.snapshotsPerKeyframe = snapshotsPerKeyframe;
+        groups = new ArrayDeque<>();
+        deflater = new Deflater(Deflater.BEST_SPEED);
+        inflater = new Inflater();
+        int stateSize = gameBoy.stateSize();
+        state = new byte[stateSize];
+        lastKeyframe = new byte[stateSize];
+        // Taille maximale des données compressées, selon la documentation de zlib
+        compressed = new byte[stateSize + (stateSize >> 12) + (stateSize >> 14) + (stateSize >> 25) + 13];
+        lastSnapshotFrame = -1;
+    }
+
+    /**
+     * Conserve l'état actuel du GameBoy si au moins framesPerSnapshot images ont été simulées depuis le dernier état
+     * conservé ou restauré.
+     *
+     * @return vrai si l'état a été conservé
+     */
+    public boolean captureIfDue() {
+        long frame = gameBoy.cycles() / LcdController.CYCLES_PER_FRAME;
+        if (lastSnapshotFrame >= 0 && frame < lastSnapshotFrame + framesPerSnapshot) {
+            return false;
+        }
+        capture();
+        return true;
+    }
+
+    /**
+     * Conserve l'état actuel du GameBoy.
+     */
+    public void capture() {
+        gameBoy.saveState(ByteBuffer.wrap(state));
+        lastSnapshotFrame = gameBoy.cycles() / LcdController.CYCLES_PER_FRAME;
+
+        byte[] snapshot;
+        if (groups.isEmpty() || groups.getLast().size() == snapshotsPerKeyframe) {
+            System.arraycopy(state, 0, lastKeyframe, 0, state.length);
+            snapshot = compress(state);
+            groups.addLast(new Group(snapshot));
+        } else {
+            xor(state, lastKeyframe);
+            snapshot = compress(state);
+            groups.getLast().deltas.add(snapshot);
+        }
+        size++;
+        memoryUsage += snapshot.length;
+
+        while (size > capacity) {
+            Group oldest = groups.removeFirst();
+            size -= oldest.size();
+            memoryUsage -= oldest.memoryUsage();
+        }
+    }
+
+    /**
+     * Restaure le GameBoy dans le plus récent des états conservés, qui est retiré du tampon. Appelée de manière
+     * répétée, cette méthode remonte donc le temps d'un état à chaque appel.
+     *
+     * @return vrai si un état a été restauré, faux si le tampon était vide
+     */
+    public boolean rewind() {
+        if (groups.isEmpty()) {
+            return false;
+        }
+        Group last = groups.getLast();
+        if (last.deltas.isEmpty()) {
+            gameBoy.loadState(lastKeyframe);
+            groups.removeLast();
+            memoryUsage -= last.keyframe.length;
+            if (!groups.isEmpty()) {
+                decompress(groups.getLast().keyframe, lastKeyframe);
+            }
+        } else {
+            byte[] delta = last.deltas.remove(last.deltas.size() - 1);
+            memoryUsage -= delta.length;
+            decompress(delta, state);
+            xor(state, lastKeyframe);
+            gameBoy.loadState(state);
+        }
+        size--;
+        lastSnapshotFrame = gameBoy.cycles() / LcdController.CYCLES_PER_FRAME;
+        return true;
+    }
+
+    /**
+     * Retourne le nombre d'états actuellement conservés.
+     *
+     * @return le nombre d'états du tampon
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retourne la place occupée par les états compressés actuellement conservés.
+     *
+     * @return la taille totale des états compressés, en octets
+     */
+    public long memoryUsage() {
+        return memoryUsage;
+    }
+
+    /**
+     * Oublie tous les états conservés.
+     */
+    public void clear() {
+        groups.clear();
+        size = 0;
+        memoryUsage = 0;
+        lastSnapshotFrame = -1;
+    }
+
+    private byte[] compress(byte[] data) {
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        return Arrays.copyOf(compressed, deflater.deflate(compressed));
+    }
+
+    private void decompress(byte[] data, byte[] target) {
+        inflater.reset();
+        inflater.setInput(data);
+        try {
+            int length = inflater.inflate(target);
+            if (length != target.length) {
+                throw new IllegalStateException("État compressé incomplet");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void xor(byte[] data, byte[] key) {
+        for (int i = 0; i < data.length; i++) {
+            data[i] ^= key[i];
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/**
+* Simule un GameBoy en avance sur le temps réel afin de réduire la latence perçue des entrées : après chaque
+* simulation, l'état est sauvegardé, quelques images supplémentaires sont simulées avec les entrées actuelles, l'image
+* obtenue est retenue pour être affichée, puis l'état sauvegardé est restauré.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import ch.epfl.gameboj.component.lcd.LcdController;
+import ch.epfl.gameboj.component.lcd.LcdImage;
+
+public final class RunAhead {
+    private final GameBoy gameBoy;
+    private final ByteBuffer state;
+    private int frames;
+
+    /**
+     * Construit une simulation en avance, initialement désactivée, pour le GameBoy donné.
+     *
+     * @param gameBoy
+     *            le GameBoy à simuler
+     * @throws NullPointerException
+     *             si le GameBoy est nul
+     */
+    public RunAhead(GameBoy gameBoy) {
+        this.gameBoy = Objects.requireNonNull(gameBoy);
+        state = ByteBuffer.allocate(gameBoy.stateSize());
+    }
+
+    /**
+     * Modifie le nombre d'images simulées en avance, 0 désactivant la simulation en avance.
+     *
+     * @param frames
+     *            le nombre d'images simulées en avance
+     * @throws IllegalArgumentException
+     *             si le nombre d'images est négatif
+     */
+    public void setFrames(int frames) {
+        Preconditions.checkArgument(frames >= 0);
+        this.frames = frames;
+    }
+
+    /**
+     * Retourne le nombre d'images simulées en avance.
+     *
+     * @return le nombre d'images simulées en avance, 0 si la simulation en avance est désactivée
+     */
+    public int frames() {
+        return frames;
+    }
+
+    /**
+     * Simule le GameBoy jusqu'au cycle donné, puis retourne l'image qu'il afficherait après avoir été simulé pendant
+     * le nombre d'images choisi de plus avec les entrées actuelles, ou l'image actuelle si le GameBoy est relié à un
+     * autre par son port série. À la fin de l'appel, le GameBoy est dans le même état que s'il avait seulement été
+     * simulé jusqu'au cycle donné.
+     *
+     * @param cycle
+     *            le cycle jusqu'auquel simuler
+     * @throws IllegalArgumentException
+     *             si un nombre (strictement) supérieur de cycles a déjà été simulé
+     * @return l'image à afficher
+     */
+    public LcdImage runUntil(long cycle) {
+        gameBoy.runUntil(cycle);
+        // Les transferts d'une simulation en avance seraient reçus par le GameBoy relié, qui ne les oublierait pas
+        if (frames == 0 || gameBoy.serialPort().connected()) {
+            return gameBoy.lcdController().currentImage();
+        }
+        state.clear();
+        gameBoy.saveState(state);
+        // Le son et les images simulés en avance seront produits une fois ceux-ci simulés en temps réel
+        LcdController.FrameListener listener = gameBoy.lcdController().frameListener();
+        boolean outputEnabled = gameBoy.apu().outputEnabled();
+        gameBoy.lcdController().setFrameListener(null);
+        gameBoy.apu().setOutputEnabled(false);
+        gameBoy.runUntil(cycle + frames * LcdController.CYCLES_PER_FRAME);
+        gameBoy.apu().setOutputEnabled(outputEnabled);
+        gameBoy.lcdController().setFrameListener(listener);
+        LcdImage image = gameBoy.lcdController().currentImage();
+        state.flip();
+        gameBoy.loadState(state);
+        return image;
+    }
+}
@@ -0,0 +1,95 @@
+/**
+* Représente une file d'attente bornée, sans verrou, destinée à un unique producteur et un unique consommateur, chacun
+* sur son propre fil d'exécution.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class SpscQueue<E> {
+    private final Object[] elements;
+    private final int mask;
+    // Indice du prochain élément à lire, modifié uniquement par le consommateur
+    private final AtomicLong head;
+    // Indice du prochain élément à écrire, modifié uniquement par le producteur
+    private final AtomicLong tail;
+
+    /**
+     * Construit une file vide de capacité donnée.
+     *
+     * @param capacity
+     *            le nombre maximal d'éléments de la file
+     * @throws IllegalArgumentException
+     *             si la capacité n'est pas une puissance de deux strictement positive
+     */
+    public SpscQueue(int capacity) {
+        Preconditions.checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1);
+        elements = new Object[capacity];
+        mask = capacity - 1;
+        head = new AtomicLong();
+        tail = new AtomicLong();
+    }
+
+    /**
+     * Ajoute l'élément donné à la fin de la file, si elle n'est pas pleine. Ne doit être appelée que par le
+     * producteur.
+     *
+     * @param e
+     *            l'élément à ajouter
+     * @throws NullPointerException
+     *             si l'élément est nul
+     * @return vrai si l'élément a été ajouté, faux si la file était pleine
+     */
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        long t = tail.get();
+        if (t - head.get() == elements.length) {
+            return false;
+        }
+        elements[(int) t & mask] = e;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Retire et retourne l'élément au début de la file. Ne doit être appelée que par le consommateur.
+     *
+     * @return l'élément au début de la file, ou null si elle est vide
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return null;
+        }
+        int index = (int) h & mask;
+        E e = (E) elements[index];
+        elements[index] = null;
+        head.lazySet(h + 1);
+        return e;
+    }
+
+    /**
+     * Retourne le nombre d'éléments de la file, qui peut déjà avoir changé si l'autre fil d'exécution y accède en même
+     * temps.
+     *
+     * @return le nombre d'éléments de la file
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * Retourne la capacité de la file.
+     *
+     * @return le nombre maximal d'éléments de la file
+     */
+    public int capacity() {
+        return elements.length;
+    }
+}
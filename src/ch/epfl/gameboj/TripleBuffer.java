@@ -0,0 +1,70 @@
+/**
+* Représente un triple tampon sans verrou, permettant à un unique producteur de publier des valeurs successives et à
+* un unique consommateur d'obtenir la plus récente d'entre elles, sans que l'un n'attende jamais l'autre. Des trois
+* cases du tampon, l'une appartient au producteur, une autre au consommateur, et la troisième sert à les échanger.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class TripleBuffer<E> {
+    private static final int INDEX_MASK = 0b11;
+    // Indique que la case d'échange contient une valeur que le consommateur n'a pas encore obtenue
+    private static final int FRESH = 0b100;
+
+    private final Object[] slots;
+    // Indice de la case d'échange, et bit FRESH
+    private final AtomicInteger middle;
+    // Indice de la case du producteur, utilisé uniquement par celui-ci
+    private int back;
+    // Indice de la case du consommateur, utilisé uniquement par celui-ci
+    private int front;
+
+    /**
+     * Construit un triple tampon ne contenant encore aucune valeur.
+     */
+    public TripleBuffer() {
+        slots = new Object[3];
+        back = 0;
+        middle = new AtomicInteger(1);
+        front = 2;
+    }
+
+    /**
+     * Publie la valeur donnée, qui remplace celle publiée précédemment si le consommateur ne l'a pas encore obtenue. Ne
+     * doit être appelée que par le producteur.
+     *
+     * @param value
+     *            la valeur à publier
+     */
+    public void publish(E value) {
+        slots[back] = value;
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Retourne vrai si une valeur a été publiée depuis le dernier appel à latest.
+     *
+     * @return vrai si une nouvelle valeur est disponible
+     */
+    public boolean hasNew() {
+        return (middle.get() & FRESH) != 0;
+    }
+
+    /**
+     * Retourne la valeur publiée le plus récemment. Ne doit être appelée que par le consommateur.
+     *
+     * @return la dernière valeur publiée, ou null si aucune ne l'a encore été
+     */
+    @SuppressWarnings("unchecked")
+    public E latest() {
+        if (hasNew()) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return (E) slots[front];
+    }
+}
@@ -12,9 +12,23 @@ public interface Clocked{
     /**
      * Demande au composant d'évoluer en exécutant toutes les opérations qu'il
      * doit exécuter durant le cycle d'index donné en argument.
-     * 
+     *
      * @param cycle
      *            numéro du cycle à exécuter
      */
     void cycle(long cycle);
+
+    /**
+     * Retourne le prochain cycle, strictement supérieur au cycle donné, durant lequel le composant a besoin d'être
+     * exécuté, en supposant qu'il vient de l'être durant le cycle donné. Les cycles intermédiaires peuvent être sautés
+     * par l'ordonnanceur, le composant doit donc rester inactif pendant ceux-ci. Par défaut, le composant est exécuté à
+     * chaque cycle.
+     *
+     * @param cycle
+     *            numéro du dernier cycle exécuté
+     * @return le prochain cycle à exécuter, ou Long.MAX_VALUE si le composant n'attend aucun événement
+     */
+    default long nextEventCycle(long cycle) {
+        return cycle + 1;
+    }
 }
@@ -34,6 +34,20 @@ public interface Component {
      */
     void write(int address, int data);
 
+    /**
+     * Retourne vrai si et seulement si le composant est susceptible de répondre à une lecture ou d'accepter une
+     * écriture à l'adresse donnée. Le bus consulte cette méthode une seule fois, lors de l'attachement, pour construire
+     * sa table de décodage : le résultat ne doit donc pas varier au cours du temps. Par défaut, le composant couvre la
+     * totalité de l'espace d'adressage.
+     *
+     * @param address
+     *            l'adresse à tester
+     * @return vrai si le composant couvre l'adresse donnée
+     */
+    default boolean covers(int address) {
+        return true;
+    }
+
     /**
      * Attache le composant au bus donné
      * 
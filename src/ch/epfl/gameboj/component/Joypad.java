@@ -7,19 +7,22 @@
 
 package ch.epfl.gameboj.component;
 
+import java.nio.ByteBuffer;
+
 import ch.epfl.gameboj.AddressMap;
 import ch.epfl.gameboj.bits.Bit;
 import ch.epfl.gameboj.bits.Bits;
 import ch.epfl.gameboj.component.cpu.Cpu;
 import ch.epfl.gameboj.component.cpu.Cpu.Interrupt;
 
-public final class Joypad implements Component {
+public final class Joypad implements Component, Stateful {
     private static final int LINE_SIZE = 4;
     private static final int LINE0_INDEX = 0;
     private static final int LINE1_INDEX = 1;
     private final Cpu cpu;
     private int P1;
     private int[] pressedLine;
+    private KeyListener keyListener;
 
     /**
      * Représente les touches du clavier du GameBoy
@@ -28,6 +31,29 @@ public final class Joypad implements Component {
         RIGHT, LEFT, UP, DOWN, A, B, SELECT, START
     }
 
+    /**
+     * Représente un observateur des pressions et relâchements des touches du clavier.
+     */
+    @FunctionalInterface
+    public interface KeyListener {
+        /**
+         * Appelée à chaque pression ou relâchement d'une touche, avant que celui-ci ne soit appliqué au clavier.
+         * 
+         * @param k
+         *            la touche concernée
+         * @param pressed
+         *            vrai si la touche est pressée, faux si elle est relâchée
+         */
+        void keyChanged(Key k, boolean pressed);
+
+        /**
+         * Appelée après que l'état du clavier a été restauré par loadState, par exemple lorsque le GameBoy est ramené
+         * à un état antérieur. Par défaut, ne fait rien.
+         */
+        default void stateLoaded() {
+        }
+    }
+
     private enum P1bits implements Bit {
         STATE_COLUMN0, STATE_COLUMN1, STATE_COLUMN2, STATE_COLUMN3, SELECT_LINE0, SELECT_LINE1
     }
@@ -71,6 +97,75 @@ public final class Joypad implements Component {
         }
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Component#covers(int)
+     */
+    @Override
+    public boolean covers(int address) {
+        return address == AddressMap.REG_P1;
+    }
+
+    /**
+     * Modifie l'observateur auquel sont transmis les pressions et relâchements des touches. Il est appelé sur le fil
+     * d'exécution qui simule la pression ou le relâchement.
+     * 
+     * @param listener
+     *            l'observateur, ou null pour n'en avoir aucun
+     */
+    public void setKeyListener(KeyListener listener) {
+        keyListener = listener;
+    }
+
+    /**
+     * Retourne l'observateur auquel sont transmis les pressions et relâchements des touches.
+     * 
+     * @return l'observateur, ou null s'il n'y en a aucun
+     */
+    public KeyListener keyListener() {
+        return keyListener;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#stateSize()
+     */
+    @Override
+    public int stateSize() {
+        return 1 + pressedLine.length;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#saveState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.put((byte) P1);
+        for (int line : pressedLine) {
+            buffer.put((byte) line);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#loadState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        P1 = Byte.toUnsignedInt(buffer.get());
+        for (int i = 0; i < pressedLine.length; i++) {
+            pressedLine[i] = buffer.get();
+        }
+        if (keyListener != null) {
+            keyListener.stateLoaded();
+        }
+    }
+
     /**
      * Simule la pression d'une touche.
      * 
@@ -78,6 +173,9 @@ public final class Joypad implements Component {
      *            la touche pressée.
      */
     public void keyPressed(Key k) {
+        if (keyListener != null) {
+            keyListener.keyChanged(k, true);
+        }
         int line = k.ordinal() / LINE_SIZE;
         int column = k.ordinal() % LINE_SIZE;
         pressedLine[line] = Bits.set(pressedLine[line], column, true);
@@ -94,6 +192,9 @@ public final class Joypad implements Component {
      *            la touche relâchée.
      */
     public void keyReleased(Key k) {
+        if (keyListener != null) {
+            keyListener.keyChanged(k, false);
+        }
         int line = k.ordinal() / LINE_SIZE;
         int column = k.ordinal() % LINE_SIZE;
         pressedLine[line] = Bits.set(pressedLine[line], column, false);
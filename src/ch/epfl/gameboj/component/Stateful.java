@@ -0,0 +1,42 @@
+/**
+* Représente un objet dont l'état peut être sauvegardé puis restauré au moyen d'un tampon d'octets.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.component;
+
+import java.nio.ByteBuffer;
+
+public interface Stateful {
+
+    /**
+     * Retourne le nombre d'octets qu'occupe l'état de l'objet une fois sauvegardé, qui ne varie pas au cours du temps.
+     *
+     * @return la taille de l'état sauvegardé
+     */
+    int stateSize();
+
+    /**
+     * Écrit l'état de l'objet dans le tampon donné, à partir de sa position actuelle, qui est avancée d'exactement
+     * stateSize() octets.
+     *
+     * @param buffer
+     *            le tampon dans lequel écrire l'état
+     * @throws java.nio.BufferOverflowException
+     *             s'il reste moins de stateSize() octets dans le tampon
+     */
+    void saveState(ByteBuffer buffer);
+
+    /**
+     * Restaure l'état de l'objet depuis le tampon donné, à partir de sa position actuelle, qui est avancée d'exactement
+     * stateSize() octets. L'état doit avoir été écrit par saveState sur un objet construit de la même manière.
+     *
+     * @param buffer
+     *            le tampon depuis lequel lire l'état
+     * @throws java.nio.BufferUnderflowException
+     *             s'il reste moins de stateSize() octets dans le tampon
+     */
+    void loadState(ByteBuffer buffer);
+}
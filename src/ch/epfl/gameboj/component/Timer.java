@@ -7,6 +7,7 @@
 
 package ch.epfl.gameboj.component;
 
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 import ch.epfl.gameboj.AddressMap;
@@ -15,13 +16,18 @@ import ch.epfl.gameboj.bits.Bits;
 import ch.epfl.gameboj.component.cpu.Cpu;
 import ch.epfl.gameboj.component.cpu.Cpu.Interrupt;
 
-public final class Timer implements Component, Clocked {
+public final class Timer implements Component, Clocked, Stateful {
     private final Cpu cpu;
     private int mainTimer;
     private int TIMA;
     private int TMA;
     private int TAC;
+    private long lastCycle = -1;
     private static final int[] TAC_VALUES = { 9, 3, 5, 7 };
+    private static final int MAIN_TIMER_STEP = 4;
+    private static final int TIMA_OVERFLOW = 0x100;
+    private static final int MAIN_TIMER_RANGE = 1 << 16;
+    private static final int STATE_SIZE = 2 + 3 + 8;
 
     /**
      * Construit un minuteur associé au processeur donné.
@@ -40,9 +46,32 @@ public final class Timer implements Component, Clocked {
      */
     @Override
     public void cycle(long cycle) {
-        boolean s0 = state();
-        mainTimer = Bits.clip(16, mainTimer + 4);
-        incIfChange(s0);
+        // Les cycles sautés par l'ordonnanceur sont rattrapés d'un seul coup
+        long elapsed = Math.max(1, cycle - lastCycle);
+        long end = mainTimer + MAIN_TIMER_STEP * elapsed;
+        lastCycle = cycle;
+        if (Bits.test(TAC, 2)) {
+            // Le bit testé passe de 1 à 0 à chaque fois que le compteur principal franchit un multiple de la période
+            int period = 1 << (extractIndexFromTAC() + 1);
+            incTIMA(end / period - mainTimer / period);
+        }
+        mainTimer = (int) (end % MAIN_TIMER_RANGE);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Clocked#nextEventCycle(long)
+     */
+    @Override
+    public long nextEventCycle(long cycle) {
+        if (!Bits.test(TAC, 2)) {
+            return Long.MAX_VALUE;
+        }
+        // Calcule le cycle durant lequel TIMA dépassera sa capacité et lèvera une interruption
+        int period = 1 << (extractIndexFromTAC() + 1);
+        long overflowValue = (mainTimer / period + TIMA_OVERFLOW - TIMA) * (long) period;
+        return cycle + (overflowValue - mainTimer + MAIN_TIMER_STEP - 1) / MAIN_TIMER_STEP;
     }
 
     /*
@@ -95,6 +124,54 @@ public final class Timer implements Component, Clocked {
         }
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Component#covers(int)
+     */
+    @Override
+    public boolean covers(int address) {
+        return address >= AddressMap.REG_DIV && address <= AddressMap.REG_TAC;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#stateSize()
+     */
+    @Override
+    public int stateSize() {
+        return STATE_SIZE;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#saveState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putShort((short) mainTimer);
+        buffer.put((byte) TIMA);
+        buffer.put((byte) TMA);
+        buffer.put((byte) TAC);
+        buffer.putLong(lastCycle);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#loadState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        mainTimer = Short.toUnsignedInt(buffer.getShort());
+        TIMA = Byte.toUnsignedInt(buffer.get());
+        TMA = Byte.toUnsignedInt(buffer.get());
+        TAC = Byte.toUnsignedInt(buffer.get());
+        lastCycle = buffer.getLong();
+    }
+
     /**
      * Retourne l'état du processeur.
      * 
@@ -122,13 +199,24 @@ public final class Timer implements Component, Clocked {
      */
     private void incIfChange(boolean previousState) {
         if (!state() && previousState) {
-            if (TIMA == 0xFF) {
-                cpu.requestInterrupt(Interrupt.TIMER);
-                TIMA = TMA;
-            } else {
-                TIMA++;
-            }
+            incTIMA(1);
+        }
+    }
+
+    /**
+     * Incrémente TIMA du nombre de fois donné ; à chaque fois que TIMA dépasse 0xFF, une interruption est levée et TIMA
+     * prend la valeur contenue dans TMA.
+     *
+     * @param increments
+     *            le nombre d'incrémentations à effectuer
+     */
+    private void incTIMA(long increments) {
+        while (increments >= TIMA_OVERFLOW - TIMA) {
+            increments -= TIMA_OVERFLOW - TIMA;
+            cpu.requestInterrupt(Interrupt.TIMER);
+            TIMA = TMA;
         }
+        TIMA += increments;
     }
 
 }
@@ -0,0 +1,408 @@
+/**
+* Représente l'unité de traitement audio du GameBoy, avec ses quatre canaux : deux à onde carrée (dont un avec
+* balayage de fréquence), un à forme d'onde arbitraire et un de bruit. Les échantillons produits sont placés dans un
+* tampon circulaire, vidé par un consommateur indépendant de la simulation.
+*
+* Afin que la simulation reste rapide, l'unité n'est pas simulée cycle par cycle : elle se contente de noter le cycle
+* courant, et ne calcule ses échantillons que par lots, lorsqu'assez de cycles se sont écoulés, ou juste avant qu'un
+* de ses registres ne soit lu ou modifié, de sorte que le résultat est le même que si elle l'avait été.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.component.apu;
+
+import java.nio.ByteBuffer;
+
+import ch.epfl.gameboj.AddressMap;
+import ch.epfl.gameboj.Preconditions;
+import ch.epfl.gameboj.bits.Bits;
+import ch.epfl.gameboj.component.Clocked;
+import ch.epfl.gameboj.component.Component;
+import ch.epfl.gameboj.component.Stateful;
+
+public final class Apu implements Component, Clocked, Stateful {
+    /**
+     * Fréquence d'échantillonnage nominale des échantillons produits, en hertz
+     */
+    public static final int SAMPLE_RATE = 44_100;
+
+    /**
+     * Nombre d'échantillons (gauche et droite comptés séparément) que peut contenir le tampon d'échantillons
+     */
+    public static final int SAMPLE_BUFFER_CAPACITY = 1 << 14;
+
+    /**
+     * Écart relatif maximal de la fréquence d'échantillonnage par rapport à sa valeur nominale, lorsque le contrôle
+     * dynamique de celle-ci est activé
+     */
+    public static final double MAX_RATE_DEVIATION = 0.005;
+
+    // Nombre de cycles d'horloge audio (4.19 MHz) par cycle du processeur
+    private static final int CLOCKS_PER_CYCLE = 4;
+    private static final long CLOCKS_PER_SECOND = (1 << 20) * CLOCKS_PER_CYCLE;
+    // Le séquenceur avance à 512 Hz
+    private static final int SEQUENCER_PERIOD = 8192;
+    // Nombre de cycles du processeur entre deux lots d'échantillons, soit environ une milliseconde
+    private static final int BATCH_CYCLES = 1024;
+
+    private static final int NR50 = 0x14, NR51 = 0x15, NR52 = 0x16;
+    private static final int WAVE_RAM = AddressMap.WAVE_RAM_START - AddressMap.REGS_APU_START;
+    private static final int CHANNEL_REGISTERS = 5;
+    // Bits toujours lus à 1 dans chacun des registres, la mémoire d'onde exceptée
+    private static final int[] READ_MASKS = { 0x80, 0x3F, 0x00, 0xFF, 0xBF, 0xFF, 0x3F, 0x00, 0xFF, 0xBF, 0x7F, 0xFF,
+            0x9F, 0xFF, 0xBF, 0xFF, 0xFF, 0x00, 0x00, 0xBF, 0x00, 0x00, 0x70, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF,
+            0xFF, 0xFF };
+
+    // Facteur entre la somme des sorties des canaux (au plus 4 * 15 * 8) et un échantillon de 16 bits
+    private static final int SAMPLE_SCALE = 64;
+    // Coefficient du filtre passe-haut supprimant la composante continue, comme le condensateur de la console
+    private static final double HIGH_PASS = 0.996;
+
+    private static final int STATE_SIZE = AddressMap.REGS_APU_END - AddressMap.REGS_APU_START + 1 + 8 + 8 + 8 + 8 + 4 * 8;
+
+    private final int[] registers;
+    private final SquareChannel channel1;
+    private final SquareChannel channel2;
+    private final WaveChannel channel3;
+    private final NoiseChannel channel4;
+    private final Channel[] channels;
+
+    private final SampleBuffer samples;
+    private final short[] batch;
+    private int batchSize;
+    private boolean outputEnabled;
+    private boolean dynamicRateControl;
+    private double clocksPerSample;
+    private double leftFilter, rightFilter, lastLeft, lastRight;
+
+    private long lastCycle;
+    private long clock;
+    private long nextSequencerClock;
+    private int sequencerStep;
+    private double nextSampleClock;
+
+    /**
+     * Construit une unité de traitement audio éteinte, dont le tampon d'échantillons est vide.
+     */
+    public Apu() {
+        registers = new int[AddressMap.REGS_APU_END - AddressMap.REGS_APU_START];
+        channel1 = new SquareChannel(registers, 0, true);
+        channel2 = new SquareChannel(registers, CHANNEL_REGISTERS, false);
+        channel3 = new WaveChannel(registers, 2 * CHANNEL_REGISTERS, WAVE_RAM);
+        channel4 = new NoiseChannel(registers, 3 * CHANNEL_REGISTERS);
+        channels = new Channel[] { channel1, channel2, channel3, channel4 };
+
+        samples = new SampleBuffer(SAMPLE_BUFFER_CAPACITY);
+        batch = new short[2 * (int) (BATCH_CYCLES * CLOCKS_PER_CYCLE * SAMPLE_RATE / CLOCKS_PER_SECOND + 2)];
+        outputEnabled = true;
+        clocksPerSample = (double) CLOCKS_PER_SECOND / SAMPLE_RATE;
+        nextSequencerClock = SEQUENCER_PERIOD;
+        nextSampleClock = clocksPerSample;
+    }
+
+    /**
+     * Retourne le tampon dans lequel sont placés les échantillons produits, à la fréquence SAMPLE_RATE.
+     * 
+     * @return le tampon d'échantillons
+     */
+    public SampleBuffer samples() {
+        return samples;
+    }
+
+    /**
+     * Active ou désactive la production d'échantillons, par exemple pendant une simulation en avance dont le son ne
+     * doit pas être entendu. La simulation de l'unité n'en est pas affectée.
+     * 
+     * @param enabled
+     *            vrai pour placer les échantillons produits dans le tampon, faux pour les abandonner
+     */
+    public void setOutputEnabled(boolean enabled) {
+        outputEnabled = enabled;
+    }
+
+    /**
+     * Retourne vrai si les échantillons produits sont placés dans le tampon.
+     * 
+     * @return vrai si la production d'échantillons est active
+     */
+    public boolean outputEnabled() {
+        return outputEnabled;
+    }
+
+    /**
+     * Active ou désactive le contrôle dynamique de la fréquence d'échantillonnage : lorsqu'il est actif, celle-ci est
+     * légèrement ajustée (d'au plus MAX_RATE_DEVIATION) en fonction du remplissage du tampon d'échantillons, afin que
+     * celui-ci reste à moitié plein quand la simulation et le consommateur ne vont pas exactement à la même vitesse.
+     * 
+     * @param enabled
+     *            vrai pour activer le contrôle dynamique
+     */
+    public void setDynamicRateControl(boolean enabled) {
+        dynamicRateControl = enabled;
+        if (!enabled) {
+            clocksPerSample = (double) CLOCKS_PER_SECOND / SAMPLE_RATE;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see ch.epfl.gameboj.component.Clocked#cycle(long)
+     */
+    @Override
+    public void cycle(long cycle) {
+        lastCycle = cycle;
+        if (cycle * CLOCKS_PER_CYCLE - clock >= BATCH_CYCLES * CLOCKS_PER_CYCLE) {
+            render();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Clocked#nextEventCycle(long)
+     */
+    @Override
+    public long nextEventCycle(long cycle) {
+        // Les échantillons doivent être produits régulièrement, même si rien d'autre ne se passe
+        return clock / CLOCKS_PER_CYCLE + BATCH_CYCLES;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see ch.epfl.gameboj.component.Component#read(int)
+     */
+    @Override
+    public int read(int address) {
+        if (!covers(Preconditions.checkBits16(address))) {
+            return NO_DATA;
+        }
+        int index = address - AddressMap.REGS_APU_START;
+        if (index >= WAVE_RAM) {
+            return registers[index];
+        }
+        if (index == NR52) {
+            // L'état des canaux dépend du temps écoulé, par exemple si leur longueur a expiré
+            render();
+            int status = registers[NR52];
+            for (int i = 0; i < channels.length; i++) {
+                status = Bits.set(status, i, channels[i].enabled());
+            }
+            return status | READ_MASKS[NR52];
+        }
+        return registers[index] | READ_MASKS[index];
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see ch.epfl.gameboj.component.Component#write(int, int)
+     */
+    @Override
+    public void write(int address, int data) {
+        Preconditions.checkBits8(data);
+        if (!covers(Preconditions.checkBits16(address))) {
+            return;
+        }
+        // La modification ne doit affecter que les échantillons suivant le cycle courant
+        render();
+        int index = address - AddressMap.REGS_APU_START;
+        if (index >= WAVE_RAM) {
+            registers[index] = data;
+        } else if (index == NR52) {
+            boolean powered = Bits.test(data, 7);
+            if (powered != powered()) {
+                powerChanged(powered);
+            }
+        } else if (powered()) {
+            registers[index] = data;
+            if (index < channels.length * CHANNEL_REGISTERS) {
+                channels[index / CHANNEL_REGISTERS].written(index % CHANNEL_REGISTERS, data);
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Component#covers(int)
+     */
+    @Override
+    public boolean covers(int address) {
+        return address >= AddressMap.REGS_APU_START && address < AddressMap.REGS_APU_END;
+    }
+
+    private boolean powered() {
+        return Bits.test(registers[NR52], 7);
+    }
+
+    private void powerChanged(boolean powered) {
+        // L'extinction efface tous les registres, sauf la mémoire d'onde
+        for (int i = 0; i < NR52; i++) {
+            registers[i] = 0;
+        }
+        registers[NR52] = powered ? 1 << 7 : 0;
+        for (Channel c : channels) {
+            c.reset();
+        }
+        if (powered) {
+            sequencerStep = 0;
+        }
+    }
+
+    /**
+     * Simule l'unité jusqu'au dernier cycle passé à cycle, en produisant les échantillons correspondants.
+     */
+    private void render() {
+        if (dynamicRateControl) {
+            // Plus le tampon est rempli, moins d'échantillons sont produits
+            double fill = (double) samples.size() / samples.capacity();
+            clocksPerSample = CLOCKS_PER_SECOND / (SAMPLE_RATE * (1 + MAX_RATE_DEVIATION * (1 - 2 * fill)));
+        }
+        long target = lastCycle * CLOCKS_PER_CYCLE;
+        while (clock < target) {
+            long sampleClock = (long) Math.ceil(nextSampleClock);
+            long next = Math.min(target, Math.min(nextSequencerClock, sampleClock));
+            int elapsed = (int) (next - clock);
+            for (Channel c : channels) {
+                c.advance(elapsed);
+            }
+            clock = next;
+            if (clock == nextSequencerClock) {
+                clockSequencer();
+                nextSequencerClock += SEQUENCER_PERIOD;
+            }
+            if (clock == sampleClock) {
+                emitSample();
+                nextSampleClock += clocksPerSample;
+            }
+        }
+        flushBatch();
+    }
+
+    private void clockSequencer() {
+        if (sequencerStep % 2 == 0) {
+            for (Channel c : channels) {
+                c.clockLength();
+            }
+        }
+        if (sequencerStep == 2 || sequencerStep == 6) {
+            channel1.clockSweep();
+        }
+        if (sequencerStep == 7) {
+            channel1.clockEnvelope();
+            channel2.clockEnvelope();
+            channel4.clockEnvelope();
+        }
+        sequencerStep = (sequencerStep + 1) % 8;
+    }
+
+    private void emitSample() {
+        if (!outputEnabled) {
+            return;
+        }
+        int left = 0, right = 0;
+        int panning = registers[NR51];
+        for (int i = 0; i < channels.length; i++) {
+            int output = channels[i].output();
+            if (Bits.test(panning, i + 4)) {
+                left += output;
+            }
+            if (Bits.test(panning, i)) {
+                right += output;
+            }
+        }
+        left *= Bits.extract(registers[NR50], 4, 3) + 1;
+        right *= Bits.clip(3, registers[NR50]) + 1;
+
+        leftFilter = left - lastLeft + HIGH_PASS * leftFilter;
+        rightFilter = right - lastRight + HIGH_PASS * rightFilter;
+        lastLeft = left;
+        lastRight = right;
+
+        batch[batchSize++] = toSample(leftFilter);
+        batch[batchSize++] = toSample(rightFilter);
+        if (batchSize == batch.length) {
+            flushBatch();
+        }
+    }
+
+    private static short toSample(double value) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value * SAMPLE_SCALE)));
+    }
+
+    private void flushBatch() {
+        if (batchSize > 0) {
+            samples.write(batch, 0, batchSize);
+            batchSize = 0;
+        }
+    }
+
+    /**
+     * Retourne la taille de l'état de l'unité : ses registres, mémoire d'onde comprise, l'état du séquenceur, des
+     * quatre canaux et du filtre de sortie, ainsi que la position de la simulation de l'unité et du prochain
+     * échantillon. Les échantillons du tampon n'en font pas partie.
+     * 
+     * @see ch.epfl.gameboj.component.Stateful#stateSize()
+     */
+    @Override
+    public int stateSize() {
+        int size = STATE_SIZE;
+        for (Channel c : channels) {
+            size += c.stateSize();
+        }
+        return size;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#saveState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        for (int r : registers) {
+            buffer.put((byte) r);
+        }
+        buffer.put((byte) sequencerStep);
+        buffer.putLong(lastCycle);
+        buffer.putLong(clock);
+        buffer.putLong(nextSequencerClock);
+        buffer.putDouble(nextSampleClock);
+        buffer.putDouble(leftFilter);
+        buffer.putDouble(rightFilter);
+        buffer.putDouble(lastLeft);
+        buffer.putDouble(lastRight);
+        for (Channel c : channels) {
+            c.saveState(buffer);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#loadState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        for (int i = 0; i < registers.length; i++) {
+            registers[i] = Byte.toUnsignedInt(buffer.get());
+        }
+        sequencerStep = buffer.get();
+        lastCycle = buffer.getLong();
+        clock = buffer.getLong();
+        nextSequencerClock = buffer.getLong();
+        nextSampleClock = buffer.getDouble();
+        leftFilter = buffer.getDouble();
+        rightFilter = buffer.getDouble();
+        lastLeft = buffer.getDouble();
+        lastRight = buffer.getDouble();
+        for (Channel c : channels) {
+            c.loadState(buffer);
+        }
+        batchSize = 0;
+    }
+}
@@ -0,0 +1,227 @@
+/**
+* Représente l'un des quatre canaux de l'unité de traitement audio, avec ce qu'ils ont en commun : leur compteur de
+* longueur, leur convertisseur numérique-analogique et leur minuterie de fréquence. Les registres du canal sont lus
+* directement dans ceux de l'unité, afin qu'une modification de leur valeur soit prise en compte au moment même où le
+* matériel le ferait.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.component.apu;
+
+import java.nio.ByteBuffer;
+
+import ch.epfl.gameboj.bits.Bits;
+import ch.epfl.gameboj.component.Stateful;
+
+abstract class Channel implements Stateful {
+    private static final int STATE_SIZE = 1 + 2 + 4;
+
+    private final int[] registers;
+    private final int base;
+    private final int maxLength;
+    private boolean enabled;
+    private int length;
+    private int timer;
+
+    /**
+     * Construit un canal désactivé.
+     * 
+     * @param registers
+     *            les registres de l'unité de traitement audio
+     * @param base
+     *            l'index dans ceux-ci du registre NRx0 du canal, qu'il existe ou non
+     * @param maxLength
+     *            la valeur maximale du compteur de longueur, une puissance de deux
+     */
+    Channel(int[] registers, int base, int maxLength) {
+        this.registers = registers;
+        this.base = base;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Retourne la valeur du registre NRxi du canal.
+     * 
+     * @param i
+     *            le numéro du registre, entre 0 et 4
+     * @return la valeur du registre
+     */
+    final int nr(int i) {
+        return registers[base + i];
+    }
+
+    /**
+     * Modifie la valeur du registre NRxi du canal.
+     * 
+     * @param i
+     *            le numéro du registre, entre 0 et 4
+     * @param value
+     *            la nouvelle valeur du registre
+     */
+    final void setNr(int i, int value) {
+        registers[base + i] = value;
+    }
+
+    /**
+     * Retourne la fréquence du canal, sur 11 bits, telle que stockée dans ses registres NRx3 et NRx4.
+     * 
+     * @return la fréquence du canal
+     */
+    final int frequency() {
+        return Bits.make16(Bits.clip(3, nr(4)), nr(3));
+    }
+
+    /**
+     * Retourne vrai si le canal est activé, c'est-à-dire s'il a été déclenché et n'a pas été arrêté depuis.
+     * 
+     * @return vrai si le canal est activé
+     */
+    final boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Arrête le canal.
+     */
+    final void disable() {
+        enabled = false;
+    }
+
+    /**
+     * Remet le canal dans son état initial, lors de l'extinction de l'unité.
+     */
+    void reset() {
+        enabled = false;
+        length = 0;
+        timer = 0;
+    }
+
+    /**
+     * Prend en compte l'écriture de la valeur donnée dans le registre NRxi du canal, la valeur étant déjà stockée.
+     * 
+     * @param i
+     *            le numéro du registre, entre 0 et 4
+     * @param data
+     *            la valeur écrite
+     */
+    final void written(int i, int data) {
+        if (i == 1) {
+            length = maxLength - (data & (maxLength - 1));
+        }
+        if (i == 4 && Bits.test(data, 7)) {
+            trigger();
+        }
+        if (!dacEnabled()) {
+            enabled = false;
+        }
+    }
+
+    /**
+     * Déclenche le canal.
+     */
+    void trigger() {
+        enabled = dacEnabled();
+        if (length == 0) {
+            length = maxLength;
+        }
+        timer = period();
+    }
+
+    /**
+     * Décrémente le compteur de longueur, si celui-ci est actif, et arrête le canal s'il atteint 0.
+     */
+    final void clockLength() {
+        if (Bits.test(nr(4), 6) && length > 0) {
+            length--;
+            if (length == 0) {
+                enabled = false;
+            }
+        }
+    }
+
+    /**
+     * Fait avancer la minuterie de fréquence du canal du nombre donné de cycles d'horloge (soit un quart de cycle du
+     * processeur), en faisant progresser la forme d'onde à chaque fois qu'elle expire.
+     * 
+     * @param clocks
+     *            le nombre de cycles d'horloge écoulés
+     */
+    final void advance(int clocks) {
+        timer -= clocks;
+        while (timer <= 0) {
+            timer += period();
+            step();
+        }
+    }
+
+    /**
+     * Retourne la valeur numérique actuellement produite par le canal.
+     * 
+     * @return la sortie du canal, entre 0 et 15
+     */
+    final int output() {
+        return enabled ? amplitude() : 0;
+    }
+
+    /**
+     * Retourne la période de la minuterie de fréquence du canal.
+     * 
+     * @return la période, en cycles d'horloge
+     */
+    abstract int period();
+
+    /**
+     * Fait progresser la forme d'onde du canal d'un pas.
+     */
+    abstract void step();
+
+    /**
+     * Retourne la valeur numérique de la forme d'onde à sa position actuelle.
+     * 
+     * @return l'amplitude, entre 0 et 15
+     */
+    abstract int amplitude();
+
+    /**
+     * Retourne vrai si le convertisseur numérique-analogique du canal est allumé.
+     * 
+     * @return vrai si le convertisseur est allumé
+     */
+    abstract boolean dacEnabled();
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#stateSize()
+     */
+    @Override
+    public int stateSize() {
+        return STATE_SIZE;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#saveState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.put((byte) (enabled ? 1 : 0));
+        buffer.putShort((short) length);
+        buffer.putInt(timer);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#loadState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        enabled = buffer.get() != 0;
+        length = buffer.getShort();
+        timer = buffer.getInt();
+    }
+}
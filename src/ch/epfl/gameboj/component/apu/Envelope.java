@@ -0,0 +1,101 @@
+/**
+* Représente l'enveloppe de volume d'un canal de l'unité de traitement audio, qui augmente ou diminue
+* périodiquement son volume selon la valeur de son registre NRx2.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.component.apu;
+
+import java.nio.ByteBuffer;
+
+import ch.epfl.gameboj.bits.Bits;
+import ch.epfl.gameboj.component.Stateful;
+
+final class Envelope implements Stateful {
+    private static final int MAX_VOLUME = 15;
+
+    private int volume;
+    private int timer;
+
+    /**
+     * Déclenche l'enveloppe, qui reprend le volume initial et la période donnés par le registre NRx2.
+     * 
+     * @param nrx2
+     *            la valeur du registre NRx2
+     */
+    void trigger(int nrx2) {
+        volume = Bits.extract(nrx2, 4, 4);
+        timer = Bits.clip(3, nrx2);
+    }
+
+    /**
+     * Fait avancer l'enveloppe d'un pas de 1/64 de seconde.
+     * 
+     * @param nrx2
+     *            la valeur du registre NRx2
+     */
+    void clock(int nrx2) {
+        int period = Bits.clip(3, nrx2);
+        if (period == 0) {
+            return;
+        }
+        if (timer > 0) {
+            timer--;
+        }
+        if (timer == 0) {
+            timer = period;
+            volume = Bits.test(nrx2, 3) ? Math.min(MAX_VOLUME, volume + 1) : Math.max(0, volume - 1);
+        }
+    }
+
+    /**
+     * Retourne le volume actuel.
+     * 
+     * @return le volume, entre 0 et 15
+     */
+    int volume() {
+        return volume;
+    }
+
+    /**
+     * Remet l'enveloppe dans son état initial.
+     */
+    void reset() {
+        volume = 0;
+        timer = 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#stateSize()
+     */
+    @Override
+    public int stateSize() {
+        return 2;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#saveState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.put((byte) volume);
+        buffer.put((byte) timer);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#loadState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        volume = buffer.get();
+        timer = buffer.get();
+    }
+}
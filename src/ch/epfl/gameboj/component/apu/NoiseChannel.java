@@ -0,0 +1,101 @@
+/**
+* Représente le canal de bruit de l'unité de traitement audio, dont la sortie est donnée par un registre à décalage à
+* rétroaction linéaire.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.component.apu;
+
+import java.nio.ByteBuffer;
+
+import ch.epfl.gameboj.bits.Bits;
+
+final class NoiseChannel extends Channel {
+    private static final int[] DIVISORS = { 8, 16, 32, 48, 64, 80, 96, 112 };
+    private static final int LFSR_INITIAL = 0x7FFF;
+    private static final int STATE_SIZE = 2;
+
+    private final Envelope envelope;
+    private int lfsr;
+
+    /**
+     * Construit le canal de bruit.
+     * 
+     * @param registers
+     *            les registres de l'unité de traitement audio
+     * @param base
+     *            l'index dans ceux-ci du registre NR40, qui n'existe pas
+     */
+    NoiseChannel(int[] registers, int base) {
+        super(registers, base, 64);
+        envelope = new Envelope();
+        lfsr = LFSR_INITIAL;
+    }
+
+    @Override
+    int period() {
+        return DIVISORS[Bits.clip(3, nr(3))] << Bits.extract(nr(3), 4, 4);
+    }
+
+    @Override
+    void step() {
+        int feedback = (lfsr ^ (lfsr >> 1)) & 1;
+        lfsr = (lfsr >> 1) | (feedback << 14);
+        if (Bits.test(nr(3), 3)) {
+            // Mode 7 bits
+            lfsr = Bits.set(lfsr, 6, feedback == 1);
+        }
+    }
+
+    @Override
+    int amplitude() {
+        return Bits.test(lfsr, 0) ? 0 : envelope.volume();
+    }
+
+    @Override
+    boolean dacEnabled() {
+        return Bits.extract(nr(2), 3, 5) != 0;
+    }
+
+    @Override
+    void reset() {
+        super.reset();
+        envelope.reset();
+        lfsr = LFSR_INITIAL;
+    }
+
+    @Override
+    void trigger() {
+        super.trigger();
+        envelope.trigger(nr(2));
+        lfsr = LFSR_INITIAL;
+    }
+
+    /**
+     * Fait avancer l'enveloppe de volume du canal d'un pas.
+     */
+    void clockEnvelope() {
+        envelope.clock(nr(2));
+    }
+
+    @Override
+    public int stateSize() {
+        return super.stateSize() + envelope.stateSize() + STATE_SIZE;
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        super.saveState(buffer);
+        envelope.saveState(buffer);
+        buffer.putShort((short) lfsr);
+    }
+
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        super.loadState(buffer);
+        envelope.loadState(buffer);
+        lfsr = buffer.getShort();
+    }
+}
@@ -0,0 +1,125 @@
+/**
+* Représente un tampon circulaire d'échantillons audio stéréo de 16 bits, sans verrou, alimenté par l'unité de
+* traitement audio sur le fil d'exécution de la simulation et vidé par un unique consommateur, en général sur un autre
+* fil d'exécution. Les échantillons de gauche et de droite sont entrelacés. Lorsque le tampon est plein, les
+* échantillons excédentaires sont abandonnés, afin que la simulation n'attende jamais le consommateur.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.component.apu;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ch.epfl.gameboj.Preconditions;
+
+public final class SampleBuffer {
+    private final short[] samples;
+    private final int mask;
+    // Indice du prochain échantillon à lire, modifié uniquement par le consommateur
+    private final AtomicLong head;
+    // Indice du prochain échantillon à écrire, modifié uniquement par le producteur
+    private final AtomicLong tail;
+    private volatile long droppedSamples;
+
+    /**
+     * Construit un tampon vide de capacité donnée.
+     * 
+     * @param capacity
+     *            le nombre maximal d'échantillons (gauche et droite comptés séparément) du tampon
+     * @throws IllegalArgumentException
+     *             si la capacité n'est pas une puissance de deux au moins égale à 2
+     */
+    public SampleBuffer(int capacity) {
+        Preconditions.checkArgument(capacity >= 2 && Integer.bitCount(capacity) == 1);
+        samples = new short[capacity];
+        mask = capacity - 1;
+        head = new AtomicLong();
+        tail = new AtomicLong();
+    }
+
+    /**
+     * Ajoute au tampon autant que possible des échantillons donnés, et abandonne les autres. Ne doit être appelée que
+     * par le producteur.
+     * 
+     * @param source
+     *            le tableau contenant les échantillons
+     * @param offset
+     *            l'index du premier échantillon à ajouter
+     * @param length
+     *            le nombre d'échantillons à ajouter, pair
+     * @throws IndexOutOfBoundsException
+     *             si les échantillons ne sont pas tous dans le tableau
+     * @return le nombre d'échantillons effectivement ajoutés
+     */
+    public int write(short[] source, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, source.length);
+        long t = tail.get();
+        int count = Math.min(length, samples.length - (int) (t - head.get())) & ~1;
+        int index = (int) t & mask;
+        int first = Math.min(count, samples.length - index);
+        System.arraycopy(source, offset, samples, index, first);
+        System.arraycopy(source, offset + first, samples, 0, count - first);
+        tail.lazySet(t + count);
+        if (count < length) {
+            droppedSamples += length - count;
+        }
+        return count;
+    }
+
+    /**
+     * Retire du tampon au plus le nombre donné d'échantillons, les plus anciens, et les copie dans le tableau donné.
+     * Ne doit être appelée que par le consommateur.
+     * 
+     * @param destination
+     *            le tableau dans lequel copier les échantillons
+     * @param offset
+     *            l'index auquel copier le premier échantillon
+     * @param length
+     *            le nombre maximal d'échantillons à retirer
+     * @throws IndexOutOfBoundsException
+     *             si les échantillons ne tiennent pas tous dans le tableau
+     * @return le nombre d'échantillons effectivement retirés, pair, 0 si le tampon est vide
+     */
+    public int read(short[] destination, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, destination.length);
+        long h = head.get();
+        int count = Math.min(length, (int) (tail.get() - h)) & ~1;
+        int index = (int) h & mask;
+        int first = Math.min(count, samples.length - index);
+        System.arraycopy(samples, index, destination, offset, first);
+        System.arraycopy(samples, 0, destination, offset + first, count - first);
+        head.lazySet(h + count);
+        return count;
+    }
+
+    /**
+     * Retourne le nombre d'échantillons actuellement contenus dans le tampon, qui peut déjà avoir changé si l'autre
+     * fil d'exécution y accède en même temps.
+     * 
+     * @return le nombre d'échantillons du tampon
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * Retourne la capacité du tampon.
+     * 
+     * @return le nombre maximal d'échantillons du tampon
+     */
+    public int capacity() {
+        return samples.length;
+    }
+
+    /**
+     * Retourne le nombre total d'échantillons abandonnés faute de place dans le tampon.
+     * 
+     * @return le nombre d'échantillons abandonnés
+     */
+    public long droppedSamples() {
+        return droppedSamples;
+    }
+}
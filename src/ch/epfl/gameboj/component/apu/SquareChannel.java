@@ -0,0 +1,154 @@
+/**
+* Représente l'un des deux canaux à onde carrée de l'unité de traitement audio, le premier disposant en plus d'un
+* balayage de fréquence.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.component.apu;
+
+import java.nio.ByteBuffer;
+
+import ch.epfl.gameboj.bits.Bits;
+
+final class SquareChannel extends Channel {
+    // Formes d'onde des quatre rapports cycliques : 12.5%, 25%, 50% et 75%
+    private static final int[] DUTIES = { 0b0000_0001, 0b1000_0001, 0b1000_0111, 0b0111_1110 };
+    private static final int MAX_FREQUENCY = 0x7FF;
+    private static final int STATE_SIZE = 1 + 2 + 1 + 1;
+
+    private final boolean hasSweep;
+    private final Envelope envelope;
+    private int dutyPosition;
+    private int shadowFrequency;
+    private int sweepTimer;
+    private boolean sweepEnabled;
+
+    /**
+     * Construit un canal à onde carrée.
+     * 
+     * @param registers
+     *            les registres de l'unité de traitement audio
+     * @param base
+     *            l'index dans ceux-ci du registre NRx0 du canal
+     * @param hasSweep
+     *            vrai si le canal dispose d'un balayage de fréquence, contrôlé par son registre NRx0
+     */
+    SquareChannel(int[] registers, int base, boolean hasSweep) {
+        super(registers, base, 64);
+        this.hasSweep = hasSweep;
+        envelope = new Envelope();
+    }
+
+    @Override
+    int period() {
+        return (MAX_FREQUENCY + 1 - frequency()) * 4;
+    }
+
+    @Override
+    void step() {
+        dutyPosition = (dutyPosition + 1) % Byte.SIZE;
+    }
+
+    @Override
+    int amplitude() {
+        return Bits.test(DUTIES[Bits.extract(nr(1), 6, 2)], dutyPosition) ? envelope.volume() : 0;
+    }
+
+    @Override
+    boolean dacEnabled() {
+        return Bits.extract(nr(2), 3, 5) != 0;
+    }
+
+    @Override
+    void reset() {
+        super.reset();
+        envelope.reset();
+        dutyPosition = 0;
+        shadowFrequency = 0;
+        sweepTimer = 0;
+        sweepEnabled = false;
+    }
+
+    @Override
+    void trigger() {
+        super.trigger();
+        envelope.trigger(nr(2));
+        if (hasSweep) {
+            shadowFrequency = frequency();
+            sweepTimer = sweepPeriod();
+            sweepEnabled = Bits.extract(nr(0), 4, 3) != 0 || Bits.clip(3, nr(0)) != 0;
+            if (Bits.clip(3, nr(0)) != 0) {
+                sweptFrequency();
+            }
+        }
+    }
+
+    /**
+     * Fait avancer l'enveloppe de volume du canal d'un pas.
+     */
+    void clockEnvelope() {
+        envelope.clock(nr(2));
+    }
+
+    /**
+     * Fait avancer le balayage de fréquence du canal d'un pas de 1/128 de seconde ; à la fin de chaque période, la
+     * fréquence est modifiée, et le canal arrêté si elle dépasse sa valeur maximale.
+     */
+    void clockSweep() {
+        if (!hasSweep || --sweepTimer > 0) {
+            return;
+        }
+        sweepTimer = sweepPeriod();
+        if (sweepEnabled && Bits.extract(nr(0), 4, 3) != 0) {
+            int frequency = sweptFrequency();
+            if (frequency <= MAX_FREQUENCY && Bits.clip(3, nr(0)) != 0) {
+                shadowFrequency = frequency;
+                setNr(3, Bits.clip(8, frequency));
+                setNr(4, (nr(4) & ~0b111) | Bits.extract(frequency, 8, 3));
+                // La nouvelle fréquence est immédiatement testée à nouveau, sans être utilisée
+                sweptFrequency();
+            }
+        }
+    }
+
+    private int sweepPeriod() {
+        int period = Bits.extract(nr(0), 4, 3);
+        return period == 0 ? 8 : period;
+    }
+
+    private int sweptFrequency() {
+        int delta = shadowFrequency >> Bits.clip(3, nr(0));
+        int frequency = Bits.test(nr(0), 3) ? shadowFrequency - delta : shadowFrequency + delta;
+        if (frequency > MAX_FREQUENCY) {
+            disable();
+        }
+        return frequency;
+    }
+
+    @Override
+    public int stateSize() {
+        return super.stateSize() + envelope.stateSize() + STATE_SIZE;
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        super.saveState(buffer);
+        envelope.saveState(buffer);
+        buffer.put((byte) dutyPosition);
+        buffer.putShort((short) shadowFrequency);
+        buffer.put((byte) sweepTimer);
+        buffer.put((byte) (sweepEnabled ? 1 : 0));
+    }
+
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        super.loadState(buffer);
+        envelope.loadState(buffer);
+        dutyPosition = buffer.get();
+        shadowFrequency = buffer.getShort();
+        sweepTimer = buffer.get();
+        sweepEnabled = buffer.get() != 0;
+    }
+}
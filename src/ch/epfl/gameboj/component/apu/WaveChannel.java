@@ -0,0 +1,95 @@
+/**
+* Représente le canal de l'unité de traitement audio jouant une forme d'onde arbitraire, formée des 32 échantillons de
+* 4 bits stockés dans la mémoire d'onde.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.component.apu;
+
+import java.nio.ByteBuffer;
+
+import ch.epfl.gameboj.bits.Bits;
+
+final class WaveChannel extends Channel {
+    private static final int MAX_FREQUENCY = 0x7FF;
+    private static final int SAMPLES = 32;
+    private static final int STATE_SIZE = 2;
+
+    private final int[] registers;
+    private final int waveRam;
+    private int position;
+    private int sample;
+
+    /**
+     * Construit le canal à forme d'onde arbitraire.
+     * 
+     * @param registers
+     *            les registres de l'unité de traitement audio
+     * @param base
+     *            l'index dans ceux-ci du registre NR30
+     * @param waveRam
+     *            l'index dans ceux-ci du premier octet de la mémoire d'onde
+     */
+    WaveChannel(int[] registers, int base, int waveRam) {
+        super(registers, base, 256);
+        this.registers = registers;
+        this.waveRam = waveRam;
+    }
+
+    @Override
+    int period() {
+        return (MAX_FREQUENCY + 1 - frequency()) * 2;
+    }
+
+    @Override
+    void step() {
+        position = (position + 1) % SAMPLES;
+        int b = registers[waveRam + position / 2];
+        sample = position % 2 == 0 ? Bits.extract(b, 4, 4) : Bits.clip(4, b);
+    }
+
+    @Override
+    int amplitude() {
+        int volumeCode = Bits.extract(nr(2), 5, 2);
+        return volumeCode == 0 ? 0 : sample >> (volumeCode - 1);
+    }
+
+    @Override
+    boolean dacEnabled() {
+        return Bits.test(nr(0), 7);
+    }
+
+    @Override
+    void reset() {
+        super.reset();
+        position = 0;
+        sample = 0;
+    }
+
+    @Override
+    void trigger() {
+        super.trigger();
+        position = 0;
+    }
+
+    @Override
+    public int stateSize() {
+        return super.stateSize() + STATE_SIZE;
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        super.saveState(buffer);
+        buffer.put((byte) position);
+        buffer.put((byte) sample);
+    }
+
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        super.loadState(buffer);
+        position = buffer.get();
+        sample = buffer.get();
+    }
+}
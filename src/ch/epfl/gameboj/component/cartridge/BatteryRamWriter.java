@@ -0,0 +1,105 @@
+/**
+* Écrit périodiquement, en arrière-plan, la mémoire vive d'une cartouche dans son fichier de sauvegarde projeté en
+* mémoire, en ne réécrivant que les pages modifiées depuis la dernière écriture.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.component.cartridge;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import ch.epfl.gameboj.Preconditions;
+
+public final class BatteryRamWriter implements AutoCloseable {
+    private final Cartridge cartridge;
+    private final FileChannel channel;
+    private final MappedByteBuffer saveFile;
+    private final ScheduledExecutorService executor;
+    private boolean closed;
+
+    /**
+     * Construit un écrivain pour la mémoire vive de la cartouche donnée et démarre son fil d'exécution, qui écrit les
+     * pages modifiées dans le fichier donné à la période donnée. Le fichier est créé s'il n'existe pas, et
+     * entièrement réécrit lors de la première écriture ; les octets qu'il contient au-delà de la taille de la mémoire
+     * vive sont conservés. Le fil d'exécution ne retient pas la fin du programme : close doit donc être appelée avant
+     * celle-ci pour garantir que les dernières modifications sont écrites.
+     *
+     * @param cartridge
+     *            la cartouche dont la mémoire vive est à sauvegarder
+     * @param file
+     *            le fichier de sauvegarde
+     * @param periodMillis
+     *            la période d'écriture, en millisecondes
+     * @throws IOException
+     *             en cas d'erreur d'ouverture ou de projection du fichier
+     * @throws NullPointerException
+     *             si la cartouche ou le fichier sont nuls
+     * @throws IllegalArgumentException
+     *             si la période n'est pas strictement positive
+     */
+    public BatteryRamWriter(Cartridge cartridge, File file, long periodMillis) throws IOException {
+        Preconditions.checkArgument(periodMillis > 0);
+        this.cartridge = Objects.requireNonNull(cartridge);
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        saveFile = channel.map(MapMode.READ_WRITE, 0, cartridge.ramSize());
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "battery-ram-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Écrit immédiatement dans le fichier de sauvegarde les pages de la mémoire vive modifiées depuis la dernière
+     * écriture, puis, s'il y en avait, force l'écriture du fichier sur son support, et retourne le nombre de ces pages.
+     * Cette méthode peut être appelée depuis n'importe quel fil d'exécution.
+     *
+     * @return le nombre de pages écrites, 0 si l'écrivain est fermé
+     */
+    public synchronized int flush() {
+        if (closed) {
+            return 0;
+        }
+        int pages = cartridge.copyDirtyRamPages(saveFile);
+        if (pages > 0) {
+            saveFile.force();
+        }
+        return pages;
+    }
+
+    /**
+     * Arrête le fil d'exécution de l'écrivain, écrit une dernière fois les pages modifiées et ferme le fichier de
+     * sauvegarde.
+     *
+     * @throws IOException
+     *             en cas d'erreur de fermeture du fichier
+     */
+    @Override
+    public void close() throws IOException {
+        executor.shutdown();
+        synchronized (this) {
+            flush();
+            closed = true;
+        }
+        channel.close();
+    }
+}
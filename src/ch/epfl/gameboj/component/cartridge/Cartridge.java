@@ -8,26 +8,32 @@
 package ch.epfl.gameboj.component.cartridge;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import ch.epfl.gameboj.Preconditions;
 import ch.epfl.gameboj.component.Component;
+import ch.epfl.gameboj.component.Stateful;
 import ch.epfl.gameboj.component.memory.Rom;
 
-public final class Cartridge implements Component {
+public final class Cartridge implements Component, Stateful {
     private final Component mbc;
+    private final Rom rom;
     private final static int INDEX_CARTRIDGE_TYPE = 0x147;
     private final static int RAM_SIZE = 0x149;
     private final static int[] TYPES_RAM_SIZE = { 0, 2048, 8192, 32768 };
 
-    private Cartridge(Component controler) {
+    private Cartridge(Component controler, Rom memory) {
         mbc = controler;
+        rom = memory;
     }
 
     /**
-     * Retourne une cartouche dont la mémoire morte contient les octets du fichier donné.
+     * Retourne une cartouche dont la mémoire morte contient les octets du fichier donné. Le fichier est projeté en
+     * mémoire en lecture seule plutôt que copié, et sa mémoire morte est obtenue du cache partagé (voir RomCache) : les
+     * cartouches chargées depuis un même fichier partagent ainsi la même mémoire morte, chacune ayant son propre
+     * contrôleur de banque mémoire et sa propre mémoire vive. Le fichier ne doit pas être modifié tant qu'elles sont
+     * utilisées.
      * 
      * @param romFile
      *            Fichier dont le contenu est à stocker dans la mémoire morte
@@ -39,13 +45,11 @@ public final class Cartridge implements Component {
      * 
      */
     public static Cartridge ofFile(File romFile) throws IOException {
-        try (InputStream stream = new FileInputStream(romFile)) {
-            Rom memory = new Rom(stream.readAllBytes());
-            int type = memory.read(INDEX_CARTRIDGE_TYPE);
-            Preconditions.checkArgument(type <= 3);
-            return new Cartridge(
-                    type == 0 ? new MBC0(memory) : new MBC1(memory, TYPES_RAM_SIZE[memory.read(RAM_SIZE)]));
-        }
+        Rom memory = RomCache.shared().get(romFile);
+        int type = memory.read(INDEX_CARTRIDGE_TYPE);
+        Preconditions.checkArgument(type <= 3);
+        return new Cartridge(type == 0 ? new MBC0(memory) : new MBC1(memory, TYPES_RAM_SIZE[memory.read(RAM_SIZE)]),
+                memory);
     }
 
     /*
@@ -70,7 +74,90 @@ public final class Cartridge implements Component {
         Preconditions.checkBits8(data);
         mbc.write(address, data);
     }
-    
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Component#covers(int)
+     */
+    @Override
+    public boolean covers(int address) {
+        return mbc.covers(address);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#stateSize()
+     */
+    @Override
+    public int stateSize() {
+        return mbc instanceof MBC1 ? ((MBC1) mbc).stateSize() : 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#saveState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        if (mbc instanceof MBC1) {
+            ((MBC1) mbc).saveState(buffer);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#loadState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        if (mbc instanceof MBC1) {
+            ((MBC1) mbc).loadState(buffer);
+        }
+    }
+
+    /**
+     * Retourne un entier identifiant les banques de la mémoire morte actuellement visibles, qui ne change que si
+     * l'une d'elles change ; il est constant si la cartouche n'a qu'une banque de chaque type.
+     * 
+     * @return l'identifiant des banques visibles
+     */
+    public int romBanks() {
+        return mbc instanceof MBC1 ? ((MBC1) mbc).romBanks() : 0;
+    }
+
+    /**
+     * Retourne la somme de contrôle (CRC-32) de la mémoire morte de la cartouche, qui identifie le jeu qu'elle contient.
+     * 
+     * @return la somme de contrôle de la mémoire morte
+     */
+    public long romChecksum() {
+        return rom.checksum();
+    }
+
+    /**
+     * Retourne la taille de la mémoire vive de la cartouche.
+     * 
+     * @return la taille de la mémoire vive, en octets, 0 si la cartouche n'en a pas
+     */
+    public int ramSize() {
+        return mbc instanceof MBC1 ? ((MBC1) mbc).ramSize() : 0;
+    }
+
+    /**
+     * Copie dans le tampon donné les pages de la mémoire vive de la cartouche modifiées depuis le dernier appel, et
+     * retourne leur nombre (voir MBC1.copyDirtyRamPages).
+     * 
+     * @param target
+     *            le tampon dans lequel copier les pages, d'une taille au moins égale à celle de la mémoire vive
+     * @return le nombre de pages copiées
+     */
+    public int copyDirtyRamPages(ByteBuffer target) {
+        return mbc instanceof MBC1 ? ((MBC1) mbc).copyDirtyRamPages(target) : 0;
+    }
 
     /**
      * Sauvegarde le contenu de la mémoire vive de la cartouche dans le fichier spécifié
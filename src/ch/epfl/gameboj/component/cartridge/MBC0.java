@@ -56,4 +56,14 @@ public final class MBC0 implements Component {
     public void write(int address, int data) {
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Component#covers(int)
+     */
+    @Override
+    public boolean covers(int address) {
+        return address < ROM_SIZE;
+    }
+
 }
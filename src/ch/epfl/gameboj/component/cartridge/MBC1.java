@@ -4,14 +4,19 @@ import static ch.epfl.gameboj.Preconditions.checkBits16;
 import static ch.epfl.gameboj.Preconditions.checkBits8;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
+import ch.epfl.gameboj.Preconditions;
 import ch.epfl.gameboj.bits.Bits;
 import ch.epfl.gameboj.component.Component;
+import ch.epfl.gameboj.component.Stateful;
 import ch.epfl.gameboj.component.memory.Ram;
 import ch.epfl.gameboj.component.memory.Rom;
 
-public final class MBC1 implements Component {
+public final class MBC1 implements Component, Stateful {
     private static final int RAM_ENABLE = 0xA;
+    private static final int RAM_PAGE_SIZE = 256;
 
     private enum Mode {
         MODE_0, MODE_1
@@ -24,6 +29,9 @@ public final class MBC1 implements Component {
     private Mode mode;
     private int romLsb5, ramRom2;
     private final int romMask, ramMask;
+    // Pages de 256 octets de la mémoire vive modifiées depuis leur dernière écriture dans le fichier de sauvegarde,
+    // partagées avec le fil d'exécution qui les y écrit
+    private final AtomicIntegerArray dirtyRamPages;
 
     public MBC1(Rom rom, int ramSize) {
         this.rom = rom;
@@ -36,6 +44,8 @@ public final class MBC1 implements Component {
 
         this.romMask = rom.size() - 1;
         this.ramMask = ramSize - 1;
+        this.dirtyRamPages = new AtomicIntegerArray((ramSize + RAM_PAGE_SIZE - 1) / RAM_PAGE_SIZE);
+        markAllRamPagesDirty();
     }
 
     public int read(int address) {
@@ -70,12 +80,31 @@ public final class MBC1 implements Component {
             mode = Bits.test(data, 0) ? Mode.MODE_1 : Mode.MODE_0;
             break;
         case 5:
-            if (ramEnabled)
-                ram.write(ramAddress(address), data);
+            if (ramEnabled) {
+                int ramAddress = ramAddress(address);
+                ram.write(ramAddress, data);
+                dirtyRamPages.lazySet(ramAddress / RAM_PAGE_SIZE, 1);
+            }
             break;
         }
     }
 
+    @Override
+    public boolean covers(int address) {
+        int region = Bits.extract(address, 13, 3);
+        return region <= 3 || region == 5;
+    }
+
+    /**
+     * Retourne un entier identifiant les deux banques de la mémoire morte actuellement visibles, qui ne change que si
+     * l'une d'elles change.
+     * 
+     * @return l'identifiant des banques visibles
+     */
+    public int romBanks() {
+        return romAddress(msb2(), 0, 0) >>> 14 << 16 | romAddress(ramRom2, romLsb5, 0) >>> 14;
+    }
+
     private int msb2() {
         switch (mode) {
         case MODE_0:
@@ -94,6 +123,78 @@ public final class MBC1 implements Component {
     private int ramAddress(int b_12_0) {
         return ((msb2() << 13) | Bits.clip(13, b_12_0)) & ramMask;
     }
+
+    @Override
+    public int stateSize() {
+        return 4 + ram.stateSize();
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.put((byte) (ramEnabled ? 1 : 0));
+        buffer.put((byte) mode.ordinal());
+        buffer.put((byte) romLsb5);
+        buffer.put((byte) ramRom2);
+        ram.saveState(buffer);
+    }
+
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        ramEnabled = buffer.get() != 0;
+        int modeOrdinal = buffer.get();
+        Preconditions.checkArgument(modeOrdinal >= 0 && modeOrdinal < Mode.values().length);
+        mode = Mode.values()[modeOrdinal];
+        romLsb5 = buffer.get();
+        ramRom2 = buffer.get();
+        // Seules les pages dont le contenu change sont marquées comme modifiées, afin que les restaurations répétées
+        // (retour en arrière, simulation en avance) ne provoquent pas la réécriture de toute la sauvegarde
+        for (int address = 0; address < ram.size(); address++) {
+            int data = Byte.toUnsignedInt(buffer.get());
+            if (ram.read(address) != data) {
+                ram.write(address, data);
+                dirtyRamPages.lazySet(address / RAM_PAGE_SIZE, 1);
+            }
+        }
+    }
+
+    /**
+     * Retourne la taille de la mémoire vive.
+     * 
+     * @return la taille de la mémoire vive, en octets
+     */
+    public int ramSize() {
+        return ram.size();
+    }
+
+    /**
+     * Copie dans le tampon donné, au même index que dans la mémoire vive, le contenu de chacune des pages de 256
+     * octets de la mémoire vive modifiées depuis le dernier appel, et retourne le nombre de ces pages. Cette méthode
+     * peut être appelée depuis un autre fil d'exécution que celui de la simulation : une page modifiée pendant sa
+     * copie est à nouveau considérée comme modifiée, et sera donc copiée lors de l'appel suivant.
+     * 
+     * @param target
+     *            le tampon dans lequel copier les pages, d'une taille au moins égale à celle de la mémoire vive
+     * @return le nombre de pages copiées
+     */
+    public int copyDirtyRamPages(ByteBuffer target) {
+        int pages = 0;
+        for (int page = 0; page < dirtyRamPages.length(); page++) {
+            if (dirtyRamPages.getAndSet(page, 0) != 0) {
+                int end = Math.min(ram.size(), (page + 1) * RAM_PAGE_SIZE);
+                for (int i = page * RAM_PAGE_SIZE; i < end; i++) {
+                    target.put(i, (byte) ram.read(i));
+                }
+                pages++;
+            }
+        }
+        return pages;
+    }
+
+    private void markAllRamPagesDirty() {
+        for (int page = 0; page < dirtyRamPages.length(); page++) {
+            dirtyRamPages.set(page, 1);
+        }
+    }
     
     /**
      * Sauvegarde le contenu de la mémoire vive dans le fichier spécifié
@@ -113,6 +214,7 @@ public final class MBC1 implements Component {
      */
     public void loadRam(File file) {
         ram.loadRam(file);
+        markAllRamPagesDirty();
     }
 
 }
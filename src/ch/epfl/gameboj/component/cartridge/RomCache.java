@@ -0,0 +1,171 @@
+/**
+* Représente un cache de mémoires mortes de cartouches, permettant à toutes les cartouches chargées depuis un même
+* fichier de partager une seule mémoire morte, chacune gardant son propre contrôleur de banque mémoire. Les mémoires
+* mortes sont des projections en mémoire de leurs fichiers : un fichier ne doit donc pas être modifié sur place tant
+* que sa mémoire morte est dans le cache ou utilisée, sous peine de modifier celle-ci. Pour le mettre à jour, il faut
+* le remplacer par un nouveau fichier (par exemple en déplaçant ce dernier à sa place), la projection de l'ancien
+* restant alors inchangée.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.component.cartridge;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import ch.epfl.gameboj.Preconditions;
+import ch.epfl.gameboj.component.memory.Rom;
+
+public final class RomCache {
+    /**
+     * Nombre maximal de mémoires mortes conservées par le cache partagé
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private static final RomCache SHARED = new RomCache(DEFAULT_CAPACITY);
+
+    private final Map<Key, Rom> roms;
+    private long hits;
+    private long misses;
+
+    /**
+     * Représente la clef d'une mémoire morte dans le cache : le chemin canonique de son fichier, sa taille et sa date
+     * de modification, afin qu'un fichier remplacé ne soit pas confondu avec son ancienne version sans qu'il faille
+     * relire son contenu.
+     */
+    private static final class Key {
+        private final String path;
+        private final long size;
+        private final long lastModified;
+
+        private Key(String path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(Object that) {
+            return that instanceof Key && path.equals(((Key) that).path) && size == ((Key) that).size
+                    && lastModified == ((Key) that).lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, size, lastModified);
+        }
+    }
+
+    /**
+     * Construit un cache vide, contenant au plus le nombre donné de mémoires mortes. Lorsqu'il est plein, la mémoire
+     * morte utilisée le moins récemment est retirée du cache.
+     *
+     * @param capacity
+     *            le nombre maximal de mémoires mortes du cache
+     * @throws IllegalArgumentException
+     *             si la capacité n'est pas strictement positive
+     */
+    public RomCache(int capacity) {
+        Preconditions.checkArgument(capacity > 0);
+        roms = new LinkedHashMap<Key, Rom>(capacity, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Rom> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Retourne le cache partagé par tout le programme, utilisé par Cartridge.ofFile.
+     *
+     * @return le cache partagé
+     */
+    public static RomCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Retourne la mémoire morte contenant les octets du fichier donné. Si le cache contient déjà une mémoire morte
+     * pour ce fichier, avec la même taille et la même date de modification, c'est elle qui est retournée sans que le
+     * fichier ne soit lu ; sinon le fichier est projeté en mémoire et une nouvelle mémoire morte est créée et ajoutée
+     * au cache.
+     *
+     * @param romFile
+     *            le fichier de la mémoire morte
+     * @throws IOException
+     *             en cas d'erreur de lecture du fichier
+     * @return la mémoire morte du fichier, éventuellement partagée
+     */
+    public Rom get(File romFile) throws IOException {
+        Key key = new Key(romFile.getCanonicalPath(), romFile.length(), romFile.lastModified());
+        synchronized (this) {
+            Rom rom = roms.get(key);
+            if (rom != null) {
+                hits++;
+                return rom;
+            }
+        }
+
+        MappedByteBuffer content;
+        try (FileChannel channel = FileChannel.open(romFile.toPath(), StandardOpenOption.READ)) {
+            content = channel.map(MapMode.READ_ONLY, 0, channel.size());
+        }
+        synchronized (this) {
+            // Un autre fil d'exécution a pu ajouter la mémoire morte pendant la projection du fichier
+            Rom rom = roms.get(key);
+            if (rom != null) {
+                hits++;
+                return rom;
+            }
+            misses++;
+            rom = new Rom(content);
+            roms.put(key, rom);
+            return rom;
+        }
+    }
+
+    /**
+     * Retourne le nombre de demandes auxquelles le cache a répondu avec une mémoire morte qu'il contenait déjà.
+     *
+     * @return le nombre de succès du cache
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Retourne le nombre de demandes pour lesquelles une nouvelle mémoire morte a dû être créée.
+     *
+     * @return le nombre d'échecs du cache
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Retourne le nombre de mémoires mortes actuellement contenues dans le cache.
+     *
+     * @return la taille du cache
+     */
+    public synchronized int size() {
+        return roms.size();
+    }
+
+    /**
+     * Vide le cache. Les mémoires mortes déjà retournées restent utilisables.
+     */
+    public synchronized void clear() {
+        roms.clear();
+    }
+}
@@ -7,6 +7,8 @@
 
 package ch.epfl.gameboj.component.cpu;
 
+import java.nio.ByteBuffer;
+
 import ch.epfl.gameboj.AddressMap;
 import ch.epfl.gameboj.Bus;
 import ch.epfl.gameboj.Preconditions;
@@ -16,17 +18,20 @@ import ch.epfl.gameboj.bits.Bit;
 import ch.epfl.gameboj.bits.Bits;
 import ch.epfl.gameboj.component.Clocked;
 import ch.epfl.gameboj.component.Component;
+import ch.epfl.gameboj.component.Stateful;
 import ch.epfl.gameboj.component.cpu.Alu.Flag;
 import ch.epfl.gameboj.component.cpu.Alu.RotDir;
 import ch.epfl.gameboj.component.cpu.Opcode.Kind;
 import ch.epfl.gameboj.component.memory.Ram;
 
-public final class Cpu implements Component, Clocked {
+public final class Cpu implements Component, Clocked, Stateful {
 
     private long nextNonIdleCycle;
     private static final long INTERRUPTIONS_CYCLES = 5;
     private static final int PREFIX_OPCODE = 0xCB;
     private static final int OPCODE_TABLE_SIZE = 0x100;
+    private static final int CODE_CACHE_END = AddressMap.VIDEO_RAM_START;
+    private static final int STATE_SIZE = 2 + 2 + Reg.values().length + 1 + 1 + 1 + 8 + AddressMap.HIGH_RAM_SIZE;
     private int PC;
     private int SP;
     private final RegisterFile<Reg> registerFile;
@@ -40,6 +45,14 @@ public final class Cpu implements Component, Clocked {
 
     private int nextPC;
 
+    private final Instruction[] directInstructions;
+    private final Instruction[] prefixedInstructions;
+
+    private CachedInstruction[] codeCache;
+    private int codeCacheGeneration;
+    private boolean useCachedOperands;
+    private int cachedOperands;
+
     private enum Reg implements Register {
         A, F, B, C, D, E, H, L
     }
@@ -64,12 +77,37 @@ public final class Cpu implements Component, Clocked {
         VBLANK, LCD_STAT, TIMER, SERIAL, JOYPAD
     }
 
+    /**
+     * Représente une instruction prête à être exécutée, dont les opérandes ont été extraits de l'encodage de son
+     * opcode lors de la construction de la table des instructions.
+     */
+    @FunctionalInterface
+    private interface Instruction {
+        /**
+         * Exécute l'instruction.
+         */
+        void execute();
+    }
+
+    /**
+     * Représente une instruction de la mémoire morte déjà décodée, avec ses opérandes. Elle n'est valide que tant que
+     * sa génération est égale à celle du cache.
+     */
+    private static final class CachedInstruction {
+        private int generation;
+        private Opcode opcode;
+        private Instruction instruction;
+        private int operands;
+    }
+
     /**
      * Construit un nouveau Cpu en initialisant ses attributs.
      */
     public Cpu() {
         registerFile = new RegisterFile<>(Reg.values());
         highRAM = new Ram(AddressMap.HIGH_RAM_SIZE);
+        directInstructions = buildInstructionTable(DIRECT_OPCODE_TABLE);
+        prefixedInstructions = buildInstructionTable(PREFIXED_OPCODE_TABLE);
     }
 
     /*
@@ -121,6 +159,91 @@ public final class Cpu implements Component, Clocked {
         }
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Component#covers(int)
+     */
+    @Override
+    public boolean covers(int address) {
+        return address == AddressMap.REG_IE || address == AddressMap.REG_IF
+                || (address >= AddressMap.HIGH_RAM_START && address < AddressMap.HIGH_RAM_END);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#stateSize()
+     */
+    @Override
+    public int stateSize() {
+        return STATE_SIZE;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#saveState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putShort((short) PC);
+        buffer.putShort((short) SP);
+        for (Reg r : Reg.values()) {
+            buffer.put((byte) getReg(r));
+        }
+        buffer.put((byte) (IME ? 1 : 0));
+        buffer.put((byte) IE);
+        buffer.put((byte) IF);
+        buffer.putLong(nextNonIdleCycle);
+        highRAM.saveState(buffer);
+    }
+
+    /**
+     * Restaure l'état du processeur depuis le tampon donné. Les instructions du cache ne sont pas invalidées : si le
+     * contenu visible de la mémoire morte a pu changer avec la restauration (banque ou mémoire de démarrage), il
+     * incombe à l'appelant d'appeler invalidateCodeCache, ce que fait GameBoy.loadState.
+     *
+     * @see ch.epfl.gameboj.component.Stateful#loadState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        PC = Short.toUnsignedInt(buffer.getShort());
+        SP = Short.toUnsignedInt(buffer.getShort());
+        for (Reg r : Reg.values()) {
+            registerFile.set(r, Byte.toUnsignedInt(buffer.get()));
+        }
+        IME = buffer.get() != 0;
+        IE = Byte.toUnsignedInt(buffer.get());
+        IF = Byte.toUnsignedInt(buffer.get());
+        nextNonIdleCycle = buffer.getLong();
+        highRAM.loadState(buffer);
+    }
+
+    /**
+     * Invalide, en temps constant, toutes les instructions du cache, qui seront décodées à nouveau lors de leur
+     * prochaine exécution.
+     */
+    public void invalidateCodeCache() {
+        codeCacheGeneration++;
+    }
+
+    /**
+     * Active ou désactive le cache des instructions décodées. Lorsqu'il est activé, les instructions situées dans la
+     * mémoire morte (adresses inférieures à 0x8000) ne sont lues et décodées qu'une fois, puis exécutées directement
+     * depuis le cache jusqu'à ce que le processeur écrive dans cette zone (changement de banque) ou désactive la
+     * mémoire morte de démarrage. Le code se trouvant en mémoire vive est toujours interprété.
+     * 
+     * Le cache ne doit être activé que si le contenu visible de la mémoire morte ne peut être modifié que par des
+     * écritures du processeur, ce qui est le cas dans le GameBoy.
+     * 
+     * @param enabled
+     *            vrai pour activer le cache, faux pour le désactiver
+     */
+    public void setCodeCacheEnabled(boolean enabled) {
+        codeCache = enabled ? new CachedInstruction[CODE_CACHE_END] : null;
+    }
+
     /**
      * Met à 1 le bit correspondant à l'interruption passée en paramètre dans le registre IF.
      * 
@@ -148,6 +271,20 @@ public final class Cpu implements Component, Clocked {
         }
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Clocked#nextEventCycle(long)
+     */
+    @Override
+    public long nextEventCycle(long cycle) {
+        if (nextNonIdleCycle == Long.MAX_VALUE) {
+            // Le processeur est à l'arrêt et ne se réveille qu'au cycle suivant la levée d'une interruption
+            return (IE & IF) > 0 ? cycle + 1 : Long.MAX_VALUE;
+        }
+        return nextNonIdleCycle;
+    }
+
     /**
      * Examine si les interruptions sont activées (c-à-d si IME est vrai) et si une interruption est en attente, auquel
      * cas effectue le traitement correspondant ; sinon, exécute normalement la prochaine instruction
@@ -163,436 +300,506 @@ public final class Cpu implements Component, Clocked {
             push16(PC);
             PC = AddressMap.INTERRUPTS[i];
             nextNonIdleCycle += INTERRUPTIONS_CYCLES;
+        } else if (codeCache != null && PC < CODE_CACHE_END) {
+            executeCached();
         } else {
+            int encoding = bus.read(PC);
             Opcode opcode;
-            if (bus.read(PC) == PREFIX_OPCODE) {
-                opcode = PREFIXED_OPCODE_TABLE[read8AfterOpcode()];
+            Instruction instruction;
+            if (encoding == PREFIX_OPCODE) {
+                encoding = read8AfterOpcode();
+                opcode = PREFIXED_OPCODE_TABLE[encoding];
+                instruction = prefixedInstructions[encoding];
             } else {
-                opcode = DIRECT_OPCODE_TABLE[bus.read(PC)];
+                opcode = DIRECT_OPCODE_TABLE[encoding];
+                instruction = directInstructions[encoding];
             }
-            dispatch(opcode);
-            nextNonIdleCycle += opcode.cycles;
+            execute(opcode, instruction);
         }
     }
 
     /**
-     * Exécute les instructions contenues dans l'opcode passé en argument.
+     * Exécute l'instruction donnée, correspondant à l'opcode donné, et met à jour le compteur de programme ainsi que
+     * le prochain cycle durant lequel le processeur doit être exécuté.
      * 
      * @param opcode
-     *            l'opcode d'où extraire les instructions
+     *            l'opcode de l'instruction
+     * @param instruction
+     *            l'instruction à exécuter
      */
-    private void dispatch(Opcode opcode) {
+    private void execute(Opcode opcode, Instruction instruction) {
         nextPC = PC + opcode.totalBytes;
-        switch (opcode.family) {
-        case NOP: {
-        }
-            break;
+        instruction.execute();
+        PC = Bits.clip(16, nextPC);
+        nextNonIdleCycle += opcode.cycles;
+    }
 
-        // Loads
-        case LD_R8_HLR: {
-            registerFile.set(extractReg(opcode, 3), read8AtHl());
+    /**
+     * Exécute l'instruction de la mémoire morte désignée par le compteur de programme depuis le cache, en la décodant
+     * au préalable si elle n'y est pas encore ou plus valide.
+     */
+    private void executeCached() {
+        CachedInstruction cached = codeCache[PC];
+        if (cached == null) {
+            cached = new CachedInstruction();
+            cached.generation = codeCacheGeneration - 1;
+            codeCache[PC] = cached;
+        }
+        if (cached.generation != codeCacheGeneration) {
+            int encoding = bus.read(PC);
+            if (encoding == PREFIX_OPCODE) {
+                encoding = read8AfterOpcode();
+                cached.opcode = PREFIXED_OPCODE_TABLE[encoding];
+                cached.instruction = prefixedInstructions[encoding];
+            } else {
+                cached.opcode = DIRECT_OPCODE_TABLE[encoding];
+                cached.instruction = directInstructions[encoding];
+            }
+            if (PC + cached.opcode.totalBytes > CODE_CACHE_END) {
+                // Les opérandes débordent de la mémoire morte, l'instruction reste donc invalide et est interprétée
+                execute(cached.opcode, cached.instruction);
+                return;
+            }
+            cached.operands = cached.opcode.totalBytes == 3 ? read16AfterOpcode() : read8AfterOpcode();
+            cached.generation = codeCacheGeneration;
         }
+        cachedOperands = cached.operands;
+        useCachedOperands = true;
+        execute(cached.opcode, cached.instruction);
+        useCachedOperands = false;
+    }
 
-            break;
-        case LD_A_HLRU: {
-            registerFile.set(Reg.A, read8AtHl());
-            setReg16(Reg16.HL, Bits.clip(16, reg16(Reg16.HL) + extractHlIncrement(opcode)));
+    /**
+     * Invalide toutes les instructions du cache, en temps constant, si l'écriture à l'adresse donnée peut modifier le
+     * contenu visible de la mémoire morte.
+     * 
+     * @param address
+     *            l'adresse de l'écriture
+     */
+    private void invalidateCodeCache(int address) {
+        if (address < CODE_CACHE_END || address == AddressMap.REG_BOOT_ROM_DISABLE) {
+            codeCacheGeneration++;
         }
+    }
 
-            break;
-        case LD_A_N8R: {
-            registerFile.set(Reg.A, bus.read(AddressMap.REGS_START + read8AfterOpcode()));
-        }
-            break;
-        case LD_A_CR: {
-            registerFile.set(Reg.A, bus.read(AddressMap.REGS_START + getReg(Reg.C)));
-        }
-            break;
-        case LD_A_N16R: {
-            registerFile.set(Reg.A, read8(read16AfterOpcode()));
-        }
-            break;
-        case LD_A_BCR: {
-            registerFile.set(Reg.A, read8(reg16(Reg16.BC)));
+    /**
+     * Construit la table des instructions correspondant à la table d'opcodes donnée, chaque instruction étant placée
+     * au même index que son opcode.
+     * 
+     * @param opcodes
+     *            la table d'opcodes
+     * @return la table des instructions
+     */
+    private Instruction[] buildInstructionTable(Opcode[] opcodes) {
+        Instruction[] table = new Instruction[OPCODE_TABLE_SIZE];
+        for (int i = 0; i < OPCODE_TABLE_SIZE; i++) {
+            if (opcodes[i] != null) {
+                table[i] = instructionFor(opcodes[i]);
+            }
         }
-            break;
-        case LD_A_DER: {
-            registerFile.set(Reg.A, read8(reg16(Reg16.DE)));
+        return table;
+    }
+
+    /**
+     * Retourne l'instruction correspondant à l'opcode passé en argument, dont les opérandes (registres, condition,
+     * index de bit, ...) sont extraits de l'encodage de l'opcode une fois pour toutes.
+     * 
+     * @param opcode
+     *            l'opcode dont on veut l'instruction
+     * @return l'instruction correspondant à l'opcode
+     */
+    private Instruction instructionFor(Opcode opcode) {
+        switch (opcode.family) {
+        case NOP:
+            return () -> {
+            };
+
+        // Loads
+        case LD_R8_HLR: {
+            Reg r = extractReg(opcode, 3);
+            return () -> registerFile.set(r, read8AtHl());
         }
-            break;
+        case LD_A_HLRU: {
+            int increment = extractHlIncrement(opcode);
+            return () -> {
+                registerFile.set(Reg.A, read8AtHl());
+                setReg16(Reg16.HL, Bits.clip(16, reg16(Reg16.HL) + increment));
+            };
+        }
+        case LD_A_N8R:
+            return () -> registerFile.set(Reg.A, bus.read(AddressMap.REGS_START + read8AfterOpcode()));
+        case LD_A_CR:
+            return () -> registerFile.set(Reg.A, bus.read(AddressMap.REGS_START + getReg(Reg.C)));
+        case LD_A_N16R:
+            return () -> registerFile.set(Reg.A, read8(read16AfterOpcode()));
+        case LD_A_BCR:
+            return () -> registerFile.set(Reg.A, read8(reg16(Reg16.BC)));
+        case LD_A_DER:
+            return () -> registerFile.set(Reg.A, read8(reg16(Reg16.DE)));
         case LD_R8_N8: {
-            registerFile.set(extractReg(opcode, 3), read8AfterOpcode());
+            Reg r = extractReg(opcode, 3);
+            return () -> registerFile.set(r, read8AfterOpcode());
         }
-            break;
         case LD_R16SP_N16: {
-            setReg16SP(extractReg16(opcode), read16AfterOpcode());
+            Reg16 r = extractReg16(opcode);
+            return () -> setReg16SP(r, read16AfterOpcode());
         }
-            break;
         case POP_R16: {
-            setReg16(extractReg16(opcode), pop16());
+            Reg16 r = extractReg16(opcode);
+            return () -> setReg16(r, pop16());
         }
-            break;
         case LD_HLR_R8: {
-            write8AtHl(getReg(extractReg(opcode, 0)));
+            Reg r = extractReg(opcode, 0);
+            return () -> write8AtHl(getReg(r));
         }
-            break;
         case LD_HLRU_A: {
-            write8AtHl(getReg(Reg.A));
-            setReg16(Reg16.HL, Bits.clip(16, reg16(Reg16.HL) + extractHlIncrement(opcode)));
-        }
-            break;
-        case LD_N8R_A: {
-            write8(AddressMap.REGS_START + read8AfterOpcode(), getReg(Reg.A));
-        }
-            break;
-        case LD_CR_A: {
-            write8(AddressMap.REGS_START + getReg(Reg.C), getReg(Reg.A));
-        }
-            break;
-        case LD_N16R_A: {
-            write8(read16AfterOpcode(), getReg(Reg.A));
-        }
-            break;
-        case LD_BCR_A: {
-            write8(reg16(Reg16.BC), getReg(Reg.A));
-        }
-            break;
-        case LD_DER_A: {
-            write8(reg16(Reg16.DE), getReg(Reg.A));
-        }
-            break;
-        case LD_HLR_N8: {
-            write8AtHl(read8AfterOpcode());
-        }
-            break;
-        case LD_N16R_SP: {
-            write16(read16AfterOpcode(), SP);
-        }
-            break;
+            int increment = extractHlIncrement(opcode);
+            return () -> {
+                write8AtHl(getReg(Reg.A));
+                setReg16(Reg16.HL, Bits.clip(16, reg16(Reg16.HL) + increment));
+            };
+        }
+        case LD_N8R_A:
+            return () -> write8(AddressMap.REGS_START + read8AfterOpcode(), getReg(Reg.A));
+        case LD_CR_A:
+            return () -> write8(AddressMap.REGS_START + getReg(Reg.C), getReg(Reg.A));
+        case LD_N16R_A:
+            return () -> write8(read16AfterOpcode(), getReg(Reg.A));
+        case LD_BCR_A:
+            return () -> write8(reg16(Reg16.BC), getReg(Reg.A));
+        case LD_DER_A:
+            return () -> write8(reg16(Reg16.DE), getReg(Reg.A));
+        case LD_HLR_N8:
+            return () -> write8AtHl(read8AfterOpcode());
+        case LD_N16R_SP:
+            return () -> write16(read16AfterOpcode(), SP);
         case LD_R8_R8: {
-            registerFile.set(extractReg(opcode, 3), getReg(extractReg(opcode, 0)));
-        }
-            break;
-        case LD_SP_HL: {
-            SP = reg16(Reg16.HL);
+            Reg destination = extractReg(opcode, 3);
+            Reg source = extractReg(opcode, 0);
+            return () -> registerFile.set(destination, getReg(source));
         }
-            break;
+        case LD_SP_HL:
+            return () -> SP = reg16(Reg16.HL);
         case PUSH_R16: {
-            push16(reg16(extractReg16(opcode)));
+            Reg16 r = extractReg16(opcode);
+            return () -> push16(reg16(r));
         }
-            break;
 
         // Add
         case ADD_A_R8: {
-            addToRegisterAndSetFlags(Reg.A, getReg(extractReg(opcode, 0)), flagCForAddingInstructions(opcode));
+            Reg r = extractReg(opcode, 0);
+            boolean withCarry = extractCarryUse(opcode);
+            return () -> addToRegisterAndSetFlags(Reg.A, getReg(r), initialCarry(withCarry));
         }
-            break;
         case ADD_A_N8: {
-            addToRegisterAndSetFlags(Reg.A, read8AfterOpcode(), flagCForAddingInstructions(opcode));
+            boolean withCarry = extractCarryUse(opcode);
+            return () -> addToRegisterAndSetFlags(Reg.A, read8AfterOpcode(), initialCarry(withCarry));
         }
-            break;
         case ADD_A_HLR: {
-            addToRegisterAndSetFlags(Reg.A, read8AtHl(), flagCForAddingInstructions(opcode));
+            boolean withCarry = extractCarryUse(opcode);
+            return () -> addToRegisterAndSetFlags(Reg.A, read8AtHl(), initialCarry(withCarry));
         }
-            break;
         case INC_R8: {
-            int vf = Alu.add(getReg(extractReg(opcode, 3)), 1);
-            setRegFromAlu(extractReg(opcode, 3), vf);
-            combineAluFlags(vf, FlagSrc.ALU, FlagSrc.ALU, FlagSrc.ALU, FlagSrc.CPU);
-        }
-            break;
-        case INC_HLR: {
-            int vf = Alu.add(read8AtHl(), 1);
-            write8AtHl(Alu.unpackValue(vf));
-            combineAluFlags(vf, FlagSrc.ALU, FlagSrc.ALU, FlagSrc.ALU, FlagSrc.CPU);
-        }
-            break;
+            Reg r = extractReg(opcode, 3);
+            return () -> {
+                int vf = Alu.add(getReg(r), 1);
+                setRegFromAlu(r, vf);
+                combineAluFlags(vf, FlagSrc.ALU, FlagSrc.ALU, FlagSrc.ALU, FlagSrc.CPU);
+            };
+        }
+        case INC_HLR:
+            return () -> {
+                int vf = Alu.add(read8AtHl(), 1);
+                write8AtHl(Alu.unpackValue(vf));
+                combineAluFlags(vf, FlagSrc.ALU, FlagSrc.ALU, FlagSrc.ALU, FlagSrc.CPU);
+            };
         case INC_R16SP: {
-            setReg16SP(extractReg16(opcode), Alu.unpackValue(Alu.add16H(reg16SP(extractReg16(opcode)), 1)));
+            Reg16 r = extractReg16(opcode);
+            return () -> setReg16SP(r, Alu.unpackValue(Alu.add16H(reg16SP(r), 1)));
         }
-            break;
         case ADD_HL_R16SP: {
-            int vf = Alu.add16H(reg16(Reg16.HL), reg16SP(extractReg16(opcode)));
-            setReg16(Reg16.HL, Alu.unpackValue(vf));
-            combineAluFlags(vf, FlagSrc.CPU, FlagSrc.ALU, FlagSrc.ALU, FlagSrc.ALU);
+            Reg16 r = extractReg16(opcode);
+            return () -> {
+                int vf = Alu.add16H(reg16(Reg16.HL), reg16SP(r));
+                setReg16(Reg16.HL, Alu.unpackValue(vf));
+                combineAluFlags(vf, FlagSrc.CPU, FlagSrc.ALU, FlagSrc.ALU, FlagSrc.ALU);
+            };
         }
-            break;
         case LD_HLSP_S8: {
-            int vf = Alu.add16L(Bits.clip(16, readAfterOpcodeAsSigned()), SP);
-            combineAluFlags(vf, FlagSrc.V0, FlagSrc.V0, FlagSrc.ALU, FlagSrc.ALU);
-            if (Bits.test(opcode.encoding, 4)) {
-                setReg16(Reg16.HL, Alu.unpackValue(vf));
-            } else {
-                SP = Alu.unpackValue(vf);
-            }
+            boolean toHl = Bits.test(opcode.encoding, 4);
+            return () -> {
+                int vf = Alu.add16L(Bits.clip(16, readAfterOpcodeAsSigned()), SP);
+                combineAluFlags(vf, FlagSrc.V0, FlagSrc.V0, FlagSrc.ALU, FlagSrc.ALU);
+                if (toHl) {
+                    setReg16(Reg16.HL, Alu.unpackValue(vf));
+                } else {
+                    SP = Alu.unpackValue(vf);
+                }
+            };
         }
-            break;
 
         // Subtract
         case SUB_A_R8: {
-            subToRegisterAndSetFlags(Reg.A, getReg(extractReg(opcode, 0)), flagCForAddingInstructions(opcode));
+            Reg r = extractReg(opcode, 0);
+            boolean withBorrow = extractCarryUse(opcode);
+            return () -> subToRegisterAndSetFlags(Reg.A, getReg(r), initialCarry(withBorrow));
         }
-            break;
         case SUB_A_N8: {
-            subToRegisterAndSetFlags(Reg.A, read8AfterOpcode(), flagCForAddingInstructions(opcode));
+            boolean withBorrow = extractCarryUse(opcode);
+            return () -> subToRegisterAndSetFlags(Reg.A, read8AfterOpcode(), initialCarry(withBorrow));
         }
-            break;
         case SUB_A_HLR: {
-            subToRegisterAndSetFlags(Reg.A, read8AtHl(), flagCForAddingInstructions(opcode));
+            boolean withBorrow = extractCarryUse(opcode);
+            return () -> subToRegisterAndSetFlags(Reg.A, read8AtHl(), initialCarry(withBorrow));
         }
-            break;
         case DEC_R8: {
-            int vf = Alu.sub(getReg(extractReg(opcode, 3)), 1);
-            setRegFromAlu(extractReg(opcode, 3), vf);
-            combineAluFlags(vf, FlagSrc.ALU, FlagSrc.ALU, FlagSrc.ALU, FlagSrc.CPU);
-        }
-            break;
-        case DEC_HLR: {
-            int vf = Alu.sub(read8AtHl(), 1);
-            write8AtHl(Alu.unpackValue(vf));
-            combineAluFlags(vf, FlagSrc.ALU, FlagSrc.ALU, FlagSrc.ALU, FlagSrc.CPU);
-        }
-            break;
+            Reg r = extractReg(opcode, 3);
+            return () -> {
+                int vf = Alu.sub(getReg(r), 1);
+                setRegFromAlu(r, vf);
+                combineAluFlags(vf, FlagSrc.ALU, FlagSrc.ALU, FlagSrc.ALU, FlagSrc.CPU);
+            };
+        }
+        case DEC_HLR:
+            return () -> {
+                int vf = Alu.sub(read8AtHl(), 1);
+                write8AtHl(Alu.unpackValue(vf));
+                combineAluFlags(vf, FlagSrc.ALU, FlagSrc.ALU, FlagSrc.ALU, FlagSrc.CPU);
+            };
         case CP_A_R8: {
-            setFlags(Alu.sub(getReg(Reg.A), getReg(extractReg(opcode, 0))));
+            Reg r = extractReg(opcode, 0);
+            return () -> setFlags(Alu.sub(getReg(Reg.A), getReg(r)));
         }
-            break;
-        case CP_A_N8: {
-            setFlags(Alu.sub(getReg(Reg.A), read8AfterOpcode()));
-        }
-            break;
-        case CP_A_HLR: {
-            setFlags(Alu.sub(getReg(Reg.A), read8AtHl()));
-
-        }
-            break;
+        case CP_A_N8:
+            return () -> setFlags(Alu.sub(getReg(Reg.A), read8AfterOpcode()));
+        case CP_A_HLR:
+            return () -> setFlags(Alu.sub(getReg(Reg.A), read8AtHl()));
         case DEC_R16SP: {
-            setReg16SP(extractReg16(opcode), Bits.clip(16, reg16SP(extractReg16(opcode)) - 1));
+            Reg16 r = extractReg16(opcode);
+            return () -> setReg16SP(r, Bits.clip(16, reg16SP(r) - 1));
         }
-            break;
 
         // And, or, xor, complement
-        case AND_A_N8: {
-            setRegFlags(Reg.A, Alu.and(getReg(Reg.A), read8AfterOpcode()));
-        }
-            break;
+        case AND_A_N8:
+            return () -> setRegFlags(Reg.A, Alu.and(getReg(Reg.A), read8AfterOpcode()));
         case AND_A_R8: {
-            setRegFlags(Reg.A, Alu.and(getReg(Reg.A), getReg(extractReg(opcode, 0))));
-        }
-            break;
-        case AND_A_HLR: {
-            setRegFlags(Reg.A, Alu.and(getReg(Reg.A), read8AtHl()));
+            Reg r = extractReg(opcode, 0);
+            return () -> setRegFlags(Reg.A, Alu.and(getReg(Reg.A), getReg(r)));
         }
-            break;
+        case AND_A_HLR:
+            return () -> setRegFlags(Reg.A, Alu.and(getReg(Reg.A), read8AtHl()));
         case OR_A_R8: {
-            setRegFlags(Reg.A, Alu.or(getReg(Reg.A), getReg(extractReg(opcode, 0))));
+            Reg r = extractReg(opcode, 0);
+            return () -> setRegFlags(Reg.A, Alu.or(getReg(Reg.A), getReg(r)));
         }
-            break;
-        case OR_A_N8: {
-            setRegFlags(Reg.A, Alu.or(getReg(Reg.A), read8AfterOpcode()));
-        }
-            break;
-        case OR_A_HLR: {
-            setRegFlags(Reg.A, Alu.or(getReg(Reg.A), read8AtHl()));
-        }
-            break;
+        case OR_A_N8:
+            return () -> setRegFlags(Reg.A, Alu.or(getReg(Reg.A), read8AfterOpcode()));
+        case OR_A_HLR:
+            return () -> setRegFlags(Reg.A, Alu.or(getReg(Reg.A), read8AtHl()));
         case XOR_A_R8: {
-            setRegFlags(Reg.A, Alu.xor(getReg(Reg.A), getReg(extractReg(opcode, 0))));
-        }
-            break;
-        case XOR_A_N8: {
-            setRegFlags(Reg.A, Alu.xor(getReg(Reg.A), read8AfterOpcode()));
-        }
-            break;
-        case XOR_A_HLR: {
-            setRegFlags(Reg.A, Alu.xor(getReg(Reg.A), read8AtHl()));
-        }
-            break;
-        case CPL: {
-            registerFile.set(Reg.A, Bits.complement8(getReg(Reg.A)));
-            combineAluFlags(0, FlagSrc.CPU, FlagSrc.V1, FlagSrc.V1, FlagSrc.CPU);
-        }
-            break;
+            Reg r = extractReg(opcode, 0);
+            return () -> setRegFlags(Reg.A, Alu.xor(getReg(Reg.A), getReg(r)));
+        }
+        case XOR_A_N8:
+            return () -> setRegFlags(Reg.A, Alu.xor(getReg(Reg.A), read8AfterOpcode()));
+        case XOR_A_HLR:
+            return () -> setRegFlags(Reg.A, Alu.xor(getReg(Reg.A), read8AtHl()));
+        case CPL:
+            return () -> {
+                registerFile.set(Reg.A, Bits.complement8(getReg(Reg.A)));
+                combineAluFlags(0, FlagSrc.CPU, FlagSrc.V1, FlagSrc.V1, FlagSrc.CPU);
+            };
 
         // Rotate, shift
         case ROTCA: {
-            int vf = Alu.rotate(getDirFromOpcode(opcode), getReg(Reg.A));
-            combineAluFlags(vf, FlagSrc.V0, FlagSrc.V0, FlagSrc.V0, FlagSrc.ALU);
-            setRegFromAlu(Reg.A, vf);
+            RotDir dir = getDirFromOpcode(opcode);
+            return () -> {
+                int vf = Alu.rotate(dir, getReg(Reg.A));
+                combineAluFlags(vf, FlagSrc.V0, FlagSrc.V0, FlagSrc.V0, FlagSrc.ALU);
+                setRegFromAlu(Reg.A, vf);
+            };
         }
-            break;
         case ROTA: {
-            int vf = Alu.rotate(getDirFromOpcode(opcode), getReg(Reg.A), testFlag(Flag.C));
-            combineAluFlags(vf, FlagSrc.V0, FlagSrc.V0, FlagSrc.V0, FlagSrc.ALU);
-            setRegFromAlu(Reg.A, vf);
+            RotDir dir = getDirFromOpcode(opcode);
+            return () -> {
+                int vf = Alu.rotate(dir, getReg(Reg.A), testFlag(Flag.C));
+                combineAluFlags(vf, FlagSrc.V0, FlagSrc.V0, FlagSrc.V0, FlagSrc.ALU);
+                setRegFromAlu(Reg.A, vf);
+            };
         }
-            break;
         case ROTC_R8: {
-            setRegFlags(extractReg(opcode, 0), Alu.rotate(getDirFromOpcode(opcode), getReg(extractReg(opcode, 0))));
+            Reg r = extractReg(opcode, 0);
+            RotDir dir = getDirFromOpcode(opcode);
+            return () -> setRegFlags(r, Alu.rotate(dir, getReg(r)));
         }
-            break;
         case ROT_R8: {
-            setRegFlags(extractReg(opcode, 0),
-                    Alu.rotate(getDirFromOpcode(opcode), getReg(extractReg(opcode, 0)), testFlag(Flag.C)));
+            Reg r = extractReg(opcode, 0);
+            RotDir dir = getDirFromOpcode(opcode);
+            return () -> setRegFlags(r, Alu.rotate(dir, getReg(r), testFlag(Flag.C)));
         }
-            break;
         case ROTC_HLR: {
-            write8AtHlAndSetFlags(Alu.rotate(getDirFromOpcode(opcode), read8AtHl()));
+            RotDir dir = getDirFromOpcode(opcode);
+            return () -> write8AtHlAndSetFlags(Alu.rotate(dir, read8AtHl()));
         }
-            break;
         case ROT_HLR: {
-            write8AtHlAndSetFlags(Alu.rotate(getDirFromOpcode(opcode), read8AtHl(), testFlag(Flag.C)));
+            RotDir dir = getDirFromOpcode(opcode);
+            return () -> write8AtHlAndSetFlags(Alu.rotate(dir, read8AtHl(), testFlag(Flag.C)));
         }
-            break;
         case SWAP_R8: {
-            setRegFlags(extractReg(opcode, 0), Alu.swap(getReg(extractReg(opcode, 0))));
-        }
-            break;
-        case SWAP_HLR: {
-            write8AtHlAndSetFlags(Alu.swap(read8AtHl()));
+            Reg r = extractReg(opcode, 0);
+            return () -> setRegFlags(r, Alu.swap(getReg(r)));
         }
-            break;
+        case SWAP_HLR:
+            return () -> write8AtHlAndSetFlags(Alu.swap(read8AtHl()));
         case SLA_R8: {
-            setRegFlags(extractReg(opcode, 0), Alu.shiftLeft(getReg(extractReg(opcode, 0))));
+            Reg r = extractReg(opcode, 0);
+            return () -> setRegFlags(r, Alu.shiftLeft(getReg(r)));
         }
-            break;
         case SRA_R8: {
-            setRegFlags(extractReg(opcode, 0), Alu.shiftRightA(getReg(extractReg(opcode, 0))));
+            Reg r = extractReg(opcode, 0);
+            return () -> setRegFlags(r, Alu.shiftRightA(getReg(r)));
         }
-            break;
         case SRL_R8: {
-            setRegFlags(extractReg(opcode, 0), Alu.shiftRightL(getReg(extractReg(opcode, 0))));
-        }
-            break;
-        case SLA_HLR: {
-            write8AtHlAndSetFlags(Alu.shiftLeft(read8AtHl()));
-        }
-            break;
-        case SRA_HLR: {
-            write8AtHlAndSetFlags(Alu.shiftRightA(read8AtHl()));
-        }
-            break;
-        case SRL_HLR: {
-            write8AtHlAndSetFlags(Alu.shiftRightL(read8AtHl()));
+            Reg r = extractReg(opcode, 0);
+            return () -> setRegFlags(r, Alu.shiftRightL(getReg(r)));
         }
-            break;
+        case SLA_HLR:
+            return () -> write8AtHlAndSetFlags(Alu.shiftLeft(read8AtHl()));
+        case SRA_HLR:
+            return () -> write8AtHlAndSetFlags(Alu.shiftRightA(read8AtHl()));
+        case SRL_HLR:
+            return () -> write8AtHlAndSetFlags(Alu.shiftRightL(read8AtHl()));
 
         // Bit test and set
         case BIT_U3_R8: {
-            combineAluFlags(Alu.testBit(getReg(extractReg(opcode, 0)), getIndexFromOpcode(opcode)), FlagSrc.ALU,
-                    FlagSrc.V0, FlagSrc.V1, FlagSrc.CPU);
+            Reg r = extractReg(opcode, 0);
+            int index = getIndexFromOpcode(opcode);
+            return () -> combineAluFlags(Alu.testBit(getReg(r), index), FlagSrc.ALU, FlagSrc.V0, FlagSrc.V1,
+                    FlagSrc.CPU);
         }
-            break;
         case BIT_U3_HLR: {
-            combineAluFlags(Alu.testBit(read8AtHl(), getIndexFromOpcode(opcode)), FlagSrc.ALU, FlagSrc.V0, FlagSrc.V1,
+            int index = getIndexFromOpcode(opcode);
+            return () -> combineAluFlags(Alu.testBit(read8AtHl(), index), FlagSrc.ALU, FlagSrc.V0, FlagSrc.V1,
                     FlagSrc.CPU);
         }
-            break;
         case CHG_U3_R8: {
-            registerFile.set(extractReg(opcode, 0),
-                    Bits.set(getReg(extractReg(opcode, 0)), getIndexFromOpcode(opcode), getValueFromOpcode(opcode)));
+            Reg r = extractReg(opcode, 0);
+            int index = getIndexFromOpcode(opcode);
+            boolean value = getValueFromOpcode(opcode);
+            return () -> registerFile.set(r, Bits.set(getReg(r), index, value));
         }
-            break;
         case CHG_U3_HLR: {
-            write8AtHl(Bits.set(read8AtHl(), getIndexFromOpcode(opcode), getValueFromOpcode(opcode)));
+            int index = getIndexFromOpcode(opcode);
+            boolean value = getValueFromOpcode(opcode);
+            return () -> write8AtHl(Bits.set(read8AtHl(), index, value));
         }
-            break;
 
         // Misc. ALU
-        case DAA: {
-            int value = Alu.bcdAdjust(getReg(Reg.A), testFlag(Flag.N), testFlag(Flag.H), testFlag(Flag.C));
-            setRegFlags(Reg.A, value);
-            combineAluFlags(value, FlagSrc.ALU, FlagSrc.CPU, FlagSrc.V0, FlagSrc.ALU);
-        }
-            break;
+        case DAA:
+            return () -> {
+                int value = Alu.bcdAdjust(getReg(Reg.A), testFlag(Flag.N), testFlag(Flag.H), testFlag(Flag.C));
+                setRegFlags(Reg.A, value);
+                combineAluFlags(value, FlagSrc.ALU, FlagSrc.CPU, FlagSrc.V0, FlagSrc.ALU);
+            };
         case SCCF: {
-            registerFile.setBit(Reg.F, Flag.C, flagCForAddingInstructions(opcode));
-            combineAluFlags(0, FlagSrc.CPU, FlagSrc.V0, FlagSrc.V0, FlagSrc.CPU);
+            boolean complement = extractCarryUse(opcode);
+            return () -> {
+                registerFile.setBit(Reg.F, Flag.C, !initialCarry(complement));
+                combineAluFlags(0, FlagSrc.CPU, FlagSrc.V0, FlagSrc.V0, FlagSrc.CPU);
+            };
         }
-            break;
 
         // Jumps
-        case JP_HL: {
-            jump(reg16(Reg16.HL));
-        }
-            break;
-        case JP_N16: {
-            jump(read16AfterOpcode());
-        }
-            break;
+        case JP_HL:
+            return () -> jump(reg16(Reg16.HL));
+        case JP_N16:
+            return () -> jump(read16AfterOpcode());
         case JP_CC_N16: {
-            if (checkCondition(opcode)) {
-                jump(read16AfterOpcode());
-                nextNonIdleCycle += opcode.additionalCycles;
-            }
-        }
-            break;
-        case JR_E8: {
-            nextPC = add16E8(nextPC);
-        }
-            break;
+            Flag flag = extractConditionFlag(opcode);
+            boolean expected = extractConditionValue(opcode);
+            int additionalCycles = opcode.additionalCycles;
+            return () -> {
+                if (testFlag(flag) == expected) {
+                    jump(read16AfterOpcode());
+                    nextNonIdleCycle += additionalCycles;
+                }
+            };
+        }
+        case JR_E8:
+            return () -> nextPC = add16E8(nextPC);
         case JR_CC_E8: {
-            if (checkCondition(opcode)) {
-                nextPC = add16E8(nextPC);
-                nextNonIdleCycle += opcode.additionalCycles;
-            }
+            Flag flag = extractConditionFlag(opcode);
+            boolean expected = extractConditionValue(opcode);
+            int additionalCycles = opcode.additionalCycles;
+            return () -> {
+                if (testFlag(flag) == expected) {
+                    nextPC = add16E8(nextPC);
+                    nextNonIdleCycle += additionalCycles;
+                }
+            };
         }
-            break;
 
         // Calls and returns
-        case CALL_N16: {
-            push16(nextPC);
-            nextPC = read16AfterOpcode();
-        }
-            break;
-        case CALL_CC_N16: {
-            if (checkCondition(opcode)) {
+        case CALL_N16:
+            return () -> {
                 push16(nextPC);
                 nextPC = read16AfterOpcode();
-                nextNonIdleCycle += opcode.additionalCycles;
-            }
+            };
+        case CALL_CC_N16: {
+            Flag flag = extractConditionFlag(opcode);
+            boolean expected = extractConditionValue(opcode);
+            int additionalCycles = opcode.additionalCycles;
+            return () -> {
+                if (testFlag(flag) == expected) {
+                    push16(nextPC);
+                    nextPC = read16AfterOpcode();
+                    nextNonIdleCycle += additionalCycles;
+                }
+            };
         }
-            break;
         case RST_U3: {
-            push16(nextPC);
-            nextPC = AddressMap.RESETS[getIndexFromOpcode(opcode)];
-        }
-            break;
-        case RET: {
-            nextPC = pop16();
+            int target = AddressMap.RESETS[getIndexFromOpcode(opcode)];
+            return () -> {
+                push16(nextPC);
+                nextPC = target;
+            };
         }
-            break;
+        case RET:
+            return () -> nextPC = pop16();
         case RET_CC: {
-            if (checkCondition(opcode)) {
-                nextPC = pop16();
-                nextNonIdleCycle += opcode.additionalCycles;
-            }
+            Flag flag = extractConditionFlag(opcode);
+            boolean expected = extractConditionValue(opcode);
+            int additionalCycles = opcode.additionalCycles;
+            return () -> {
+                if (testFlag(flag) == expected) {
+                    nextPC = pop16();
+                    nextNonIdleCycle += additionalCycles;
+                }
+            };
         }
-            break;
 
         // Interrupts
         case EDI: {
-            IME = Bits.test(opcode.encoding, 3);
-        }
-            break;
-        case RETI: {
-            IME = true;
-            nextPC = pop16();
+            boolean enable = Bits.test(opcode.encoding, 3);
+            return () -> IME = enable;
         }
-            break;
+        case RETI:
+            return () -> {
+                IME = true;
+                nextPC = pop16();
+            };
 
         // Misc control
-        case HALT: {
-            nextNonIdleCycle = Long.MAX_VALUE;
-        }
-            break;
+        case HALT:
+            return () -> nextNonIdleCycle = Long.MAX_VALUE;
         case STOP:
-            throw new Error("STOP is not implemented");
+            return () -> {
+                throw new Error("STOP is not implemented");
+            };
 
         default:
             throw new NullPointerException("Opcode's family not considered in switch");
         }
-        PC = Bits.clip(16, nextPC);
     }
 
     /**
@@ -646,7 +853,7 @@ public final class Cpu implements Component, Clocked {
      * @return l'octet directement après l'opcode (paramètre de l'instruction représenté par l'opcode)
      */
     private int read8AfterOpcode() {
-        return read8(PC + 1);
+        return useCachedOperands ? Bits.clip(8, cachedOperands) : read8(PC + 1);
     }
 
     /**
@@ -667,7 +874,7 @@ public final class Cpu implements Component, Clocked {
      * @return la valeur 16 bits directement après l'opcode (paramètre de l'instruction représenté par l'opcode)
      */
     private int read16AfterOpcode() {
-        return read16(PC + 1);
+        return useCachedOperands ? cachedOperands : read16(PC + 1);
     }
 
     /**
@@ -680,6 +887,9 @@ public final class Cpu implements Component, Clocked {
      */
     private void write8(int address, int v) {
         bus.write(address, v);
+        if (codeCache != null) {
+            invalidateCodeCache(address);
+        }
     }
 
     /**
@@ -809,7 +1019,7 @@ public final class Cpu implements Component, Clocked {
      *            l'indice (commençant à 0) à partir duquel les 3 bits correspondant au registre commencent
      * @return le registre extrait de l'opcode
      */
-    private Reg extractReg(Opcode opcode, int startBit) {
+    private static Reg extractReg(Opcode opcode, int startBit) {
         switch (Bits.extract(opcode.encoding, startBit, 3)) {
         case 0b000:
             return Reg.B;
@@ -839,7 +1049,7 @@ public final class Cpu implements Component, Clocked {
      *            l'opcode d'où extraire la paire de registre
      * @return la paire de registre extraite
      */
-    private Reg16 extractReg16(Opcode opcode) {
+    private static Reg16 extractReg16(Opcode opcode) {
         switch (Bits.extract(opcode.encoding, 4, 2)) {
         case 0b00:
             return Reg16.BC;
@@ -862,7 +1072,7 @@ public final class Cpu implements Component, Clocked {
      *            l'opcode où on regarde le bit d'indice 4
      * @return -1 si le bit 4 vaut 1 et 1 si le bit 4 vaut 0;
      */
-    private int extractHlIncrement(Opcode opcode) {
+    private static int extractHlIncrement(Opcode opcode) {
         return Bits.test(opcode.encoding, 4) ? -1 : 1;
     }
 
@@ -963,7 +1173,7 @@ public final class Cpu implements Component, Clocked {
      *            l'opcode où extraire la rotation
      * @return la direction de rotation
      */
-    private RotDir getDirFromOpcode(Opcode opcode) {
+    private static RotDir getDirFromOpcode(Opcode opcode) {
         return Bits.test(opcode.encoding, 3) ? RotDir.RIGHT : RotDir.LEFT;
     }
 
@@ -974,7 +1184,7 @@ public final class Cpu implements Component, Clocked {
      *            l'opcode d'où extraire l'index
      * @return l'index du bit à tester ou modifier
      */
-    private int getIndexFromOpcode(Opcode opcode) {
+    private static int getIndexFromOpcode(Opcode opcode) {
         return Bits.extract(opcode.encoding, 3, 3);
     }
 
@@ -985,24 +1195,32 @@ public final class Cpu implements Component, Clocked {
      *            l'opcode d'où extraire la valeur
      * @return true si le bit vaut 1
      */
-    private boolean getValueFromOpcode(Opcode opcode) {
+    private static boolean getValueFromOpcode(Opcode opcode) {
         return Bits.test(opcode.encoding, 6);
     }
 
     /**
-     * Combine la valeur du fanion C et de la valeur de l'Opcode pour obtenir la valeur à retourner dans les
-     * instructions du CPU, selon l'instruction utilisée le calcul change
+     * Détermine, à partir du bit d'index 3 de l'opcode, si l'instruction tient compte du fanion C : retenue pour ADC,
+     * emprunt pour SBC, complément pour CCF.
      * 
      * @param opcode
      *            l'opcode
-     * @return true si le nouveau fanion vaut 1
+     * @return true si l'instruction tient compte du fanion C
      */
-    private boolean flagCForAddingInstructions(Opcode opcode) {
-        if (Bits.test(opcode.encoding, 7)) {
-            return Bits.test(opcode.encoding, 3) && testFlag(Flag.C);
-        } else {
-            return !(Bits.test(opcode.encoding, 3) && testFlag(Flag.C));
-        }
+    private static boolean extractCarryUse(Opcode opcode) {
+        return Bits.test(opcode.encoding, 3);
+    }
+
+    /**
+     * Retourne la retenue (ou l'emprunt) initiale d'une instruction, qui vaut le fanion C si l'instruction en tient
+     * compte et faux sinon.
+     * 
+     * @param withCarry
+     *            vrai si l'instruction tient compte du fanion C
+     * @return true si la retenue initiale vaut 1
+     */
+    private boolean initialCarry(boolean withCarry) {
+        return withCarry && testFlag(Flag.C);
     }
 
     /**
@@ -1052,26 +1270,26 @@ public final class Cpu implements Component, Clocked {
     }
 
     /**
-     * Extrait la condition de l'opcode passé en paramètre, la teste, et retourne le résultat.
+     * Extrait de la condition de l'opcode passé en paramètre (bits 3 et 4) le fanion qu'elle teste.
      * 
      * @param opcode
-     *            l'opcode dans lequel se trouve l'instruction
-     * @return le résultat, un booléen valant vrai si l'instruction est vraie
+     *            l'opcode dans lequel se trouve la condition
+     * @return le fanion Z pour les conditions NZ et Z, le fanion C pour les conditions NC et C
      */
-    private boolean checkCondition(Opcode opcode) {
-        int condition = Bits.extract(opcode.encoding, 3, 2);
-        switch (condition) {
-        case 0b00:
-            return !testFlag(Flag.Z);
-        case 0b01:
-            return testFlag(Flag.Z);
-        case 0b10:
-            return !testFlag(Flag.C);
-        case 0b11:
-            return testFlag(Flag.C);
-        default:
-            throw new IllegalArgumentException("Condition inconnue : opcode erroné");
-        }
+    private static Flag extractConditionFlag(Opcode opcode) {
+        return Bits.test(opcode.encoding, 4) ? Flag.C : Flag.Z;
+    }
+
+    /**
+     * Extrait de la condition de l'opcode passé en paramètre (bits 3 et 4) la valeur que doit avoir le fanion testé
+     * pour que la condition soit vraie.
+     * 
+     * @param opcode
+     *            l'opcode dans lequel se trouve la condition
+     * @return vrai pour les conditions Z et C, faux pour les conditions NZ et NC
+     */
+    private static boolean extractConditionValue(Opcode opcode) {
+        return Bits.test(opcode.encoding, 3);
     }
 
     /**
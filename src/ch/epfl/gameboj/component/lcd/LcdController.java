@@ -7,7 +7,9 @@
 
 package ch.epfl.gameboj.component.lcd;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Objects;
 
 import ch.epfl.gameboj.AddressMap;
 import ch.epfl.gameboj.Bus;
@@ -19,13 +21,18 @@ import ch.epfl.gameboj.bits.BitVector;
 import ch.epfl.gameboj.bits.Bits;
 import ch.epfl.gameboj.component.Clocked;
 import ch.epfl.gameboj.component.Component;
+import ch.epfl.gameboj.component.Stateful;
 import ch.epfl.gameboj.component.cpu.Cpu;
 import ch.epfl.gameboj.component.cpu.Cpu.Interrupt;
 import ch.epfl.gameboj.component.memory.Ram;
 
-public final class LcdController implements Component, Clocked {
+public final class LcdController implements Component, Clocked, Stateful {
     public static final int LCD_WIDTH = 160;
     public static final int LCD_HEIGHT = 144;
+    /**
+     * Nombre de cycles nécessaires au contrôleur pour afficher une image complète, lignes de VBLANK comprises
+     */
+    public static final long CYCLES_PER_FRAME = 17556;
 
     private static final int[] MODE_CYCLES = { 51, 114, 20, 43 };
     private static final int TILE_SIZE = 8;
@@ -36,6 +43,14 @@ public final class LcdController implements Component, Clocked {
     private static final int SPRITE_SIZE = 8;
     private static final int BIG_SPRITE_SIZE = 16;
     private static final int SPRITE_OAM_SIZE = 4;
+    private static final int MAX_SPRITES_PER_LINE = 10;
+    private static final byte TRANSPARENT = -1;
+
+    private static final int TILES_IN_MEMORY = 384;
+    private static final int TILE_BYTES = 2 * TILE_SIZE;
+
+    private static final int STATE_SIZE = Reg.values().length + AddressMap.VIDEO_RAM_SIZE + AddressMap.OAM_RAM_SIZE
+            + 8 + 1 + 4 * 4 + 2 + 2 * LCD_WIDTH * LCD_HEIGHT;
 
     private long nextNonIdleCycle;
     private final Cpu cpu;
@@ -49,6 +64,25 @@ public final class LcdController implements Component, Clocked {
     private int winY;
     private int copySource;
     private int copyDestination;
+    private Renderer renderer;
+    private Renderer frameRenderer;
+    private int renderInterval;
+    private int framesSinceRender;
+    private boolean frameSkipped;
+    private FrameListener frameListener;
+
+    // Tampons réutilisés par le rendu direct
+    private final byte[] frameBuffer;
+    private final byte[] bgSpritesPixels;
+    private final byte[] fgSpritesPixels;
+    private final int[] lineSprites;
+
+    // Cache des tuiles décodées, invalidé tuile par tuile par les écritures dans la mémoire vidéo
+    private final boolean[] decodedTiles;
+    private final int[] tileLinesBytes;
+    private final byte[] tilePixels;
+    private long tileCacheHits;
+    private long tileCacheMisses;
 
     private enum Reg implements Register {
         LCDC, STAT, SCY, SCX, LY, LYC, DMA, BGP, OBP0, OBP1, WY, WX
@@ -70,6 +104,30 @@ public final class LcdController implements Component, Clocked {
         H_BLANK, V_BLANK, MODE_2, MODE_3
     }
 
+    /**
+     * Enumération des différentes mises en oeuvre du calcul des lignes de l'image : au moyen de vecteurs de bits
+     * (BIT_VECTOR), ou directement pixel par pixel dans un tampon réutilisé d'une image à l'autre, sans allocation
+     * (DIRECT). Les deux produisent des images identiques.
+     */
+    public enum Renderer {
+        BIT_VECTOR, DIRECT
+    }
+
+    /**
+     * Représente un observateur des images calculées par le contrôleur.
+     */
+    @FunctionalInterface
+    public interface FrameListener {
+        /**
+         * Appelée au début de chaque VBLANK dont l'image a été calculée, avec cette image. L'image étant immuable,
+         * elle peut être conservée ou transmise à un autre fil d'exécution sans être copiée.
+         * 
+         * @param image
+         *            l'image qui vient d'être calculée
+         */
+        void frameCompleted(LcdImage image);
+    }
+
     /**
      * Construit un contrôleur LCD
      * 
@@ -82,7 +140,180 @@ public final class LcdController implements Component, Clocked {
         OAM = new Ram(AddressMap.OAM_RAM_SIZE);
         currentImage = null;
         registerFile = new RegisterFile<>(Reg.values());
+        nextImageBuilder = new LcdImage.Builder(LCD_HEIGHT, LCD_WIDTH);
         copyDestination = 160;
+        renderer = Renderer.BIT_VECTOR;
+        frameRenderer = renderer;
+        renderInterval = 1;
+        frameBuffer = new byte[LCD_WIDTH * LCD_HEIGHT];
+        bgSpritesPixels = new byte[LCD_WIDTH];
+        fgSpritesPixels = new byte[LCD_WIDTH];
+        lineSprites = new int[MAX_SPRITES_PER_LINE];
+        decodedTiles = new boolean[TILES_IN_MEMORY];
+        tileLinesBytes = new int[TILES_IN_MEMORY * TILE_SIZE];
+        tilePixels = new byte[TILES_IN_MEMORY * TILE_SIZE * TILE_SIZE];
+    }
+
+    /**
+     * Choisit la mise en oeuvre utilisée pour calculer les lignes de l'image, à partir de la prochaine image.
+     * 
+     * @param renderer
+     *            la mise en oeuvre à utiliser
+     * @throws NullPointerException
+     *             si la mise en oeuvre est nulle
+     */
+    public void setRenderer(Renderer renderer) {
+        this.renderer = Objects.requireNonNull(renderer);
+    }
+
+    /**
+     * Choisit l'intervalle entre les images calculées, à partir de la prochaine image : seule une image sur interval
+     * est calculée. Les lignes des autres images ne sont pas calculées du tout, et l'image affichée reste la dernière
+     * image calculée, mais la simulation n'en est pas affectée pour autant.
+     * 
+     * @param interval
+     *            le nombre d'images séparant deux images calculées, 1 pour les calculer toutes
+     * @throws IllegalArgumentException
+     *             si l'intervalle n'est pas strictement positif
+     */
+    public void setRenderInterval(int interval) {
+        Preconditions.checkArgument(interval > 0);
+        renderInterval = interval;
+    }
+
+    /**
+     * Retourne l'intervalle entre les images calculées, 1 si elles le sont toutes.
+     * 
+     * @return l'intervalle entre les images calculées
+     */
+    public int renderInterval() {
+        return renderInterval;
+    }
+
+    /**
+     * Choisit l'observateur auquel transmettre chaque image calculée. Les images non calculées à cause de l'intervalle
+     * choisi par setRenderInterval ne lui sont pas transmises.
+     * 
+     * @param listener
+     *            l'observateur, ou null pour n'en avoir aucun
+     */
+    public void setFrameListener(FrameListener listener) {
+        frameListener = listener;
+    }
+
+    /**
+     * Retourne l'observateur auquel est transmise chaque image calculée.
+     * 
+     * @return l'observateur, ou null s'il n'y en a aucun
+     */
+    public FrameListener frameListener() {
+        return frameListener;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#stateSize()
+     */
+    @Override
+    public int stateSize() {
+        return STATE_SIZE;
+    }
+
+    /**
+     * Écrit l'état du contrôleur dans le tampon donné : ses registres, la mémoire vidéo, la mémoire d'attributs
+     * d'objets, l'état du mode courant et de la copie DMA, le nombre d'images sautées depuis la dernière image
+     * calculée, l'image en cours de calcul et l'image affichée. La mise en oeuvre du calcul des images choisie par
+     * setRenderer, l'intervalle choisi par setRenderInterval et l'observateur choisi par setFrameListener n'en font
+     * pas partie.
+     *
+     * @see ch.epfl.gameboj.component.Stateful#saveState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        for (Reg r : Reg.values()) {
+            buffer.put((byte) getReg(r));
+        }
+        videoRAM.saveState(buffer);
+        OAM.saveState(buffer);
+        buffer.putLong(nextNonIdleCycle);
+        buffer.put((byte) (nextMode == null ? -1 : nextMode.ordinal()));
+        buffer.putInt(winY);
+        buffer.putInt(copySource);
+        buffer.putInt(copyDestination);
+        buffer.putInt(framesSinceRender);
+        buffer.put((byte) frameRenderer.ordinal());
+        buffer.put((byte) (frameSkipped ? 1 : 0));
+        if (frameRenderer == Renderer.DIRECT) {
+            buffer.put(frameBuffer);
+        } else {
+            nextImageBuilder.writePixelsTo(buffer);
+        }
+        currentImage().writePixelsTo(buffer);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#loadState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        for (Reg r : Reg.values()) {
+            registerFile.set(r, Byte.toUnsignedInt(buffer.get()));
+        }
+        // Seules les tuiles dont le contenu change sont invalidées, afin que les restaurations répétées (retour en
+        // arrière, simulation en avance) ne vident pas le cache des tuiles
+        for (int index = 0; index < videoRAM.size(); index++) {
+            int data = Byte.toUnsignedInt(buffer.get());
+            if (videoRAM.read(index) != data) {
+                videoRAM.write(index, data);
+                if (index < TILES_IN_MEMORY * TILE_BYTES) {
+                    decodedTiles[index / TILE_BYTES] = false;
+                }
+            }
+        }
+        OAM.loadState(buffer);
+        nextNonIdleCycle = buffer.getLong();
+        int mode = buffer.get();
+        Preconditions.checkArgument(mode < LcdModes.values().length);
+        nextMode = mode < 0 ? null : LcdModes.values()[mode];
+        winY = buffer.getInt();
+        copySource = buffer.getInt();
+        copyDestination = buffer.getInt();
+        framesSinceRender = buffer.getInt();
+        int renderer = buffer.get();
+        Preconditions.checkArgument(renderer >= 0 && renderer < Renderer.values().length);
+        frameRenderer = Renderer.values()[renderer];
+        frameSkipped = buffer.get() != 0;
+        if (frameRenderer == Renderer.DIRECT) {
+            buffer.get(frameBuffer);
+        } else {
+            nextImageBuilder = new LcdImage.Builder(LCD_HEIGHT, LCD_WIDTH);
+            nextImageBuilder.readPixelsFrom(buffer);
+        }
+        byte[] pixels = new byte[LCD_WIDTH * LCD_HEIGHT];
+        buffer.get(pixels);
+        currentImage = new LcdImage(LCD_HEIGHT, LCD_WIDTH, pixels);
+    }
+
+    /**
+     * Retourne le nombre de lignes de tuiles lues dans le cache des tuiles décodées sans avoir eu à les décoder.
+     * 
+     * @return le nombre de succès du cache des tuiles
+     */
+    public long tileCacheHits() {
+        return tileCacheHits;
+    }
+
+    /**
+     * Retourne le nombre de lignes de tuiles dont la tuile a dû être (re)décodée depuis la mémoire vidéo, car elle
+     * n'avait encore jamais été lue ou avait été modifiée depuis son dernier décodage.
+     * 
+     * @return le nombre d'échecs du cache des tuiles
+     */
+    public long tileCacheMisses() {
+        return tileCacheMisses;
     }
 
     /**
@@ -139,7 +370,11 @@ public final class LcdController implements Component, Clocked {
         Preconditions.checkBits16(address);
         Preconditions.checkBits8(data);
         if (address >= AddressMap.VIDEO_RAM_START && address < AddressMap.VIDEO_RAM_END) {
-            videoRAM.write(address - AddressMap.VIDEO_RAM_START, data);
+            int index = address - AddressMap.VIDEO_RAM_START;
+            videoRAM.write(index, data);
+            if (index < TILES_IN_MEMORY * TILE_BYTES) {
+                decodedTiles[index / TILE_BYTES] = false;
+            }
             return;
         }
         if (address >= AddressMap.OAM_START && address < AddressMap.OAM_END) {
@@ -173,7 +408,19 @@ public final class LcdController implements Component, Clocked {
 
     /*
      * (non-Javadoc)
-     * 
+     *
+     * @see ch.epfl.gameboj.component.Component#covers(int)
+     */
+    @Override
+    public boolean covers(int address) {
+        return (address >= AddressMap.VIDEO_RAM_START && address < AddressMap.VIDEO_RAM_END)
+                || (address >= AddressMap.OAM_START && address < AddressMap.OAM_END)
+                || (address >= AddressMap.REGS_LCDC_START && address < AddressMap.REGS_LCDC_END);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
      * @see ch.epfl.gameboj.component.Clocked#cycle(long)
      */
     @Override
@@ -194,6 +441,23 @@ public final class LcdController implements Component, Clocked {
         }
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Clocked#nextEventCycle(long)
+     */
+    @Override
+    public long nextEventCycle(long cycle) {
+        if (copyDestination != AddressMap.OAM_RAM_SIZE) {
+            // Une copie DMA est en cours, un octet est copié à chaque cycle
+            return cycle + 1;
+        }
+        if (!testBitReg(Reg.LCDC, LcdcBits.LCD_STATUS)) {
+            return Long.MAX_VALUE;
+        }
+        return nextNonIdleCycle == Long.MAX_VALUE ? cycle + 1 : nextNonIdleCycle;
+    }
+
     private void reallyCycle() {
         incNextNonIdleCycle(nextMode);
         updateStatMode(nextMode);
@@ -208,7 +472,14 @@ public final class LcdController implements Component, Clocked {
             break;
         case V_BLANK:
             if (getLY() == LCD_HEIGHT - 1) {
-                currentImage = nextImageBuilder.build();
+                if (!frameSkipped) {
+                    currentImage = frameRenderer == Renderer.DIRECT
+                            ? new LcdImage(LCD_HEIGHT, LCD_WIDTH, frameBuffer.clone())
+                            : nextImageBuilder.build();
+                    if (frameListener != null) {
+                        frameListener.frameCompleted(currentImage);
+                    }
+                }
                 cpu.requestInterrupt(Interrupt.VBLANK);
             }
             incLY();
@@ -220,14 +491,30 @@ public final class LcdController implements Component, Clocked {
             break;
         case MODE_2:
             if (getLY() == 0) {
-                nextImageBuilder = new LcdImage.Builder(LCD_HEIGHT, LCD_WIDTH);
+                frameRenderer = renderer;
+                framesSinceRender++;
+                frameSkipped = framesSinceRender < renderInterval;
+                if (!frameSkipped) {
+                    framesSinceRender = 0;
+                }
+                if (frameRenderer == Renderer.BIT_VECTOR && !frameSkipped) {
+                    nextImageBuilder = new LcdImage.Builder(LCD_HEIGHT, LCD_WIDTH);
+                }
                 winY = 0;
             }
             nextMode = LcdModes.MODE_3;
             break;
         case MODE_3:
             nextMode = LcdModes.H_BLANK;
-            nextImageBuilder.setLine(getLY(), computeLine(getLY()));
+            if (frameSkipped) {
+                // Les lignes des images qui ne seront pas affichées ne sont pas calculées
+                break;
+            }
+            if (frameRenderer == Renderer.DIRECT) {
+                renderLine(getLY());
+            } else {
+                nextImageBuilder.setLine(getLY(), computeLine(getLY()));
+            }
             break;
         }
     }
@@ -345,18 +632,8 @@ public final class LcdController implements Component, Clocked {
     }
 
     private void addTileToBuilder(int startAddress, int currentLine, int currentTile, LcdImageLine.Builder builder) {
-        int tileIndex = read(startAddress + (currentLine / TILE_SIZE) * BG_TILE_SIZE + currentTile);
-        int tileStartAddress;
-        if (tileIndex >= 0x80) {
-            tileStartAddress = AddressMap.TILE_SOURCE[1];
-        } else {
-            // La case 0 de Tile_source a été modifiée dans l'addresse map pour respecter notre mise en oeuvre, nous
-            // avons cherché à profiter de la zone partagée par les tuiles d'indice supérieur à 0x80
-            tileStartAddress = AddressMap.TILE_SOURCE[testBitReg(Reg.LCDC, LcdcBits.TILE_SOURCE) ? 1 : 0];
-        }
-        int tileLine = currentLine % TILE_SIZE;
-        int[] bytes = computeBytes(tileStartAddress, tileIndex, tileLine);
-        builder.setBytes(currentTile, bytes[0], bytes[1]);
+        int bytes = tileLinesBytes[decodedTileLine(tileLineAddress(startAddress, currentLine, currentTile))];
+        builder.setBytes(currentTile, bytes >>> Byte.SIZE, Bits.clip(Byte.SIZE, bytes));
     }
 
     private int[] computeBytes(int startAddress, int tileIndex, int tileLine) {
@@ -376,7 +653,11 @@ public final class LcdController implements Component, Clocked {
 
     private int[] spritesIntersectingLine(int lineIndex) {
         // Le nombre de sprites affichés sur une ligne ne peut excéder 10
-        int[] spritesArray = new int[10];
+        int[] spritesArray = new int[MAX_SPRITES_PER_LINE];
+        return Arrays.copyOf(spritesArray, spritesIntersectingLine(lineIndex, spritesArray));
+    }
+
+    private int spritesIntersectingLine(int lineIndex, int[] spritesArray) {
         int spritesCount = 0;
         for (int i = 0; i < 39; i++) {
             int adjustedYcoord = OAM.read(i * SPRITE_OAM_SIZE) - BIG_SPRITE_SIZE;
@@ -387,10 +668,215 @@ public final class LcdController implements Component, Clocked {
             }
         }
         Arrays.sort(spritesArray, 0, spritesCount);
-        for (int i = 0; i < spritesArray.length; i++) {
+        for (int i = 0; i < spritesCount; i++) {
             spritesArray[i] = Bits.clip(8, spritesArray[i]);
         }
-        return Arrays.copyOf(spritesArray, spritesCount);
+        return spritesCount;
+    }
+
+    /**
+     * Calcule la ligne d'index donné de l'image directement dans le tampon de l'image en cours, sans allocation. Le
+     * résultat est identique à celui de computeLine, y compris pour la fenêtre, dont la dernière tuile partielle n'est
+     * pas dessinée, et pour les sprites placés derrière le fond, qui ne tiennent compte que de l'opacité du fond.
+     * 
+     * @param lineIndex
+     *            l'index de la ligne à calculer
+     */
+    private void renderLine(int lineIndex) {
+        int adjustedWX = Math.max(0, getReg(Reg.WX) - (SPRITE_SIZE - 1));
+        int adjustedLineIndex = (lineIndex + getReg(Reg.SCY)) % BG_PIXEL_SIZE;
+
+        boolean windowActivated = getReg(Reg.WY) <= lineIndex && testBitReg(Reg.LCDC, LcdcBits.WIN) && adjustedWX >= 0
+                && adjustedWX < LCD_WIDTH;
+        boolean bgActivated = testBitReg(Reg.LCDC, LcdcBits.BG);
+        boolean spritesActivated = testBitReg(Reg.LCDC, LcdcBits.OBJ);
+
+        int bgStartAddress = AddressMap.BG_DISPLAY_DATA[testBitReg(Reg.LCDC, LcdcBits.BG_AREA) ? 1 : 0];
+        int winStartAddress = AddressMap.BG_DISPLAY_DATA[testBitReg(Reg.LCDC, LcdcBits.WIN_AREA) ? 1 : 0];
+        // Seules les tuiles entières de la fenêtre sont dessinées
+        int windowWidth = (LCD_WIDTH - adjustedWX) / TILE_SIZE * TILE_SIZE;
+
+        // Calcul des sprites, le premier sprite dessiné sur un pixel étant prioritaire sur les suivants
+        int spritesCount = spritesActivated ? spritesIntersectingLine(lineIndex, lineSprites) : 0;
+        if (spritesCount > 0) {
+            Arrays.fill(bgSpritesPixels, TRANSPARENT);
+            Arrays.fill(fgSpritesPixels, TRANSPARENT);
+            for (int i = 0; i < spritesCount; i++) {
+                renderSprite(lineSprites[i], lineIndex);
+            }
+        }
+
+        int palette = getReg(Reg.BGP);
+        int scx = getReg(Reg.SCX);
+        int bgPixels = 0, winPixels = 0;
+        int offset = lineIndex * LCD_WIDTH;
+        for (int x = 0; x < LCD_WIDTH; x++) {
+            int bgColor = 0;
+            if (bgActivated) {
+                int column = (x + scx) % BG_PIXEL_SIZE;
+                if (x == 0 || column % TILE_SIZE == 0) {
+                    bgPixels = decodedTileLine(tileLineAddress(bgStartAddress, adjustedLineIndex, column / TILE_SIZE))
+                            * TILE_SIZE;
+                }
+                bgColor = tilePixels[bgPixels + column % TILE_SIZE];
+            }
+
+            int color = bgColor;
+            if (windowActivated && x >= adjustedWX) {
+                int column = x - adjustedWX;
+                color = 0;
+                if (column < windowWidth) {
+                    if (column % TILE_SIZE == 0) {
+                        winPixels = decodedTileLine(tileLineAddress(winStartAddress, winY, column / TILE_SIZE))
+                                * TILE_SIZE;
+                    }
+                    color = tilePixels[winPixels + column % TILE_SIZE];
+                }
+            }
+            color = mapColor(palette, color);
+
+            if (spritesCount > 0) {
+                // Les sprites placés derrière le fond ne sont visibles que là où le fond est transparent
+                if (bgColor == 0 && bgSpritesPixels[x] != TRANSPARENT) {
+                    color = bgSpritesPixels[x];
+                }
+                if (fgSpritesPixels[x] != TRANSPARENT) {
+                    color = fgSpritesPixels[x];
+                }
+            }
+            frameBuffer[offset + x] = (byte) color;
+        }
+        if (windowActivated) {
+            winY++;
+        }
+    }
+
+    /**
+     * Dessine, dans le tampon des sprites correspondant à son plan, la portion sur la ligne donnée du sprite d'index
+     * donné, sur les pixels qu'aucun sprite n'occupe encore.
+     * 
+     * @param sprite
+     *            l'index du sprite dans la mémoire d'attributs d'objets
+     * @param lineIndex
+     *            l'index de la ligne calculée
+     */
+    private void renderSprite(int sprite, int lineIndex) {
+        int oamAddress = sprite * SPRITE_OAM_SIZE;
+        int spriteY = OAM.read(oamAddress) - BIG_SPRITE_SIZE;
+        int spriteX = OAM.read(oamAddress + 1) - SPRITE_SIZE;
+        int tileIndex = OAM.read(oamAddress + 2);
+        int attributes = OAM.read(oamAddress + 3);
+
+        int tileLine = lineIndex - spriteY;
+        if (Bits.test(attributes, SpriteInfo.FLIP_V)) {
+            int spriteSize = testBitReg(Reg.LCDC, LcdcBits.OBJ_SIZE) ? BIG_SPRITE_SIZE : SPRITE_SIZE;
+            tileLine = (spriteSize - 1) - tileLine;
+        }
+        int address = AddressMap.TILE_SOURCE[1] - AddressMap.VIDEO_RAM_START + tileIndex * (TILE_SIZE * 2)
+                + tileLine * 2;
+        int pixelsStart = decodedTileLine(address) * TILE_SIZE;
+        boolean flipH = Bits.test(attributes, SpriteInfo.FLIP_H);
+        int palette = getReg(Bits.test(attributes, SpriteInfo.PALETTE) ? Reg.OBP1 : Reg.OBP0);
+        byte[] pixels = Bits.test(attributes, SpriteInfo.BEHIND_BG) ? bgSpritesPixels : fgSpritesPixels;
+
+        for (int i = 0; i < SPRITE_SIZE; i++) {
+            int x = spriteX + i;
+            if (x < 0 || x >= LCD_WIDTH || pixels[x] != TRANSPARENT) {
+                continue;
+            }
+            int color = tilePixels[pixelsStart + (flipH ? (SPRITE_SIZE - 1) - i : i)];
+            if (color != 0) {
+                pixels[x] = (byte) mapColor(palette, color);
+            }
+        }
+    }
+
+    /**
+     * Retourne l'index, dans la mémoire vidéo, de l'octet de poids faible de la ligne donnée de la tuile située à la
+     * colonne donnée de l'image de fond (ou de la fenêtre) commençant à l'adresse donnée.
+     * 
+     * @param startAddress
+     *            l'adresse de l'image de fond ou de la fenêtre
+     * @param line
+     *            l'index de la ligne dans l'image de fond ou la fenêtre
+     * @param column
+     *            l'index de la colonne de la tuile
+     * @return l'index de l'octet de poids faible de la ligne de la tuile
+     */
+    private int tileLineAddress(int startAddress, int line, int column) {
+        int tileIndex = videoRAM
+                .read(startAddress - AddressMap.VIDEO_RAM_START + (line / TILE_SIZE) * BG_TILE_SIZE + column);
+        int tileStartAddress;
+        if (tileIndex >= 0x80) {
+            tileStartAddress = AddressMap.TILE_SOURCE[1];
+        } else {
+            // La case 0 de Tile_source a été modifiée dans l'addresse map pour respecter notre mise en oeuvre, nous
+            // avons cherché à profiter de la zone partagée par les tuiles d'indice supérieur à 0x80
+            tileStartAddress = AddressMap.TILE_SOURCE[testBitReg(Reg.LCDC, LcdcBits.TILE_SOURCE) ? 1 : 0];
+        }
+        return tileStartAddress - AddressMap.VIDEO_RAM_START + tileIndex * (TILE_SIZE * 2) + (line % TILE_SIZE) * 2;
+    }
+
+    /**
+     * Retourne l'index de la ligne de tuile dont l'octet de poids faible se trouve à l'index donné de la mémoire vidéo,
+     * dans le cache des tuiles décodées, en décodant au préalable la tuile si elle a été modifiée depuis son dernier
+     * décodage. La ligne d'index i du cache a ses octets (inversés, prêts pour un constructeur de ligne) dans
+     * tileLinesBytes[i] et ses 8 couleurs à partir de tilePixels[i * 8].
+     * 
+     * @param address
+     *            l'index, dans la mémoire vidéo, de l'octet de poids faible de la ligne de tuile
+     * @return l'index de la ligne de tuile dans le cache
+     */
+    private int decodedTileLine(int address) {
+        int tile = address / TILE_BYTES;
+        if (decodedTiles[tile]) {
+            tileCacheHits++;
+        } else {
+            tileCacheMisses++;
+            decodeTile(tile);
+        }
+        return address / 2;
+    }
+
+    private void decodeTile(int tile) {
+        for (int line = tile * TILE_SIZE; line < (tile + 1) * TILE_SIZE; line++) {
+            int msb = videoRAM.read(line * 2 + 1);
+            int lsb = videoRAM.read(line * 2);
+            tileLinesBytes[line] = (Bits.reverse8(msb) << Byte.SIZE) | Bits.reverse8(lsb);
+            for (int i = 0; i < TILE_SIZE; i++) {
+                tilePixels[line * TILE_SIZE + i] = (byte) pixelColor(msb, lsb, i);
+            }
+        }
+        decodedTiles[tile] = true;
+    }
+
+    /**
+     * Retourne la couleur du pixel d'index donné (0 étant le pixel de gauche) d'une ligne de tuile.
+     * 
+     * @param msb
+     *            l'octet de poids fort de la ligne de tuile
+     * @param lsb
+     *            l'octet de poids faible de la ligne de tuile
+     * @param index
+     *            l'index du pixel
+     * @return la couleur du pixel, entre 0 et 3
+     */
+    private static int pixelColor(int msb, int lsb, int index) {
+        int bit = (TILE_SIZE - 1) - index;
+        return (((msb >> bit) & 1) << 1) | ((lsb >> bit) & 1);
+    }
+
+    /**
+     * Retourne la couleur associée par la palette donnée à la couleur donnée.
+     * 
+     * @param palette
+     *            la palette, dont le i-ème groupe de 2 bits est la couleur associée à la couleur i
+     * @param color
+     *            la couleur à transformer
+     * @return la couleur transformée
+     */
+    private static int mapColor(int palette, int color) {
+        return (palette >> (2 * color)) & 0b11;
     }
 
     private int getReg(Reg register) {
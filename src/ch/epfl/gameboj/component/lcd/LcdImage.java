@@ -7,17 +7,36 @@
 
 package ch.epfl.gameboj.component.lcd;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 import ch.epfl.gameboj.Preconditions;
 
 public final class LcdImage {
-    private final List<LcdImageLine> lines;
+    private final byte[] pixels;
     private final int height;
     private final int width;
 
+    /**
+     * Représente une action effectuée sur chacun des pixels d'une image.
+     */
+    @FunctionalInterface
+    public interface PixelConsumer {
+        /**
+         * Effectue l'action sur le pixel de coordonnées et de couleur données.
+         * 
+         * @param x
+         *            la coordonnée x du pixel
+         * @param y
+         *            la coordonnée y du pixel
+         * @param color
+         *            la couleur du pixel, entre 0 et 3
+         */
+        void accept(int x, int y, int color);
+    }
+
     /**
      * Construit une nouvelle image à partir d'une liste de ligne d'image, et des dimensions de l'image, ces dimensions
      * doivent correspondre à la liste passer en argument.
@@ -34,14 +53,56 @@ public final class LcdImage {
      *             si les dimensions passées en argument ne correspondent pas à celles de la liste
      */
     public LcdImage(int h, int w, List<LcdImageLine> l) {
-        Preconditions.checkArgument(h > 0 && w > 0);
+        this(h, w, new byte[h * w]);
         Preconditions.checkArgument(l.size() == h);
-        // Tester que tous les éléments de la liste ont une taille égale à la largeur prendrait trop de temps, donc nous
-        // avons arbitrairement choisit de tester au moins le premier élément.
-        Preconditions.checkArgument(l.get(0).size() == w);
+        for (int y = 0; y < h; y++) {
+            setLine(pixels, w, y, l.get(y));
+        }
+    }
+
+    /**
+     * Construit une nouvelle image à partir du tableau des couleurs de ses pixels, ligne par ligne, qui n'est pas
+     * copié et ne doit donc plus être modifié.
+     * 
+     * @param h
+     *            la hauteur de l'image
+     * @param w
+     *            la largeur de l'image
+     * @param pixels
+     *            les couleurs des pixels, entre 0 et 3, le pixel (x, y) étant à l'index y * w + x
+     * @throws IllegalArgumentException
+     *             si les dimensions ne sont pas strictement positives ou ne correspondent pas à la taille du tableau
+     */
+    LcdImage(int h, int w, byte[] pixels) {
+        Preconditions.checkArgument(h > 0 && w > 0);
+        Preconditions.checkArgument(pixels.length == h * w);
         height = h;
         width = w;
-        lines = Collections.unmodifiableList(new ArrayList<LcdImageLine>(l));
+        this.pixels = pixels;
+    }
+
+    /**
+     * Copie les couleurs des pixels de la ligne donnée dans le tableau donné, à partir de l'index donné.
+     * 
+     * @param pixels
+     *            le tableau des couleurs des pixels de l'image
+     * @param w
+     *            la largeur de l'image
+     * @param y
+     *            l'index de la ligne
+     * @param line
+     *            la ligne à copier
+     * @throws IllegalArgumentException
+     *             si la longueur de la ligne n'est pas égale à la largeur de l'image
+     */
+    private static void setLine(byte[] pixels, int w, int y, LcdImageLine line) {
+        Preconditions.checkArgument(line.size() == w);
+        int offset = y * w;
+        for (int x = 0; x < w; x++) {
+            int lsb = line.lsb().testBit(x) ? 1 : 0;
+            int msb = line.msb().testBit(x) ? 1 : 0;
+            pixels[offset + x] = (byte) ((msb << 1) | lsb);
+        }
     }
 
     /**
@@ -74,9 +135,45 @@ public final class LcdImage {
     public int get(int x, int y) {
         Preconditions.checkArgument(x >= 0 && x < width);
         Preconditions.checkArgument(y >= 0 && y < height);
-        int lsb = lines.get(y).lsb().testBit(x) ? 1 : 0;
-        int msb = lines.get(y).msb().testBit(x) ? 1 : 0;
-        return (msb << 1) | lsb;
+        return pixels[y * width + x];
+    }
+
+    /**
+     * Copie, dans le tableau donné, les couleurs (entre 0 et 3) des pixels de la ligne d'index donné.
+     * 
+     * @param y
+     *            l'index de la ligne
+     * @param out
+     *            le tableau dans lequel copier les couleurs, dont au moins les width() premiers éléments sont écrits
+     * @throws IllegalArgumentException
+     *             si l'index de la ligne est invalide
+     * @throws IllegalArgumentException
+     *             si le tableau est plus petit que la largeur de l'image
+     */
+    public void copyRowTo(int y, int[] out) {
+        Preconditions.checkArgument(y >= 0 && y < height);
+        Preconditions.checkArgument(out.length >= width);
+        int offset = y * width;
+        for (int x = 0; x < width; x++) {
+            out[x] = pixels[offset + x];
+        }
+    }
+
+    /**
+     * Effectue l'action donnée sur chacun des pixels de l'image, ligne par ligne, de gauche à droite.
+     * 
+     * @param action
+     *            l'action à effectuer
+     * @throws NullPointerException
+     *             si l'action est nulle
+     */
+    public void forEachPixel(PixelConsumer action) {
+        Objects.requireNonNull(action);
+        for (int y = 0, i = 0; y < height; y++) {
+            for (int x = 0; x < width; x++, i++) {
+                action.accept(x, y, pixels[i]);
+            }
+        }
     }
 
     /*
@@ -86,7 +183,8 @@ public final class LcdImage {
      */
     @Override
     public boolean equals(Object that) {
-        return (that instanceof LcdImage) && lines.equals(((LcdImage) that).lines);
+        return (that instanceof LcdImage) && width == ((LcdImage) that).width
+                && Arrays.equals(pixels, ((LcdImage) that).pixels);
     }
 
     /*
@@ -96,7 +194,17 @@ public final class LcdImage {
      */
     @Override
     public int hashCode() {
-        return lines.hashCode();
+        return Arrays.hashCode(pixels);
+    }
+
+    /**
+     * Écrit, ligne par ligne, les couleurs des pixels de l'image dans le tampon donné, à raison d'un octet par pixel.
+     * 
+     * @param buffer
+     *            le tampon dans lequel écrire les pixels
+     */
+    void writePixelsTo(ByteBuffer buffer) {
+        buffer.put(pixels);
     }
 
     /**
@@ -104,7 +212,7 @@ public final class LcdImage {
      * 
      */
     public final static class Builder {
-        private final List<LcdImageLine> lines;
+        private final byte[] pixels;
         private int height;
         private int width;
 
@@ -122,10 +230,7 @@ public final class LcdImage {
             Preconditions.checkArgument(h > 0 && w > 0);
             height = h;
             width = w;
-            lines = new ArrayList<LcdImageLine>(h);
-            for (int i = 0; i < h; i++) {
-                lines.add(new LcdImageLine.Builder(w).build());
-            }
+            pixels = new byte[h * w];
         }
 
         /**
@@ -135,20 +240,47 @@ public final class LcdImage {
          *            l'indice de la ligne à remplacer.
          * @param line
          *            la nouvelle ligne.
+         * @throws IndexOutOfBoundsException
+         *             si l'indice est invalide
+         * @throws IllegalArgumentException
+         *             si la longueur de la ligne n'est pas égale à la largeur de l'image
          * @return le bâtisseur actuel.
          */
         public Builder setLine(int index, LcdImageLine line) {
-            lines.set(index, line);
+            Objects.checkIndex(index, height);
+            LcdImage.setLine(pixels, width, index, line);
             return this;
         }
 
+        /**
+         * Écrit, ligne par ligne, les couleurs des pixels de l'image en construction dans le tampon donné, à raison
+         * d'un octet par pixel.
+         * 
+         * @param buffer
+         *            le tampon dans lequel écrire les pixels
+         */
+        void writePixelsTo(ByteBuffer buffer) {
+            buffer.put(pixels);
+        }
+
+        /**
+         * Remplace les couleurs des pixels de l'image en construction par celles lues dans le tampon donné, telles
+         * qu'écrites par writePixelsTo.
+         * 
+         * @param buffer
+         *            le tampon depuis lequel lire les pixels
+         */
+        void readPixelsFrom(ByteBuffer buffer) {
+            buffer.get(pixels);
+        }
+
         /**
          * Construit et retourne l'image.
          * 
          * @return la nouvelle image.
          */
         public LcdImage build() {
-            return new LcdImage(height, width, lines);
+            return new LcdImage(height, width, pixels.clone());
         }
     }
 }
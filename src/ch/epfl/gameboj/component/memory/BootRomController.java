@@ -7,14 +7,16 @@
 
 package ch.epfl.gameboj.component.memory;
 
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 import ch.epfl.gameboj.AddressMap;
 import ch.epfl.gameboj.Preconditions;
 import ch.epfl.gameboj.component.Component;
+import ch.epfl.gameboj.component.Stateful;
 import ch.epfl.gameboj.component.cartridge.Cartridge;
 
-public final class BootRomController implements Component {
+public final class BootRomController implements Component, Stateful {
     private final Cartridge cartridge;
     private final Rom bootRom;
     private boolean disabled;
@@ -62,4 +64,55 @@ public final class BootRomController implements Component {
             cartridge.write(address, data);
         }
     }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Component#covers(int)
+     */
+    @Override
+    public boolean covers(int address) {
+        return address == AddressMap.REG_BOOT_ROM_DISABLE
+                || (address >= AddressMap.BOOT_ROM_START && address < AddressMap.BOOT_ROM_END)
+                || cartridge.covers(address);
+    }
+
+    /**
+     * Retourne vrai si la mémoire de démarrage a été désactivée, et que la cartouche est donc visible à sa place.
+     * 
+     * @return vrai si la mémoire de démarrage est désactivée
+     */
+    public boolean disabled() {
+        return disabled;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#stateSize()
+     */
+    @Override
+    public int stateSize() {
+        return 1;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#saveState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.put((byte) (disabled ? 1 : 0));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#loadState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        disabled = buffer.get() != 0;
+    }
 }
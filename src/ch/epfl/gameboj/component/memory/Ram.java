@@ -8,16 +8,18 @@
 package ch.epfl.gameboj.component.memory;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
 
 import ch.epfl.gameboj.Preconditions;
+import ch.epfl.gameboj.component.Stateful;
 
-public final class Ram {
+public final class Ram implements Stateful {
     private final byte[] memory;
 
     /**
@@ -69,6 +71,36 @@ public final class Ram {
         memory[Objects.checkIndex(index, memory.length)] = (byte) Preconditions.checkBits8(value);
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#stateSize()
+     */
+    @Override
+    public int stateSize() {
+        return memory.length;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#saveState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.put(memory);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#loadState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        buffer.get(memory);
+    }
+
     /**
      * Sauvegarde le contenu de la mémoire vive dans le fichier spécifié
      * 
@@ -84,21 +116,26 @@ public final class Ram {
     }
 
     /**
-     * Charge le contenu du fichier spécifié dans la mémoire vive.
+     * Charge le contenu du fichier spécifié dans la mémoire vive, en une seule lecture directement dans celle-ci. Tous
+     * les octets sont chargés tels quels. Si le fichier est plus court que la mémoire, seul le début de celle-ci est
+     * remplacé et le reste est inchangé ; s'il est plus long, seuls ses premiers octets sont chargés et les suivants
+     * (par exemple les données d'horloge que certains émulateurs ajoutent à la fin des sauvegardes) sont ignorés.
      * 
      * @param file
      *            le fichier depuis lequel charger la mémoire
+     * @return le nombre d'octets chargés, c-à-d le minimum entre la taille du fichier et celle de la mémoire, ou 0 en
+     *         cas d'erreur de lecture
      */
-    public void loadRam(File file) {
-        try (InputStream s = new FileInputStream(file)) {
-            byte[] content = s.readAllBytes();
-            for (int i = 0; i < content.length; i++) {
-                if (content[i] != -1) {
-                    write(i, Byte.toUnsignedInt(content[i]));
-                }
+    public int loadRam(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer target = ByteBuffer.wrap(memory, 0, (int) Math.min(channel.size(), memory.length));
+            while (target.hasRemaining() && channel.read(target) >= 0) {
+                // Une lecture peut ne remplir qu'une partie du tampon
             }
+            return target.position();
         } catch (IOException e) {
             e.printStackTrace();
+            return 0;
         }
     }
 }
@@ -78,4 +78,14 @@ public final class RamController implements Component {
         }
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Component#covers(int)
+     */
+    @Override
+    public boolean covers(int address) {
+        return address >= startAddress && address < endAddress;
+    }
+
 }
@@ -7,11 +7,14 @@
 
 package ch.epfl.gameboj.component.memory;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.zip.CRC32;
 
 public final class Rom {
-	private final byte[] memory;
+	private final ByteBuffer memory;
+	private volatile long checksum = -1;
 
 	/**
 	 * Construit un nouvel objet de type Rom en créant une copie du tableau passé en
@@ -21,7 +24,22 @@ public final class Rom {
 	 *            un tableau de byte
 	 */
 	public Rom(byte[] data) {
-		memory = Arrays.copyOf(data, data.length);
+		memory = ByteBuffer.wrap(Arrays.copyOf(data, data.length)).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Construit un nouvel objet de type Rom dont le contenu est celui du tampon
+	 * passé en argument, entre sa position et sa limite. Le contenu n'est pas
+	 * copié : plusieurs mémoires mortes peuvent ainsi partager le même tampon, par
+	 * exemple un fichier projeté en mémoire, qui ne doit alors plus être modifié.
+	 * 
+	 * @param data
+	 *            le tampon contenant les octets de la mémoire
+	 * @throws NullPointerException
+	 *             si le tampon est nul
+	 */
+	public Rom(ByteBuffer data) {
+		memory = data.asReadOnlyBuffer().slice();
 	}
 
 	/**
@@ -30,7 +48,7 @@ public final class Rom {
 	 * @return un int, la taille de la mémoire.
 	 */
 	public int size() {
-		return memory.length;
+		return memory.capacity();
 	}
 
 	/**
@@ -43,6 +61,22 @@ public final class Rom {
 	 * @return l'octet du tableau à l'indice demandé.
 	 */
 	public int read(int index) {
-		return Byte.toUnsignedInt(memory[Objects.checkIndex(index, memory.length)]);
+		return Byte.toUnsignedInt(memory.get(Objects.checkIndex(index, memory.capacity())));
+	}
+
+	/**
+	 * Retourne la somme de contrôle (CRC-32) du contenu de la mémoire, qui permet
+	 * de vérifier qu'il s'agit bien de la mémoire attendue. Elle n'est calculée
+	 * que lors du premier appel.
+	 * 
+	 * @return la somme de contrôle de la mémoire
+	 */
+	public long checksum() {
+		if (checksum < 0) {
+			CRC32 crc = new CRC32();
+			crc.update(memory.duplicate());
+			checksum = crc.getValue();
+		}
+		return checksum;
 	}
 }
@@ -0,0 +1,123 @@
+/**
+* Représente un câble de liaison entre deux GameBoy simulés dans le même programme, chacun sur son propre fil
+* d'exécution. Les octets sont échangés par des files sans verrou, et la progression de chaque GameBoy est publiée
+* dans une simple variable partagée.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.component.serial;
+
+import java.util.Objects;
+
+import ch.epfl.gameboj.GameBoy;
+import ch.epfl.gameboj.Preconditions;
+import ch.epfl.gameboj.SpscQueue;
+
+public final class LinkCable implements AutoCloseable {
+    // Un transfert dure 1024 cycles : une file de cette taille ne peut se remplir que si l'autre GameBoy est arrêté
+    private static final int QUEUE_CAPACITY = 64;
+
+    private final Endpoint first;
+    private final Endpoint second;
+    private volatile boolean connected;
+
+    /**
+     * Représente l'une des deux extrémités du câble.
+     */
+    private final class Endpoint implements SerialLink {
+        private final SpscQueue<Integer> transfers;
+        private final SpscQueue<Integer> answers;
+        private volatile long cycle;
+        private Endpoint peer;
+
+        private Endpoint() {
+            transfers = new SpscQueue<>(QUEUE_CAPACITY);
+            answers = new SpscQueue<>(QUEUE_CAPACITY);
+        }
+
+        @Override
+        public void sendTransfer(int data) {
+            offer(peer.transfers, data);
+        }
+
+        @Override
+        public int pollTransfer() {
+            return poll(transfers);
+        }
+
+        @Override
+        public void sendAnswer(int data) {
+            offer(peer.answers, data);
+        }
+
+        @Override
+        public int pollAnswer() {
+            return poll(answers);
+        }
+
+        @Override
+        public void publishCycle(long cycle) {
+            this.cycle = cycle;
+        }
+
+        @Override
+        public long peerCycle() {
+            return peer.cycle;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        public void close() {
+            LinkCable.this.close();
+        }
+    }
+
+    /**
+     * Construit un câble reliant les ports série des deux GameBoy donnés, qui doivent ensuite être simulés chacun sur
+     * son propre fil d'exécution.
+     *
+     * @param first
+     *            le premier GameBoy
+     * @param second
+     *            le second GameBoy
+     * @throws NullPointerException
+     *             si l'un des GameBoy est nul
+     * @throws IllegalArgumentException
+     *             si les deux GameBoy sont le même
+     */
+    public LinkCable(GameBoy first, GameBoy second) {
+        Preconditions.checkArgument(Objects.requireNonNull(first) != Objects.requireNonNull(second));
+        this.first = new Endpoint();
+        this.second = new Endpoint();
+        this.first.peer = this.second;
+        this.second.peer = this.first;
+        connected = true;
+        first.serialPort().connect(this.first);
+        second.serialPort().connect(this.second);
+    }
+
+    /**
+     * Débranche le câble : chacun des GameBoy continue alors seul, ses transferts recevant 0xFF.
+     */
+    @Override
+    public void close() {
+        connected = false;
+    }
+
+    private void offer(SpscQueue<Integer> queue, int data) {
+        while (connected && !queue.offer(data)) {
+            Thread.yield();
+        }
+    }
+
+    private static int poll(SpscQueue<Integer> queue) {
+        Integer data = queue.poll();
+        return data == null ? SerialLink.NO_DATA : data;
+    }
+}
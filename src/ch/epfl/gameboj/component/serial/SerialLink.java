@@ -0,0 +1,79 @@
+/**
+* Représente un câble de liaison entre deux GameBoy, vu depuis l'un d'eux. Les octets d'un transfert sont échangés en
+* un seul message plutôt que bit par bit, et les deux GameBoy ne se synchronisent qu'aux transferts et à la
+* publication périodique de leur progression, ce qui permet de les simuler chacun sur son propre fil d'exécution.
+*
+* Toutes les méthodes, fermeture exceptée, ne doivent être appelées que par le fil d'exécution simulant le GameBoy
+* local.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.component.serial;
+
+public interface SerialLink extends AutoCloseable {
+    /**
+     * Valeur retournée par les méthodes de réception lorsqu'aucun octet n'a été reçu
+     */
+    int NO_DATA = -1;
+
+    /**
+     * Envoie au GameBoy distant l'octet d'un transfert que le GameBoy local vient de démarrer avec son horloge
+     * interne. Le GameBoy distant doit y répondre par sendAnswer.
+     *
+     * @param data
+     *            l'octet envoyé
+     */
+    void sendTransfer(int data);
+
+    /**
+     * Retourne l'octet du plus ancien transfert démarré par le GameBoy distant et pas encore reçu, sans attendre.
+     *
+     * @return l'octet reçu, ou NO_DATA
+     */
+    int pollTransfer();
+
+    /**
+     * Répond au plus ancien transfert reçu du GameBoy distant par l'octet donné.
+     *
+     * @param data
+     *            l'octet renvoyé
+     */
+    void sendAnswer(int data);
+
+    /**
+     * Retourne la réponse du GameBoy distant au plus ancien transfert envoyé et pas encore répondu, sans attendre.
+     *
+     * @return l'octet de la réponse, ou NO_DATA
+     */
+    int pollAnswer();
+
+    /**
+     * Publie le nombre de cycles simulés par le GameBoy local.
+     *
+     * @param cycle
+     *            le cycle atteint par le GameBoy local
+     */
+    void publishCycle(long cycle);
+
+    /**
+     * Retourne le dernier nombre de cycles publié par le GameBoy distant.
+     *
+     * @return le cycle atteint par le GameBoy distant, 0 s'il n'en a encore publié aucun
+     */
+    long peerCycle();
+
+    /**
+     * Retourne vrai tant que le GameBoy distant est connecté ; une fois la liaison rompue, plus aucun octet n'est reçu.
+     *
+     * @return vrai si la liaison est établie
+     */
+    boolean isConnected();
+
+    /**
+     * Rompt la liaison, pour les deux GameBoy. Cette méthode peut être appelée depuis n'importe quel fil d'exécution.
+     */
+    @Override
+    void close();
+}
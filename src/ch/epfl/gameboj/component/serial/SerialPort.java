@@ -0,0 +1,272 @@
+/**
+* Représente le port série du GameBoy, permettant d'échanger des octets avec un autre GameBoy au travers d'un câble de
+* liaison. Sans câble, les transferts démarrés par l'horloge interne se terminent normalement et reçoivent 0xFF,
+* comme sur la console, et ceux attendant l'horloge d'un autre GameBoy ne se terminent jamais.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.component.serial;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import ch.epfl.gameboj.AddressMap;
+import ch.epfl.gameboj.Preconditions;
+import ch.epfl.gameboj.bits.Bits;
+import ch.epfl.gameboj.component.Clocked;
+import ch.epfl.gameboj.component.Component;
+import ch.epfl.gameboj.component.Stateful;
+import ch.epfl.gameboj.component.cpu.Cpu;
+import ch.epfl.gameboj.component.cpu.Cpu.Interrupt;
+import ch.epfl.gameboj.component.lcd.LcdController;
+
+public final class SerialPort implements Component, Clocked, Stateful {
+    /**
+     * Durée d'un transfert démarré par l'horloge interne, en cycles : 8 bits à 8192 Hz
+     */
+    public static final int TRANSFER_CYCLES = 8 * 128;
+
+    /**
+     * Avance maximale, en cycles, que peut prendre un GameBoy relié sur l'autre avant d'attendre celui-ci
+     */
+    public static final long MAX_SKEW_CYCLES = LcdController.CYCLES_PER_FRAME;
+
+    private static final int SC_START = 7, SC_INTERNAL_CLOCK = 0;
+    private static final int SC_MASK = Bits.mask(SC_START) | Bits.mask(SC_INTERNAL_CLOCK);
+    private static final int DISCONNECTED_DATA = 0xFF;
+    private static final int STATE_SIZE = 1 + 1 + 8 + 8;
+
+    private final Cpu cpu;
+    private SerialLink link;
+    private int SB;
+    private int SC;
+    private long lastCycle;
+    private long transferEnd = Long.MAX_VALUE;
+    private boolean transferSent;
+    private long nextSynchronization;
+
+    /**
+     * Construit un port série, sans câble, associé au processeur donné.
+     *
+     * @param cpu
+     *            le processeur auquel lever les interruptions de fin de transfert
+     * @throws NullPointerException
+     *             si le processeur est nul
+     */
+    public SerialPort(Cpu cpu) {
+        this.cpu = Objects.requireNonNull(cpu);
+    }
+
+    /**
+     * Branche le câble donné au port. Dès lors, le port publie régulièrement sa progression au travers du câble, et
+     * attend le GameBoy distant lorsqu'il a pris trop d'avance sur lui.
+     *
+     * @param link
+     *            le câble à brancher
+     * @throws NullPointerException
+     *             si le câble est nul
+     */
+    public void connect(SerialLink link) {
+        this.link = Objects.requireNonNull(link);
+        nextSynchronization = 0;
+    }
+
+    /**
+     * Débranche le câble du port, s'il y en a un, sans le fermer.
+     */
+    public void disconnect() {
+        link = null;
+        transferSent = false;
+    }
+
+    /**
+     * Retourne vrai si un câble est branché au port et relié à un autre GameBoy.
+     *
+     * @return vrai si le port est relié
+     */
+    public boolean connected() {
+        return link != null && link.isConnected();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Clocked#cycle(long)
+     */
+    @Override
+    public void cycle(long cycle) {
+        lastCycle = cycle;
+        if (link != null && cycle >= nextSynchronization) {
+            synchronize(cycle);
+            nextSynchronization = cycle + TRANSFER_CYCLES;
+        }
+        if (cycle >= transferEnd) {
+            completeTransfer(cycle);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Clocked#nextEventCycle(long)
+     */
+    @Override
+    public long nextEventCycle(long cycle) {
+        return link == null ? transferEnd : Math.min(transferEnd, nextSynchronization);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Component#read(int)
+     */
+    @Override
+    public int read(int address) {
+        Preconditions.checkBits16(address);
+        switch (address) {
+        case AddressMap.REG_SB:
+            return SB;
+        case AddressMap.REG_SC:
+            return SC | Bits.complement8(SC_MASK);
+        default:
+            return NO_DATA;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Component#write(int, int)
+     */
+    @Override
+    public void write(int address, int data) {
+        Preconditions.checkBits16(address);
+        Preconditions.checkBits8(data);
+        switch (address) {
+        case AddressMap.REG_SB:
+            SB = data;
+            break;
+        case AddressMap.REG_SC:
+            SC = data & SC_MASK;
+            if (Bits.test(SC, SC_START) && Bits.test(SC, SC_INTERNAL_CLOCK)) {
+                transferEnd = lastCycle + TRANSFER_CYCLES;
+                transferSent = connected();
+                if (transferSent) {
+                    link.sendTransfer(SB);
+                }
+            } else {
+                transferEnd = Long.MAX_VALUE;
+            }
+            break;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Component#covers(int)
+     */
+    @Override
+    public boolean covers(int address) {
+        return address == AddressMap.REG_SB || address == AddressMap.REG_SC;
+    }
+
+    /**
+     * Publie la progression du GameBoy, répond aux transferts du GameBoy distant, et attend celui-ci tant que le
+     * GameBoy a trop d'avance sur lui.
+     */
+    private void synchronize(long cycle) {
+        link.publishCycle(cycle);
+        answerTransfers();
+        while (link.isConnected() && cycle - link.peerCycle() > MAX_SKEW_CYCLES) {
+            Thread.yield();
+            // Le GameBoy distant peut lui-même attendre une réponse avant de pouvoir progresser
+            answerTransfers();
+        }
+    }
+
+    /**
+     * Répond aux transferts démarrés par le GameBoy distant : si le port attend l'horloge de celui-ci, l'octet reçu
+     * et celui de SB sont échangés et le transfert se termine, sinon le GameBoy distant reçoit 0xFF.
+     */
+    private void answerTransfers() {
+        int data;
+        while ((data = link.pollTransfer()) != SerialLink.NO_DATA) {
+            if (Bits.test(SC, SC_START) && !Bits.test(SC, SC_INTERNAL_CLOCK)) {
+                link.sendAnswer(SB);
+                SB = data;
+                endTransfer();
+            } else {
+                link.sendAnswer(DISCONNECTED_DATA);
+            }
+        }
+    }
+
+    /**
+     * Termine le transfert démarré par l'horloge interne, en attendant si nécessaire la réponse du GameBoy distant.
+     */
+    private void completeTransfer(long cycle) {
+        int received = DISCONNECTED_DATA;
+        if (transferSent && link != null) {
+            link.publishCycle(cycle);
+            int answer;
+            while ((answer = link.pollAnswer()) == SerialLink.NO_DATA && link.isConnected()) {
+                Thread.yield();
+                answerTransfers();
+            }
+            if (answer != SerialLink.NO_DATA) {
+                received = answer;
+            }
+        }
+        SB = received;
+        transferSent = false;
+        transferEnd = Long.MAX_VALUE;
+        endTransfer();
+    }
+
+    private void endTransfer() {
+        SC = Bits.set(SC, SC_START, false);
+        cpu.requestInterrupt(Interrupt.SERIAL);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#stateSize()
+     */
+    @Override
+    public int stateSize() {
+        return STATE_SIZE;
+    }
+
+    /**
+     * Écrit l'état du port dans le tampon donné. L'état du câble n'en fait pas partie : un transfert en cours lors de
+     * la restauration de l'état se termine sans attendre de réponse.
+     *
+     * @see ch.epfl.gameboj.component.Stateful#saveState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.put((byte) SB);
+        buffer.put((byte) SC);
+        buffer.putLong(lastCycle);
+        buffer.putLong(transferEnd);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.Stateful#loadState(java.nio.ByteBuffer)
+     */
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        SB = Byte.toUnsignedInt(buffer.get());
+        SC = Byte.toUnsignedInt(buffer.get());
+        lastCycle = buffer.getLong();
+        transferEnd = buffer.getLong();
+        transferSent = false;
+        nextSynchronization = 0;
+    }
+}
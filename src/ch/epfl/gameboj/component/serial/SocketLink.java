@@ -0,0 +1,218 @@
+/**
+* Représente un câble de liaison entre deux GameBoy simulés dans des programmes distincts, reliés par une connexion
+* TCP. Les messages envoyés sont écrits directement sur la connexion, ceux reçus sont lus par un fil d'exécution dédié
+* et transmis au GameBoy local par des files sans verrou, comme pour un câble local.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.component.serial;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import ch.epfl.gameboj.SpscQueue;
+
+public final class SocketLink implements SerialLink {
+    private static final int TRANSFER = 0, ANSWER = 1, CYCLE = 2;
+    private static final int QUEUE_CAPACITY = 64;
+
+    private final Socket socket;
+    private final DataOutputStream output;
+    private final DataInputStream input;
+    private final SpscQueue<Integer> transfers;
+    private final SpscQueue<Integer> answers;
+    private final Thread reader;
+    private volatile long peerCycle;
+    private volatile boolean connected;
+
+    /**
+     * Construit un câble au travers de la connexion donnée, déjà établie, et démarre son fil de lecture.
+     *
+     * @param socket
+     *            la connexion avec l'autre programme
+     * @throws IOException
+     *             en cas d'erreur d'accès à la connexion
+     */
+    public SocketLink(Socket socket) throws IOException {
+        this.socket = socket;
+        // Les messages sont courts et doivent arriver au plus vite
+        socket.setTcpNoDelay(true);
+        output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        transfers = new SpscQueue<>(QUEUE_CAPACITY);
+        answers = new SpscQueue<>(QUEUE_CAPACITY);
+        connected = true;
+        reader = new Thread(this::read, "serial-link-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Attend qu'un autre programme se connecte au port TCP donné, et retourne le câble les reliant.
+     *
+     * @param port
+     *            le port TCP à écouter
+     * @throws IOException
+     *             en cas d'erreur d'écoute ou de connexion
+     * @return le câble établi
+     */
+    public static SocketLink listen(int port) throws IOException {
+        try (ServerSocket server = new ServerSocket(port)) {
+            return new SocketLink(server.accept());
+        }
+    }
+
+    /**
+     * Se connecte au programme écoutant le port TCP donné de la machine donnée, et retourne le câble les reliant.
+     *
+     * @param host
+     *            le nom ou l'adresse de la machine
+     * @param port
+     *            le port TCP
+     * @throws IOException
+     *             en cas d'erreur de connexion
+     * @return le câble établi
+     */
+    public static SocketLink connect(String host, int port) throws IOException {
+        return new SocketLink(new Socket(host, port));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.serial.SerialLink#sendTransfer(int)
+     */
+    @Override
+    public void sendTransfer(int data) {
+        send(TRANSFER, data);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.serial.SerialLink#pollTransfer()
+     */
+    @Override
+    public int pollTransfer() {
+        Integer data = transfers.poll();
+        return data == null ? NO_DATA : data;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.serial.SerialLink#sendAnswer(int)
+     */
+    @Override
+    public void sendAnswer(int data) {
+        send(ANSWER, data);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.serial.SerialLink#pollAnswer()
+     */
+    @Override
+    public int pollAnswer() {
+        Integer data = answers.poll();
+        return data == null ? NO_DATA : data;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.serial.SerialLink#publishCycle(long)
+     */
+    @Override
+    public void publishCycle(long cycle) {
+        send(CYCLE, cycle);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.serial.SerialLink#peerCycle()
+     */
+    @Override
+    public long peerCycle() {
+        return peerCycle;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.serial.SerialLink#isConnected()
+     */
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ch.epfl.gameboj.component.serial.SerialLink#close()
+     */
+    @Override
+    public void close() {
+        connected = false;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void send(int type, long value) {
+        if (!connected) {
+            return;
+        }
+        try {
+            output.writeByte(type);
+            output.writeLong(value);
+            output.flush();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    private void read() {
+        try {
+            while (connected) {
+                int type = input.readByte();
+                long value = input.readLong();
+                switch (type) {
+                case TRANSFER:
+                    offer(transfers, (int) value);
+                    break;
+                case ANSWER:
+                    offer(answers, (int) value);
+                    break;
+                case CYCLE:
+                    peerCycle = value;
+                    break;
+                default:
+                    throw new IOException("Message inconnu : " + type);
+                }
+            }
+        } catch (IOException e) {
+            // La connexion a été fermée, par l'un ou l'autre des programmes
+        } finally {
+            close();
+        }
+    }
+
+    private void offer(SpscQueue<Integer> queue, int data) {
+        while (connected && !queue.offer(data)) {
+            Thread.yield();
+        }
+    }
+}
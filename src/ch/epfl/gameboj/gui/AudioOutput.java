@@ -0,0 +1,99 @@
+/**
+* Joue, sur la sortie audio de l'ordinateur, les échantillons produits par l'unité de traitement audio d'un GameBoy.
+* Les échantillons sont consommés par un fil d'exécution dédié, indépendant de celui de la simulation, dont le rythme
+* est imposé par la carte son.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.gui;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+import ch.epfl.gameboj.component.apu.Apu;
+import ch.epfl.gameboj.component.apu.SampleBuffer;
+
+public final class AudioOutput implements AutoCloseable {
+    private static final int CHANNELS = 2;
+    private static final int BYTES_PER_SAMPLE = 2;
+    // Nombre d'échantillons transmis à la carte son en une fois, soit environ 12 millisecondes
+    private static final int CHUNK_SAMPLES = 1024;
+    private static final long EMPTY_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final SampleBuffer samples;
+    private final SourceDataLine line;
+    private final Thread thread;
+    private volatile boolean running;
+
+    /**
+     * Construit une sortie audio pour le tampon d'échantillons donné et ouvre la ligne de la carte son, sans
+     * commencer à la jouer.
+     *
+     * @param samples
+     *            le tampon d'échantillons stéréo, à la fréquence d'échantillonnage de l'unité de traitement audio
+     * @throws LineUnavailableException
+     *             si aucune ligne de sortie audio n'est disponible
+     * @throws NullPointerException
+     *             si le tampon est nul
+     */
+    public AudioOutput(SampleBuffer samples) throws LineUnavailableException {
+        this.samples = Objects.requireNonNull(samples);
+        AudioFormat format = new AudioFormat(Apu.SAMPLE_RATE, 8 * BYTES_PER_SAMPLE, CHANNELS, true, false);
+        line = AudioSystem.getSourceDataLine(format);
+        line.open(format, 2 * CHUNK_SAMPLES * BYTES_PER_SAMPLE);
+        thread = new Thread(this::run, "audio-output");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Démarre la lecture des échantillons.
+     */
+    public void start() {
+        running = true;
+        line.start();
+        thread.start();
+    }
+
+    /**
+     * Arrête la lecture des échantillons et ferme la ligne de la carte son.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        line.close();
+    }
+
+    private void run() {
+        short[] chunk = new short[CHUNK_SAMPLES];
+        byte[] bytes = new byte[CHUNK_SAMPLES * BYTES_PER_SAMPLE];
+        while (running) {
+            int read = samples.read(chunk, 0, chunk.length);
+            if (read == 0) {
+                // La simulation est en pause ou en retard : la carte son joue alors le silence
+                LockSupport.parkNanos(EMPTY_WAIT_NANOS);
+                continue;
+            }
+            for (int i = 0; i < read; i++) {
+                bytes[2 * i] = (byte) chunk[i];
+                bytes[2 * i + 1] = (byte) (chunk[i] >> 8);
+            }
+            // L'écriture bloque tant que la carte son n'a pas joué assez d'échantillons pour faire place aux suivants
+            line.write(bytes, 0, read * BYTES_PER_SAMPLE);
+        }
+        line.stop();
+    }
+}
@@ -7,32 +7,93 @@
 
 package ch.epfl.gameboj.gui;
 
+import java.util.Arrays;
 import java.util.Objects;
 
+import ch.epfl.gameboj.Preconditions;
 import ch.epfl.gameboj.component.lcd.LcdImage;
 import javafx.scene.image.Image;
-import javafx.scene.image.PixelWriter;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
 
 public final class ImageConverter {
+	private static final int PALETTE_SIZE = 4;
+
+	private final WritableImage fxImage;
+	private final int[] argbPixels;
+	private final int[] row;
+	private final int[] lastPalette;
+	private LcdImage lastImage;
+
+	/**
+	 * Construit un convertisseur qui réutilise, d'une conversion à l'autre, une même image JavaFX de dimensions
+	 * données.
+	 *
+	 * @param width
+	 *            la largeur des images à convertir
+	 * @param height
+	 *            la hauteur des images à convertir
+	 * @throws IllegalArgumentException
+	 *             si les dimensions ne sont pas strictement positives
+	 */
+	public ImageConverter(int width, int height) {
+		Preconditions.checkArgument(width > 0 && height > 0);
+		fxImage = new WritableImage(width, height);
+		argbPixels = new int[width * height];
+		row = new int[width];
+		lastPalette = new int[PALETTE_SIZE];
+	}
 
 	/**
-	 * Convertit l'image gameboy en une image JavaFX.
-	 * 
+	 * Met à jour l'image JavaFX du convertisseur avec l'image gameboy donnée, et la retourne. Tous les pixels sont
+	 * transférés en une seule fois, et seulement si l'image ou la palette ont changé depuis la dernière mise à jour.
+	 *
 	 * @param img
 	 *            l'image gameboy
-	 * @throws NullPointerException si l'image gameboy est nulle
-	 * @return l'image convertie
+	 * @param palette
+	 *            les couleurs ARGB associées aux 4 couleurs de l'image gameboy
+	 * @throws NullPointerException
+	 *             si l'image gameboy ou la palette sont nulles
+	 * @throws IllegalArgumentException
+	 *             si les dimensions de l'image gameboy ne sont pas celles du convertisseur, ou si la palette ne contient
+	 *             pas 4 couleurs
+	 * @return l'image JavaFX du convertisseur, toujours la même
 	 */
-	public static Image convert(LcdImage img, int[] palette) {
-	    Objects.requireNonNull(img);
-		WritableImage fxImage = new WritableImage(img.width(), img.height());
-		PixelWriter writer = fxImage.getPixelWriter();
-		for (int y = 0; y < img.height(); ++y) {
-			for (int x = 0; x < img.width(); ++x) {
-				writer.setArgb(x, y, palette[img.get(x, y)]);
+	public Image update(LcdImage img, int[] palette) {
+		Objects.requireNonNull(img);
+		Preconditions.checkArgument(palette.length == PALETTE_SIZE);
+		int width = (int) fxImage.getWidth();
+		int height = (int) fxImage.getHeight();
+		Preconditions.checkArgument(img.width() == width && img.height() == height);
+
+		if (img.equals(lastImage) && Arrays.equals(palette, lastPalette)) {
+			return fxImage;
+		}
+		for (int y = 0; y < height; ++y) {
+			img.copyRowTo(y, row);
+			for (int x = 0; x < width; ++x) {
+				argbPixels[y * width + x] = palette[row[x]];
 			}
 		}
+		fxImage.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), argbPixels, 0,
+				width);
+		lastImage = img;
+		System.arraycopy(palette, 0, lastPalette, 0, PALETTE_SIZE);
 		return fxImage;
 	}
+
+	/**
+	 * Convertit l'image gameboy en une nouvelle image JavaFX.
+	 *
+	 * @param img
+	 *            l'image gameboy
+	 * @param palette
+	 *            les couleurs ARGB associées aux 4 couleurs de l'image gameboy
+	 * @throws NullPointerException si l'image gameboy est nulle
+	 * @return l'image convertie
+	 */
+	public static Image convert(LcdImage img, int[] palette) {
+		Objects.requireNonNull(img);
+		return new ImageConverter(img.width(), img.height()).update(img, palette);
+	}
 }
@@ -19,14 +19,21 @@ import java.util.Locale;
 import java.util.Map;
 
 import javax.imageio.ImageIO;
+import javax.sound.sampled.LineUnavailableException;
 
+import ch.epfl.gameboj.Emulator;
 import ch.epfl.gameboj.GameBoy;
+import ch.epfl.gameboj.RewindBuffer;
 import ch.epfl.gameboj.component.Joypad.Key;
+import ch.epfl.gameboj.component.cartridge.BatteryRamWriter;
 import ch.epfl.gameboj.component.cartridge.Cartridge;
 import ch.epfl.gameboj.component.lcd.LcdController;
 import ch.epfl.gameboj.component.lcd.LcdController.LcdContent;
 import ch.epfl.gameboj.component.lcd.LcdImage;
 import ch.epfl.gameboj.gui.menu.BasicItem;
+import ch.epfl.gameboj.headless.InputMovie;
+import ch.epfl.gameboj.headless.InputRecorder;
+import ch.epfl.gameboj.headless.VideoRecorder;
 import ch.epfl.gameboj.gui.menu.Item;
 import ch.epfl.gameboj.gui.menu.Menu;
 import ch.epfl.gameboj.gui.menu.MenuItem;
@@ -36,6 +43,7 @@ import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
@@ -58,6 +66,7 @@ import javafx.util.Duration;
 
 public final class Main extends Application {
     private static final List<Float> SPEED = List.of(0.5f, 1.0f, 2.0f, 4.0f);
+    private static final List<Integer> RUN_AHEAD_FRAMES = List.of(0, 1, 2, 3);
 
     private static final int[] DEFAULT_PALETTE = new int[] { 0xFF_FF_FF_FF, 0xFF_D3_D3_D3, 0xFF_A9_A9_A9,
             0xFF_00_00_00 };
@@ -82,19 +91,34 @@ public final class Main extends Application {
     private static final File SAVE_FOLDER = new File(MAIN_FOLDER, "Save");
     private static final File ROM_FOLDER = new File(MAIN_FOLDER, "ROMs");
     private static final File GRAPHIC_FOLDER = new File(MAIN_FOLDER, "Graphic Data");
+    private static final File VIDEO_FOLDER = new File(MAIN_FOLDER, "Video");
+    private static final int VIDEO_KEYFRAME_INTERVAL = 60;
+    private static final File MOVIE_FOLDER = new File(MAIN_FOLDER, "Movies");
+    private static final long SAVE_PERIOD_MILLIS = 1000;
+    // Une minute de retour en arrière, image par image, avec un état clef par seconde
+    private static final int REWIND_CAPACITY = 60 * 60;
+    private static final int REWIND_KEYFRAME_INTERVAL = 60;
 
     private float simulationSpeed = 1f;
     private boolean gamePaused = false;
     private boolean turbo = false;
-    private long elapsed;
-    private long before;
+    private boolean fastForward = false;
+    private int runAheadFrames = 0;
     private int[] selectedPalette = DEFAULT_PALETTE;
 
     private StackPane mainPane;
     private ImageView gameView;
+    private ImageConverter gameViewConverter;
     private Menu mainMenu;
     private Menu selectedMenu;
     private GameBoy gameBoy;
+    private BatteryRamWriter batteryRamWriter;
+    private Emulator emulator;
+    private AudioOutput audioOutput;
+    private VideoRecorder videoRecorder;
+    private boolean recordingMovie = false;
+    // Utilisé uniquement sur le fil d'exécution du simulateur
+    private InputRecorder inputRecorder;
     private String gameName;
 
     /**
@@ -179,7 +203,6 @@ public final class Main extends Application {
                     primaryStage.setScene(createContent());
                     primaryStage.sizeToScene();
                     startGame();
-                    loadGame();
                 }
             }
         };
@@ -191,9 +214,15 @@ public final class Main extends Application {
     private void startGame() {
         try {
             gameBoy = new GameBoy(Cartridge.ofFile(new File(ROM_FOLDER, gameName + ".gb")));
+            emulator = new Emulator(gameBoy, new RewindBuffer(gameBoy, REWIND_CAPACITY, 1, REWIND_KEYFRAME_INTERVAL));
+            emulator.setSpeed(simulationSpeed);
+            emulator.setRunAheadFrames(runAheadFrames);
         } catch (IOException e) {
             e.printStackTrace();
         }
+        startAudio();
+        // La mémoire vive de la cartouche est chargée avant que le GameBoy ne passe au fil d'exécution du simulateur
+        loadGame();
 
         Label turboLabel = new Label("");
         turboLabel.setFont((Font.font("Futura", 28)));
@@ -215,18 +244,40 @@ public final class Main extends Application {
                 }
                 Key k = keyMapText.getOrDefault(event.getText(), keyMapCode.get(event.getCode()));
                 if (k != null) {
-                    gameBoy.joypad().keyPressed(k);
+                    emulator.keyPressed(k);
                 }
                 switch (event.getCode()) {
                 case P:
                     takeScreenShot();
                     break;
+                case V:
+                    toggleRecording();
+                    turboLabel.setText(videoRecorder != null ? "REC" : "");
+                    timeLine.play();
+                    break;
+                case M:
+                    toggleMovieRecording();
+                    turboLabel.setText(recordingMovie ? "MOV" : "");
+                    timeLine.play();
+                    break;
                 case ESCAPE:
                     toggleMenu(mainMenu);
                     break;
+                case R:
+                    emulator.setRewinding(true);
+                    break;
+                case F:
+                    if (!fastForward) {
+                        emulator.setFastForward(true);
+                        fastForward = true;
+                        turboLabel.setText(">>");
+                        timeLine.play();
+                    }
+                    break;
                 case T:
                     if (!turbo && simulationSpeed <= 2) {
                         simulationSpeed *= 2;
+                        emulator.setSpeed(simulationSpeed);
                         turbo = true;
                         turboLabel.setText("x " + simulationSpeed);
                         timeLine.play();
@@ -243,11 +294,19 @@ public final class Main extends Application {
             public void handle(KeyEvent event) {
                 Key k = keyMapText.getOrDefault(event.getText(), keyMapCode.get(event.getCode()));
                 if (k != null) {
-                    gameBoy.joypad().keyReleased(k);
+                    emulator.keyReleased(k);
+                }
+                if (event.getCode() == KeyCode.R) {
+                    emulator.setRewinding(false);
+                }
+                if (event.getCode() == KeyCode.F) {
+                    emulator.setFastForward(false);
+                    fastForward = false;
                 }
                 if (event.getCode() == KeyCode.T) {
                     if (turbo) {
                         simulationSpeed *= 0.5;
+                        emulator.setSpeed(simulationSpeed);
                         turbo = false;
                     }
                 }
@@ -258,19 +317,17 @@ public final class Main extends Application {
         gameView.setOnKeyPressed(handlerPressed);
         gameView.setOnKeyReleased(handlerReleased);
 
-        before = System.nanoTime();
+        // La simulation a lieu sur le fil d'exécution du simulateur, celui de l'interface graphique ne fait plus
+        // qu'afficher la dernière image produite
+        emulator.start();
         new AnimationTimer() {
             @Override
             public void handle(long now) {
-                long deltaTime = now - before;
-                before = now;
-
-                if (!gamePaused) {
-                    elapsed += deltaTime * simulationSpeed;
-                    long cycle = (long) (elapsed * GameBoy.CYCLES_PER_NANOSECOND);
-                    gameBoy.runUntil(cycle);
+                LcdImage image = emulator.latestImage();
+                if (image != null) {
+                    // L'image affichée est toujours la même, seuls ses pixels sont mis à jour
+                    gameViewConverter.update(image, selectedPalette);
                 }
-                gameView.setImage(ImageConverter.convert(gameBoy.lcdController().currentImage(), selectedPalette));
             }
         }.start();
     }
@@ -288,6 +345,20 @@ public final class Main extends Application {
             selectedMenu = null;
         }
         gamePaused = !gamePaused;
+        emulator.setPaused(gamePaused);
+    }
+
+    private void startAudio() {
+        // La fréquence d'échantillonnage suit la consommation de la carte son, dont l'horloge n'est pas celle du GameBoy
+        gameBoy.apu().setDynamicRateControl(true);
+        try {
+            audioOutput = new AudioOutput(gameBoy.apu().samples());
+            audioOutput.start();
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            // Sans sortie audio, la simulation continue en silence
+            gameBoy.apu().setOutputEnabled(false);
+            e.printStackTrace();
+        }
     }
 
     private void saveGame() {
@@ -295,7 +366,10 @@ public final class Main extends Application {
         if (!SAVE_FOLDER.exists()) {
             SAVE_FOLDER.mkdirs();
         }
-        if (gameBoy != null) {
+        if (batteryRamWriter != null) {
+            // Seules les pages modifiées depuis la dernière écriture périodique sont écrites
+            batteryRamWriter.flush();
+        } else if (gameBoy != null) {
             gameBoy.saveCatridgeRam(saveFile);
         }
     }
@@ -305,6 +379,16 @@ public final class Main extends Application {
         if (saveFile.exists()) {
             gameBoy.loadCatridgeRam(saveFile);
         }
+        if (gameBoy != null && gameBoy.cartridge().ramSize() > 0) {
+            if (!SAVE_FOLDER.exists()) {
+                SAVE_FOLDER.mkdirs();
+            }
+            try {
+                batteryRamWriter = new BatteryRamWriter(gameBoy.cartridge(), saveFile, SAVE_PERIOD_MILLIS);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
     }
 
     private void takeScreenShot() {
@@ -325,6 +409,60 @@ public final class Main extends Application {
         timeLine.play();
     }
 
+    private void toggleRecording() {
+        if (videoRecorder == null) {
+            if (!VIDEO_FOLDER.exists()) {
+                VIDEO_FOLDER.mkdirs();
+            }
+            File videoFile = new File(VIDEO_FOLDER, gameName + " "
+                    + new SimpleDateFormat("yyyy-MM-dd HH.mm.ss", Locale.FRANCE).format(new Date()) + ".gbv");
+            try {
+                videoRecorder = new VideoRecorder(videoFile, VIDEO_KEYFRAME_INTERVAL);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+            VideoRecorder recorder = videoRecorder;
+            emulator.execute(() -> gameBoy.lcdController().setFrameListener(recorder));
+        } else {
+            VideoRecorder recorder = videoRecorder;
+            videoRecorder = null;
+            // L'enregistreur n'est fermé qu'une fois qu'il ne reçoit plus d'images
+            emulator.execute(() -> {
+                gameBoy.lcdController().setFrameListener(null);
+                try {
+                    recorder.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+    }
+
+    private void toggleMovieRecording() {
+        if (!recordingMovie) {
+            recordingMovie = true;
+            emulator.execute(() -> inputRecorder = new InputRecorder(gameBoy));
+        } else {
+            recordingMovie = false;
+            if (!MOVIE_FOLDER.exists()) {
+                MOVIE_FOLDER.mkdirs();
+            }
+            File movieFile = new File(MOVIE_FOLDER, gameName + " "
+                    + new SimpleDateFormat("yyyy-MM-dd HH.mm.ss", Locale.FRANCE).format(new Date()) + ".gbm");
+            emulator.execute(() -> {
+                try {
+                    InputMovie movie = inputRecorder.finish();
+                    movie.writeTo(movieFile);
+                } catch (IOException | IllegalStateException e) {
+                    e.printStackTrace();
+                } finally {
+                    inputRecorder = null;
+                }
+            });
+        }
+    }
+
     private void saveLcdContent(LcdContent content) {
         if (!GRAPHIC_FOLDER.exists()) {
             GRAPHIC_FOLDER.mkdirs();
@@ -332,26 +470,32 @@ public final class Main extends Application {
 
         String fileName = gameName + " " + content + " "
                 + new SimpleDateFormat("yyyy-MM-dd HH.mm.ss", Locale.FRANCE).format(new Date()) + ".png";
-        LcdImage gbImg = null;
+        // La mémoire vidéo est lue par le fil d'exécution du simulateur, l'image écrite par celui de l'interface
+        emulator.execute(() -> {
+            LcdImage gbImg = lcdContent(content);
+            Platform.runLater(() -> {
+                Image img = ImageConverter.convert(gbImg, selectedPalette);
+                try {
+                    ImageIO.write(SwingFXUtils.fromFXImage(img, null), "png", new File(GRAPHIC_FOLDER, fileName));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+        });
+    }
+
+    private LcdImage lcdContent(LcdContent content) {
         switch (content) {
         case VRAM:
-            gbImg = gameBoy.lcdController().printMemory();
-            break;
+            return gameBoy.lcdController().printMemory();
         case WIN:
-            gbImg = gameBoy.lcdController().printEntireImage(true);
-            break;
+            return gameBoy.lcdController().printEntireImage(true);
         case BG:
-            gbImg = gameBoy.lcdController().printEntireImage(false);
-            break;
+            return gameBoy.lcdController().printEntireImage(false);
         case OAM:
-            gbImg = gameBoy.lcdController().printOam();
-            break;
-        }
-        Image img = ImageConverter.convert(gbImg, selectedPalette);
-        try {
-            ImageIO.write(SwingFXUtils.fromFXImage(img, null), "png", new File(GRAPHIC_FOLDER, fileName));
-        } catch (IOException e) {
-            e.printStackTrace();
+            return gameBoy.lcdController().printOam();
+        default:
+            throw new Error();
         }
     }
 
@@ -362,7 +506,8 @@ public final class Main extends Application {
         Scene scene = new Scene(mainPane);
 
         gameView.setPreserveRatio(true);
-        gameView.setImage(ImageConverter.convert(
+        gameViewConverter = new ImageConverter(LcdController.LCD_WIDTH, LcdController.LCD_HEIGHT);
+        gameView.setImage(gameViewConverter.update(
                 new LcdImage.Builder(LcdController.LCD_HEIGHT, LcdController.LCD_WIDTH).build(), DEFAULT_PALETTE));
         gameView.setVisible(true);
         gameView.fitWidthProperty().bind(scene.widthProperty());
@@ -415,10 +560,19 @@ public final class Main extends Application {
         SelectItem<Float> speedSelect = new SelectItem<Float>("Speed", SPEED, 1);
         SelectItem<int[]> paletteSelect = new SelectItem<>("Palette", PALETTES,
                 List.of("Default", "Authentic", "Chocolate", "Night Dream", "Mario Land 2", "Zelda"));
-        optionMenu.addAll(returnFromOptionsItem, paletteSelect, speedSelect);
+        SelectItem<Integer> runAheadSelect = new SelectItem<>("Run-ahead", RUN_AHEAD_FRAMES,
+                List.of("Off", "1 frame", "2 frames", "3 frames"));
+        optionMenu.addAll(returnFromOptionsItem, paletteSelect, speedSelect, runAheadSelect);
 
-        speedSelect.setAction(() -> simulationSpeed = speedSelect.setting());
+        speedSelect.setAction(() -> {
+            simulationSpeed = speedSelect.setting();
+            emulator.setSpeed(simulationSpeed);
+        });
         paletteSelect.setAction(() -> selectedPalette = paletteSelect.setting());
+        runAheadSelect.setAction(() -> {
+            runAheadFrames = runAheadSelect.setting();
+            emulator.setRunAheadFrames(runAheadFrames);
+        });
 
         // Graphic Data Menu Items
         BasicItem vramItem = new BasicItem("Print every tiles from the Video RAM");
@@ -0,0 +1,345 @@
+/**
+* Simule, sans interface graphique et en parallèle sur plusieurs cœurs, un ensemble de GameBoy indépendants, puis
+* rapporte la vitesse de simulation de chacun d'eux.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.headless;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import ch.epfl.gameboj.GameBoy;
+import ch.epfl.gameboj.Preconditions;
+import ch.epfl.gameboj.component.cartridge.Cartridge;
+import ch.epfl.gameboj.component.cartridge.RomCache;
+import ch.epfl.gameboj.component.lcd.LcdController;
+
+public final class BatchRunner {
+    private static final String ROM_EXTENSION = ".gb";
+    private static final String WAV_EXTENSION = ".wav";
+    private static final String VIDEO_EXTENSION = ".gbv";
+    private static final int VIDEO_KEYFRAME_INTERVAL = 60;
+    private static final long DEFAULT_FRAMES = 3600;
+    private static final double NANOSECONDS_PER_SECOND = 1e9;
+
+    private final long cycles;
+    private final InputScript script;
+    private final InputMovie movie;
+    private final int parallelism;
+    private final boolean codeCache;
+    private final LcdController.Renderer renderer;
+    private final int renderInterval;
+    private final File wavDirectory;
+    private final File videoDirectory;
+
+    /**
+     * Représente le résultat de la simulation d'une instance de GameBoy.
+     */
+    public static final class Result {
+        private final File rom;
+        private final int instance;
+        private final long cycles;
+        private final long nanoTime;
+        private final String error;
+
+        private Result(File rom, int instance, long cycles, long nanoTime, String error) {
+            this.rom = rom;
+            this.instance = instance;
+            this.cycles = cycles;
+            this.nanoTime = nanoTime;
+            this.error = error;
+        }
+
+        /**
+         * Retourne le fichier de la cartouche simulée.
+         *
+         * @return le fichier de la cartouche
+         */
+        public File rom() {
+            return rom;
+        }
+
+        /**
+         * Retourne le numéro de l'instance parmi celles simulant la même cartouche.
+         *
+         * @return le numéro de l'instance
+         */
+        public int instance() {
+            return instance;
+        }
+
+        /**
+         * Retourne le nombre de cycles simulés.
+         *
+         * @return le nombre de cycles simulés, 0 en cas d'erreur
+         */
+        public long cycles() {
+            return cycles;
+        }
+
+        /**
+         * Retourne le temps réel, en nanosecondes, qu'a pris la simulation.
+         *
+         * @return la durée de la simulation
+         */
+        public long nanoTime() {
+            return nanoTime;
+        }
+
+        /**
+         * Retourne le nombre d'images simulées par seconde de temps réel.
+         *
+         * @return le nombre d'images par seconde
+         */
+        public double framesPerSecond() {
+            return nanoTime == 0 ? 0 : cycles / (double) LcdController.CYCLES_PER_FRAME / nanoTime
+                    * NANOSECONDS_PER_SECOND;
+        }
+
+        /**
+         * Retourne le message de l'erreur ayant empêché la simulation, ou null si elle s'est bien déroulée.
+         *
+         * @return le message d'erreur, ou null
+         */
+        public String error() {
+            return error;
+        }
+    }
+
+    /**
+     * Construit un simulateur de GameBoy par lots.
+     *
+     * @param cycles
+     *            le nombre de cycles à simuler pour chaque instance
+     * @param script
+     *            le script d'entrées à appliquer à chaque instance
+     * @param movie
+     *            le film d'entrées que chaque instance est préparée à rejouer avant d'être simulée (voir
+     *            InputMovie.start), dont le script doit alors être le script donné, ou null
+     * @param parallelism
+     *            le nombre de fils d'exécution à utiliser
+     * @param codeCache
+     *            vrai pour activer le cache des instructions décodées du processeur de chaque instance
+     * @param renderer
+     *            la mise en oeuvre du calcul des images utilisée par le contrôleur LCD de chaque instance
+     * @param renderInterval
+     *            l'intervalle entre les images calculées par le contrôleur LCD de chaque instance, 1 pour les calculer
+     *            toutes
+     * @param wavDirectory
+     *            le dossier dans lequel écrire le son de chaque instance, dans un fichier WAV nommé d'après sa
+     *            cartouche et son numéro, ou null pour ne pas produire de son
+     * @param videoDirectory
+     *            le dossier dans lequel enregistrer les images de chaque instance, dans un fichier vidéo nommé d'après
+     *            sa cartouche et son numéro, ou null pour ne pas les enregistrer
+     * @throws IllegalArgumentException
+     *             si le nombre de cycles est négatif ou si le nombre de fils ou l'intervalle ne sont pas strictement
+     *             positifs
+     * @throws NullPointerException
+     *             si le script ou la mise en oeuvre du calcul des images est nul
+     */
+    public BatchRunner(long cycles, InputScript script, InputMovie movie, int parallelism, boolean codeCache,
+            LcdController.Renderer renderer, int renderInterval, File wavDirectory, File videoDirectory) {
+        Preconditions.checkArgument(cycles >= 0 && parallelism > 0 && renderInterval > 0);
+        this.cycles = cycles;
+        this.script = Objects.requireNonNull(script);
+        this.movie = movie;
+        this.parallelism = parallelism;
+        this.codeCache = codeCache;
+        this.renderer = Objects.requireNonNull(renderer);
+        this.renderInterval = renderInterval;
+        this.wavDirectory = wavDirectory;
+        this.videoDirectory = videoDirectory;
+    }
+
+    /**
+     * Simule le nombre d'instances donné de chacune des cartouches données, en parallèle, et retourne les résultats
+     * dans l'ordre des cartouches puis des instances.
+     *
+     * @param roms
+     *            les fichiers des cartouches à simuler
+     * @param instances
+     *            le nombre d'instances indépendantes à simuler pour chaque cartouche
+     * @throws InterruptedException
+     *             si le fil d'exécution est interrompu pendant l'attente des résultats
+     * @return les résultats des simulations
+     */
+    public List<Result> run(List<File> roms, int instances) throws InterruptedException {
+        List<Callable<Result>> tasks = new ArrayList<>();
+        for (File rom : roms) {
+            for (int i = 0; i < instances; i++) {
+                int instance = i;
+                tasks.add(() -> runInstance(rom, instance));
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Result> results = new ArrayList<>(tasks.size());
+            for (Future<Result> f : pool.invokeAll(tasks)) {
+                results.add(f.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Result runInstance(File rom, int instance) {
+        String name = rom.getName() + "-" + instance;
+        try (WavWriter wav = wavDirectory == null ? null : new WavWriter(new File(wavDirectory, name + WAV_EXTENSION));
+                VideoRecorder video = videoDirectory == null ? null
+                        : new VideoRecorder(new File(videoDirectory, name + VIDEO_EXTENSION),
+                                VIDEO_KEYFRAME_INTERVAL)) {
+            GameBoy gameBoy = new GameBoy(Cartridge.ofFile(rom));
+            gameBoy.cpu().setCodeCacheEnabled(codeCache);
+            gameBoy.lcdController().setRenderer(renderer);
+            gameBoy.lcdController().setRenderInterval(renderInterval);
+            gameBoy.lcdController().setFrameListener(video);
+            gameBoy.apu().setOutputEnabled(wav != null);
+            if (movie != null) {
+                movie.start(gameBoy);
+            }
+            long end = gameBoy.cycles() + cycles;
+            long start = System.nanoTime();
+            // La simulation avance image par image afin de répartir régulièrement l'application du script, et de
+            // vider le tampon d'échantillons avant qu'il ne déborde
+            for (long c = gameBoy.cycles() + LcdController.CYCLES_PER_FRAME; c < end;
+                    c += LcdController.CYCLES_PER_FRAME) {
+                script.runUntil(gameBoy, c);
+                if (wav != null) {
+                    wav.drain(gameBoy.apu().samples());
+                }
+            }
+            script.runUntil(gameBoy, end);
+            if (wav != null) {
+                wav.drain(gameBoy.apu().samples());
+            }
+            return new Result(rom, instance, cycles, System.nanoTime() - start, null);
+        } catch (IOException | RuntimeException e) {
+            // L'erreur d'une instance est rapportée dans son résultat, sans empêcher d'obtenir ceux des autres
+            return new Result(rom, instance, 0, 0, e.toString());
+        }
+    }
+
+    /**
+     * Méthode principale du simulateur par lots. Les arguments sont une liste de fichiers de cartouches ou de dossiers
+     * (dont toutes les cartouches sont alors simulées), éventuellement précédés des options --frames n, --cycles n,
+     * --script fichier, --movie fichier, --instances n, --threads n, --code-cache, --direct-renderer, --render-interval n,
+     * --wav dossier et --video dossier.
+     *
+     * @param args
+     *            les arguments de la ligne de commande
+     * @throws IOException
+     *             en cas d'erreur de lecture du script ou du film
+     * @throws InterruptedException
+     *             si le fil d'exécution est interrompu pendant la simulation
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long cycles = DEFAULT_FRAMES * LcdController.CYCLES_PER_FRAME;
+        InputScript script = InputScript.EMPTY;
+        InputMovie movie = null;
+        int instances = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean codeCache = false;
+        LcdController.Renderer renderer = LcdController.Renderer.BIT_VECTOR;
+        int renderInterval = 1;
+        File wavDirectory = null;
+        File videoDirectory = null;
+        List<File> roms = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+            case "--frames":
+                cycles = Long.parseLong(args[++i]) * LcdController.CYCLES_PER_FRAME;
+                break;
+            case "--cycles":
+                cycles = Long.parseLong(args[++i]);
+                break;
+            case "--script":
+                script = InputScript.ofFile(new File(args[++i]));
+                break;
+            case "--movie":
+                movie = InputMovie.ofFile(new File(args[++i]));
+                break;
+            case "--instances":
+                instances = Integer.parseInt(args[++i]);
+                break;
+            case "--threads":
+                threads = Integer.parseInt(args[++i]);
+                break;
+            case "--code-cache":
+                codeCache = true;
+                break;
+            case "--direct-renderer":
+                renderer = LcdController.Renderer.DIRECT;
+                break;
+            case "--render-interval":
+                renderInterval = Integer.parseInt(args[++i]);
+                break;
+            case "--wav":
+                wavDirectory = new File(args[++i]);
+                break;
+            case "--video":
+                videoDirectory = new File(args[++i]);
+                break;
+            default:
+                addRoms(new File(args[i]), roms);
+                break;
+            }
+        }
+        // Un film impose ses événements et sa durée
+        if (movie != null) {
+            script = movie.script();
+            cycles = movie.length();
+        }
+        if (roms.isEmpty()) {
+            System.err.println("Usage: BatchRunner [--frames n | --cycles n] [--script fichier | --movie fichier] "
+                    + "[--instances n] [--threads n] [--code-cache] [--direct-renderer] [--render-interval n] "
+                    + "[--wav dossier] [--video dossier] cartouche|dossier...");
+            System.exit(1);
+        }
+
+        long start = System.nanoTime();
+        List<Result> results = new BatchRunner(cycles, script, movie, threads, codeCache, renderer, renderInterval,
+                wavDirectory, videoDirectory).run(roms, instances);
+        long totalTime = System.nanoTime() - start;
+
+        long totalCycles = 0;
+        for (Result r : results) {
+            totalCycles += r.cycles();
+            if (r.error() != null) {
+                System.out.printf(Locale.ROOT, "%-30s #%-3d %s%n", r.rom().getName(), r.instance(), r.error());
+            } else {
+                System.out.printf(Locale.ROOT, "%-30s #%-3d %10.1f images/s %8d ms%n", r.rom().getName(),
+                        r.instance(), r.framesPerSecond(), r.nanoTime() / 1_000_000);
+            }
+        }
+        System.out.printf(Locale.ROOT, "Total : %d instances, %.1f images/s sur %d fils%n", results.size(),
+                totalCycles / (double) LcdController.CYCLES_PER_FRAME / totalTime * NANOSECONDS_PER_SECOND, threads);
+        System.out.printf(Locale.ROOT, "Cache des cartouches : %d succès, %d échecs%n", RomCache.shared().hits(),
+                RomCache.shared().misses());
+    }
+
+    private static void addRoms(File file, List<File> roms) {
+        if (file.isDirectory()) {
+            File[] files = file.listFiles((dir, name) -> name.endsWith(ROM_EXTENSION));
+            Arrays.sort(files);
+            roms.addAll(Arrays.asList(files));
+        } else {
+            roms.add(file);
+        }
+    }
+}
@@ -0,0 +1,391 @@
+/**
+* Vérifie, sans interface graphique, que les images produites par le simulateur n'ont pas changé : chaque cartouche est
+* simulée pendant un nombre fixe d'images avec un script d'entrées, chaque image calculée au début du VBLANK est
+* incorporée à une empreinte, et l'empreinte obtenue est comparée à celle de référence, enregistrée dans un fichier.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.headless;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import ch.epfl.gameboj.GameBoy;
+import ch.epfl.gameboj.Preconditions;
+import ch.epfl.gameboj.component.cartridge.Cartridge;
+import ch.epfl.gameboj.component.lcd.LcdController;
+
+public final class FrameHashRegression {
+    private static final String ROM_EXTENSION = ".gb";
+    private static final String COMMENT_PREFIX = "#";
+    private static final String FRAMES_HEADER = "# frames ";
+    private static final long HASH_MULTIPLIER = 1_000_003;
+    private static final long DEFAULT_FRAMES = 600;
+    private static final double NANOSECONDS_PER_SECOND = 1e9;
+
+    /**
+     * Dossier des cartouches vérifiées par défaut
+     */
+    public static final File ROM_DIRECTORY = new File("data/ROMs");
+    /**
+     * Fichier des empreintes de référence utilisé par défaut
+     */
+    public static final File DEFAULT_GOLDEN_FILE = new File("data/regression/frame-hashes.txt");
+    /**
+     * Fichier du script d'entrées utilisé par défaut
+     */
+    public static final File DEFAULT_SCRIPT_FILE = new File("data/regression/inputs.txt");
+
+    private final long frames;
+    private final InputScript script;
+    private final boolean codeCache;
+    private final LcdController.Renderer renderer;
+
+    /**
+     * Représente le résultat de la simulation d'une cartouche.
+     */
+    public static final class Result {
+        private final File rom;
+        private final long hash;
+        private final int images;
+        private final long nanoTime;
+        private final String error;
+
+        private Result(File rom, long hash, int images, long nanoTime, String error) {
+            this.rom = rom;
+            this.hash = hash;
+            this.images = images;
+            this.nanoTime = nanoTime;
+            this.error = error;
+        }
+
+        /**
+         * Retourne le fichier de la cartouche simulée.
+         *
+         * @return le fichier de la cartouche
+         */
+        public File rom() {
+            return rom;
+        }
+
+        /**
+         * Retourne l'empreinte des images calculées pendant la simulation.
+         *
+         * @return l'empreinte des images, 0 en cas d'erreur
+         */
+        public long hash() {
+            return hash;
+        }
+
+        /**
+         * Retourne le nombre d'images calculées pendant la simulation, qui peut être inférieur au nombre d'images
+         * simulées, aucune image n'étant calculée lorsque l'écran est éteint.
+         *
+         * @return le nombre d'images calculées
+         */
+        public int images() {
+            return images;
+        }
+
+        /**
+         * Retourne le temps réel, en nanosecondes, qu'a pris la simulation.
+         *
+         * @return la durée de la simulation
+         */
+        public long nanoTime() {
+            return nanoTime;
+        }
+
+        /**
+         * Retourne le message de l'erreur ayant empêché la simulation, ou null si elle s'est bien déroulée.
+         *
+         * @return le message d'erreur, ou null
+         */
+        public String error() {
+            return error;
+        }
+    }
+
+    /**
+     * Construit un vérificateur d'images.
+     *
+     * @param frames
+     *            le nombre d'images à simuler pour chaque cartouche
+     * @param script
+     *            le script d'entrées à appliquer à chaque cartouche
+     * @param codeCache
+     *            vrai pour activer le cache des instructions décodées du processeur
+     * @param renderer
+     *            la mise en oeuvre du calcul des images utilisée par le contrôleur LCD
+     * @throws IllegalArgumentException
+     *             si le nombre d'images est négatif
+     * @throws NullPointerException
+     *             si le script ou la mise en oeuvre du calcul des images est nul
+     */
+    public FrameHashRegression(long frames, InputScript script, boolean codeCache, LcdController.Renderer renderer) {
+        Preconditions.checkArgument(frames >= 0);
+        this.frames = frames;
+        this.script = Objects.requireNonNull(script);
+        this.codeCache = codeCache;
+        this.renderer = Objects.requireNonNull(renderer);
+    }
+
+    /**
+     * Retourne le nombre d'images simulées pour chaque cartouche.
+     *
+     * @return le nombre d'images simulées
+     */
+    public long frames() {
+        return frames;
+    }
+
+    /**
+     * Simule la cartouche donnée et retourne l'empreinte des images calculées. L'empreinte ne dépend que des couleurs
+     * des pixels de ces images et de leur ordre ; elle est donc la même quelles que soient la mise en oeuvre du calcul
+     * des images et l'activation du cache des instructions.
+     *
+     * @param rom
+     *            le fichier de la cartouche à simuler
+     * @return le résultat de la simulation
+     */
+    public Result run(File rom) {
+        try {
+            GameBoy gameBoy = new GameBoy(Cartridge.ofFile(rom));
+            gameBoy.cpu().setCodeCacheEnabled(codeCache);
+            gameBoy.lcdController().setRenderer(renderer);
+            long[] hash = new long[1];
+            int[] images = new int[1];
+            gameBoy.lcdController().setFrameListener(image -> {
+                hash[0] = hash[0] * HASH_MULTIPLIER + image.hashCode();
+                images[0]++;
+            });
+            long start = System.nanoTime();
+            for (long f = 1; f <= frames; f++) {
+                script.runUntil(gameBoy, f * LcdController.CYCLES_PER_FRAME);
+            }
+            return new Result(rom, hash[0], images[0], System.nanoTime() - start, null);
+        } catch (IOException | RuntimeException e) {
+            // Une erreur de simulation est rapportée dans le résultat de la cartouche, sans interrompre les suivantes
+            return new Result(rom, 0, 0, 0, e.toString());
+        }
+    }
+
+    /**
+     * Simule, l'une après l'autre, chacune des cartouches données et retourne les résultats dans le même ordre.
+     *
+     * @param roms
+     *            les fichiers des cartouches à simuler
+     * @return les résultats des simulations
+     */
+    public List<Result> run(List<File> roms) {
+        List<Result> results = new ArrayList<>(roms.size());
+        for (File rom : roms) {
+            results.add(run(rom));
+        }
+        return results;
+    }
+
+    /**
+     * Retourne la liste, triée par nom, des cartouches du dossier donné.
+     *
+     * @param directory
+     *            le dossier contenant les cartouches
+     * @throws IOException
+     *             si le dossier ne peut pas être lu
+     * @return les fichiers des cartouches du dossier
+     */
+    public static List<File> romsIn(File directory) throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(ROM_EXTENSION));
+        if (files == null) {
+            throw new IOException("Dossier illisible : " + directory);
+        }
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+
+    /**
+     * Lit un fichier d'empreintes de référence, écrit par writeGolden.
+     *
+     * @param file
+     *            le fichier d'empreintes
+     * @throws IOException
+     *             en cas d'erreur de lecture du fichier
+     * @throws IllegalArgumentException
+     *             si une ligne du fichier est mal formée
+     * @return les empreintes, associées aux noms des fichiers des cartouches
+     */
+    public static Map<String, Long> readGolden(File file) throws IOException {
+        Map<String, Long> hashes = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            if (line.trim().isEmpty() || line.startsWith(COMMENT_PREFIX)) {
+                continue;
+            }
+            // Le nom d'une cartouche peut contenir des espaces, l'empreinte est donc placée en premier
+            String[] parts = line.split(" ", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Ligne d'empreinte invalide : " + line);
+            }
+            hashes.put(parts[1].trim(), Long.parseUnsignedLong(parts[0], 16));
+        }
+        return hashes;
+    }
+
+    /**
+     * Retourne le nombre d'images simulées indiqué dans l'en-tête du fichier d'empreintes de référence donné.
+     *
+     * @param file
+     *            le fichier d'empreintes
+     * @throws IOException
+     *             en cas d'erreur de lecture du fichier
+     * @throws IllegalArgumentException
+     *             si le fichier n'indique pas le nombre d'images
+     * @return le nombre d'images simulées pour obtenir les empreintes
+     */
+    public static long goldenFrames(File file) throws IOException {
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            if (line.startsWith(FRAMES_HEADER)) {
+                return Long.parseLong(line.substring(FRAMES_HEADER.length()).trim());
+            }
+        }
+        throw new IllegalArgumentException("Nombre d'images absent de " + file);
+    }
+
+    /**
+     * Écrit dans le fichier donné les empreintes des résultats donnés ne comportant pas d'erreur, précédées du nombre
+     * d'images simulées.
+     *
+     * @param file
+     *            le fichier d'empreintes
+     * @param results
+     *            les résultats dont les empreintes sont à écrire
+     * @throws IOException
+     *             en cas d'erreur d'écriture du fichier
+     */
+    public void writeGolden(File file, List<Result> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(FRAMES_HEADER + frames);
+        for (Result r : results) {
+            if (r.error() == null) {
+                lines.add(String.format(Locale.ROOT, "%016x %s", r.hash(), r.rom().getName()));
+            }
+        }
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Méthode principale du vérificateur. Les arguments sont une liste de fichiers de cartouches ou de dossiers (dont
+     * toutes les cartouches sont alors simulées, data/ROMs par défaut), éventuellement précédés des options
+     * --golden fichier, --script fichier, --frames n, --code-cache, --direct-renderer et --update. Sans --update, le
+     * programme se termine avec le code 1 si une empreinte diffère de celle de référence, si la simulation d'une
+     * cartouche ayant une empreinte de référence échoue ou, lorsqu'aucune cartouche n'est donnée, si une cartouche
+     * ayant une empreinte de référence n'a pas été simulée ; avec, le fichier d'empreintes est réécrit à partir des
+     * résultats.
+     *
+     * @param args
+     *            les arguments de la ligne de commande
+     * @throws IOException
+     *             en cas d'erreur de lecture ou d'écriture des fichiers
+     */
+    public static void main(String[] args) throws IOException {
+        File golden = DEFAULT_GOLDEN_FILE;
+        InputScript script = null;
+        long frames = -1;
+        boolean codeCache = false;
+        LcdController.Renderer renderer = LcdController.Renderer.BIT_VECTOR;
+        boolean update = false;
+        List<File> roms = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+            case "--golden":
+                golden = new File(args[++i]);
+                break;
+            case "--script":
+                script = InputScript.ofFile(new File(args[++i]));
+                break;
+            case "--frames":
+                frames = Long.parseLong(args[++i]);
+                break;
+            case "--code-cache":
+                codeCache = true;
+                break;
+            case "--direct-renderer":
+                renderer = LcdController.Renderer.DIRECT;
+                break;
+            case "--update":
+                update = true;
+                break;
+            default:
+                File file = new File(args[i]);
+                roms.addAll(file.isDirectory() ? romsIn(file) : Arrays.asList(file));
+                break;
+            }
+        }
+        boolean allRoms = roms.isEmpty();
+        if (allRoms) {
+            roms.addAll(romsIn(ROM_DIRECTORY));
+        }
+        if (script == null) {
+            script = InputScript.ofFile(DEFAULT_SCRIPT_FILE);
+        }
+        Map<String, Long> expected = golden.exists() && !update ? readGolden(golden) : new LinkedHashMap<>();
+        if (frames < 0) {
+            frames = golden.exists() ? goldenFrames(golden) : DEFAULT_FRAMES;
+        }
+
+        FrameHashRegression regression = new FrameHashRegression(frames, script, codeCache, renderer);
+        List<Result> results = regression.run(roms);
+        int failures = 0;
+        Set<String> missing = new LinkedHashSet<>(expected.keySet());
+        for (Result r : results) {
+            String name = r.rom().getName();
+            missing.remove(name);
+            if (r.error() != null) {
+                System.out.printf(Locale.ROOT, "%-20s %s%n", name, r.error());
+                if (expected.containsKey(name)) {
+                    failures++;
+                }
+                continue;
+            }
+            String status;
+            if (update) {
+                status = "ÉCRIT";
+            } else if (!expected.containsKey(name)) {
+                status = "NOUVEAU";
+            } else if (expected.get(name) == r.hash()) {
+                status = "OK";
+            } else {
+                status = "DIFFÉRENT";
+                failures++;
+            }
+            System.out.printf(Locale.ROOT, "%-20s %016x %-9s %5d images %7d ms %8.1f images/s%n", name, r.hash(),
+                    status, r.images(), r.nanoTime() / 1_000_000,
+                    r.nanoTime() == 0 ? 0 : frames / (double) r.nanoTime() * NANOSECONDS_PER_SECOND);
+        }
+        if (allRoms) {
+            for (String name : missing) {
+                System.out.printf(Locale.ROOT, "%-20s %-16s %s%n", name, "", "ABSENT");
+                failures++;
+            }
+        }
+        if (update) {
+            regression.writeGolden(golden, results);
+        } else if (failures > 0) {
+            System.out.printf(Locale.ROOT, "%d cartouche(s) en échec%n", failures);
+            System.exit(1);
+        }
+    }
+}
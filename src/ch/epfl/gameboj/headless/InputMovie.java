@@ -0,0 +1,251 @@
+/**
+* Représente un film d'entrées, c-à-d l'enregistrement des pressions et relâchements de touches effectués pendant une
+* partie, chacun associé au cycle exact auquel il a eu lieu, qui permet de rejouer cette partie à l'identique. Un film
+* commence soit à la mise sous tension du GameBoy, la mémoire vive de la cartouche étant alors vide, soit à partir d'un
+* état sauvegardé ; seuls les premiers restent utilisables d'une version du simulateur à l'autre, le format des états
+* pouvant changer.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.headless;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import ch.epfl.gameboj.GameBoy;
+import ch.epfl.gameboj.Preconditions;
+import ch.epfl.gameboj.component.Joypad.Key;
+
+public final class InputMovie {
+    private static final int MAGIC = 0x47424A4D; // "GBJM"
+    private static final int VERSION = 1;
+
+    private final long romChecksum;
+    private final long startCycle;
+    private final byte[] startState;
+    private final long endCycle;
+    private final InputScript script;
+
+    /**
+     * Construit un film d'entrées.
+     *
+     * @param romChecksum
+     *            la somme de contrôle de la mémoire morte de la cartouche du film (voir Cartridge.romChecksum)
+     * @param startState
+     *            l'état sauvegardé (voir GameBoy.saveState) à partir duquel commence le film, ou null s'il commence à
+     *            la mise sous tension
+     * @param startCycle
+     *            le cycle auquel commence le film, qui doit être celui de l'état sauvegardé, ou 0 s'il n'y en a pas
+     * @param endCycle
+     *            le cycle auquel se termine le film
+     * @param script
+     *            les événements du film
+     * @throws IllegalArgumentException
+     *             si le cycle de début est négatif, non nul en l'absence d'état, ou strictement supérieur au cycle de
+     *             fin, ou si un événement a lieu avant le début ou après la fin du film
+     * @throws NullPointerException
+     *             si le script est nul
+     */
+    public InputMovie(long romChecksum, byte[] startState, long startCycle, long endCycle, InputScript script) {
+        Preconditions.checkArgument(startCycle >= 0 && startCycle <= endCycle);
+        Preconditions.checkArgument(startState != null || startCycle == 0);
+        List<InputScript.Event> events = Objects.requireNonNull(script).events();
+        Preconditions.checkArgument(events.isEmpty() || events.get(0).cycle() >= startCycle
+                && events.get(events.size() - 1).cycle() < endCycle);
+        this.romChecksum = romChecksum;
+        this.startState = startState == null ? null : startState.clone();
+        this.startCycle = startCycle;
+        this.endCycle = endCycle;
+        this.script = script;
+    }
+
+    /**
+     * Lit un film depuis le fichier donné, écrit par writeTo.
+     *
+     * @param file
+     *            le fichier contenant le film
+     * @throws IOException
+     *             en cas d'erreur de lecture du fichier
+     * @throws IllegalArgumentException
+     *             si le fichier ne contient pas un film valide
+     * @return le film lu
+     */
+    public static InputMovie ofFile(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))))) {
+            Preconditions.checkArgument(in.readInt() == MAGIC);
+            Preconditions.checkArgument(in.readInt() == VERSION);
+            long romChecksum = in.readLong();
+            long startCycle = in.readLong();
+            long endCycle = in.readLong();
+            int stateLength = in.readInt();
+            byte[] startState = null;
+            if (stateLength >= 0) {
+                startState = new byte[stateLength];
+                in.readFully(startState);
+            }
+            int eventCount = in.readInt();
+            Preconditions.checkArgument(eventCount >= 0);
+            Key[] keys = Key.values();
+            List<InputScript.Event> events = new ArrayList<>(eventCount);
+            for (int i = 0; i < eventCount; i++) {
+                long cycle = in.readLong();
+                int key = in.readUnsignedByte();
+                Preconditions.checkArgument(key < keys.length);
+                events.add(new InputScript.Event(cycle, keys[key], in.readBoolean()));
+            }
+            return new InputMovie(romChecksum, startState, startCycle, endCycle, new InputScript(events));
+        }
+    }
+
+    /**
+     * Écrit le film dans le fichier donné, sous une forme compressée.
+     *
+     * @param file
+     *            le fichier dans lequel écrire le film
+     * @throws IOException
+     *             en cas d'erreur d'écriture du fichier
+     */
+    public void writeTo(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(romChecksum);
+            out.writeLong(startCycle);
+            out.writeLong(endCycle);
+            if (startState == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(startState.length);
+                out.write(startState);
+            }
+            List<InputScript.Event> events = script.events();
+            out.writeInt(events.size());
+            for (InputScript.Event e : events) {
+                out.writeLong(e.cycle());
+                out.writeByte(e.key().ordinal());
+                out.writeBoolean(e.pressed());
+            }
+        }
+    }
+
+    /**
+     * Retourne la somme de contrôle de la mémoire morte de la cartouche du film.
+     *
+     * @return la somme de contrôle de la cartouche
+     */
+    public long romChecksum() {
+        return romChecksum;
+    }
+
+    /**
+     * Retourne vrai si le film commence à la mise sous tension du GameBoy, faux s'il commence à partir d'un état
+     * sauvegardé.
+     *
+     * @return vrai si le film commence à la mise sous tension
+     */
+    public boolean startsAtPowerOn() {
+        return startState == null;
+    }
+
+    /**
+     * Retourne le cycle auquel commence le film.
+     *
+     * @return le cycle de début du film
+     */
+    public long startCycle() {
+        return startCycle;
+    }
+
+    /**
+     * Retourne le cycle auquel se termine le film.
+     *
+     * @return le cycle de fin du film
+     */
+    public long endCycle() {
+        return endCycle;
+    }
+
+    /**
+     * Retourne les événements du film.
+     *
+     * @return le script des événements du film
+     */
+    public InputScript script() {
+        return script;
+    }
+
+    /**
+     * Prépare le GameBoy donné à rejouer le film : vérifie que sa cartouche est celle du film, puis, si le film ne
+     * commence pas à la mise sous tension, charge l'état à partir duquel il commence. Le film peut ensuite être rejoué
+     * au moyen de runUntil, éventuellement en plusieurs fois.
+     *
+     * @param gameBoy
+     *            le GameBoy sur lequel rejouer le film
+     * @throws IllegalArgumentException
+     *             si la cartouche du GameBoy n'est pas celle du film, si le film commence à la mise sous tension et
+     *             que le GameBoy a déjà été simulé, ou si l'état du film n'est pas valide pour ce GameBoy
+     */
+    public void start(GameBoy gameBoy) {
+        if (gameBoy.cartridge().romChecksum() != romChecksum) {
+            throw new IllegalArgumentException("Le film n'a pas été enregistré avec cette cartouche");
+        }
+        if (startState == null) {
+            Preconditions.checkArgument(gameBoy.cycles() == 0);
+        } else {
+            gameBoy.loadState(startState);
+            Preconditions.checkArgument(gameBoy.cycles() == startCycle);
+        }
+    }
+
+    /**
+     * Simule le GameBoy donné, préparé par start, jusqu'au cycle donné (mais au plus jusqu'à la fin du film), en lui
+     * appliquant les événements du film exactement aux cycles auxquels ils ont été enregistrés.
+     *
+     * @param gameBoy
+     *            le GameBoy sur lequel rejouer le film
+     * @param cycle
+     *            le cycle jusqu'auquel simuler
+     * @throws IllegalArgumentException
+     *             si un nombre (strictement) supérieur de cycles a déjà été simulé
+     */
+    public void runUntil(GameBoy gameBoy, long cycle) {
+        script.runUntil(gameBoy, Math.min(cycle, endCycle));
+    }
+
+    /**
+     * Rejoue entièrement le film sur le GameBoy donné, c-à-d le prépare puis le simule jusqu'à la fin du film.
+     *
+     * @param gameBoy
+     *            le GameBoy sur lequel rejouer le film
+     * @throws IllegalArgumentException
+     *             si le film ne peut pas être rejoué sur ce GameBoy (voir start)
+     */
+    public void play(GameBoy gameBoy) {
+        start(gameBoy);
+        runUntil(gameBoy, endCycle);
+    }
+
+    /**
+     * Retourne le nombre de cycles que dure le film.
+     *
+     * @return la durée du film, en cycles
+     */
+    public long length() {
+        return endCycle - startCycle;
+    }
+}
@@ -0,0 +1,119 @@
+/**
+* Enregistre, sous la forme d'un film d'entrées, les pressions et relâchements des touches du clavier d'un GameBoy,
+* chacun associé au cycle du GameBoy auquel il a lieu.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.headless;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import ch.epfl.gameboj.GameBoy;
+import ch.epfl.gameboj.component.Joypad;
+import ch.epfl.gameboj.component.Joypad.Key;
+
+public final class InputRecorder implements Joypad.KeyListener {
+    private final GameBoy gameBoy;
+    private final long romChecksum;
+    private final long startCycle;
+    private final byte[] startState;
+    private final List<InputScript.Event> events;
+    private boolean recording;
+    private boolean restoredBeforeStart;
+
+    /**
+     * Construit un enregistreur pour le GameBoy donné et commence l'enregistrement, en devenant l'observateur de son
+     * clavier. Si le GameBoy n'a pas encore été simulé, le film commence à sa mise sous tension, sinon il commence à
+     * partir de son état actuel, qui est sauvegardé. Toutes les méthodes de l'enregistreur doivent être appelées sur
+     * le fil d'exécution qui simule le GameBoy.
+     *
+     * @param gameBoy
+     *            le GameBoy dont les entrées sont à enregistrer
+     * @throws NullPointerException
+     *             si le GameBoy est nul
+     */
+    public InputRecorder(GameBoy gameBoy) {
+        this.gameBoy = Objects.requireNonNull(gameBoy);
+        romChecksum = gameBoy.cartridge().romChecksum();
+        startCycle = gameBoy.cycles();
+        startState = startCycle == 0 ? null : gameBoy.saveState();
+        events = new ArrayList<>();
+        recording = true;
+        gameBoy.joypad().setKeyListener(this);
+    }
+
+    /**
+     * Enregistre la pression ou le relâchement d'une touche au cycle actuel du GameBoy.
+     *
+     * @see ch.epfl.gameboj.component.Joypad.KeyListener#keyChanged(ch.epfl.gameboj.component.Joypad.Key, boolean)
+     */
+    @Override
+    public void keyChanged(Key k, boolean pressed) {
+        if (recording) {
+            events.add(new InputScript.Event(gameBoy.cycles(), k, pressed));
+        }
+    }
+
+    /**
+     * Oublie les événements enregistrés au cycle de l'état restauré ou après, puisqu'ils n'ont plus eu lieu : le
+     * GameBoy a été ramené à un état antérieur, par exemple par un tampon de retour en arrière. Le cycle du GameBoy
+     * est restauré avant l'état de ses composants, il est donc déjà celui de l'état restauré. Un état est considéré
+     * comme antérieur aux événements de son cycle, les pressions et relâchements de touches ayant lieu entre deux
+     * simulations.
+     *
+     * @see ch.epfl.gameboj.component.Joypad.KeyListener#stateLoaded()
+     */
+    @Override
+    public void stateLoaded() {
+        long cycle = gameBoy.cycles();
+        if (cycle < startCycle) {
+            restoredBeforeStart = true;
+        }
+        forgetEventsAfter(cycle - 1);
+    }
+
+    /**
+     * Retourne le nombre d'événements enregistrés jusqu'à présent.
+     *
+     * @return le nombre d'événements enregistrés
+     */
+    public int eventCount() {
+        return events.size();
+    }
+
+    /**
+     * Termine l'enregistrement, en cessant d'être l'observateur du clavier du GameBoy, et retourne le film enregistré,
+     * qui se termine au cycle actuel du GameBoy.
+     *
+     * @throws IllegalStateException
+     *             si l'enregistrement est déjà terminé, ou si le GameBoy a été ramené, au cours de l'enregistrement, à
+     *             un état antérieur au début de celui-ci
+     * @return le film enregistré
+     */
+    public InputMovie finish() {
+        if (!recording) {
+            throw new IllegalStateException("L'enregistrement est déjà terminé");
+        }
+        recording = false;
+        if (gameBoy.joypad().keyListener() == this) {
+            gameBoy.joypad().setKeyListener(null);
+        }
+        long endCycle = gameBoy.cycles();
+        if (restoredBeforeStart || endCycle < startCycle) {
+            throw new IllegalStateException("Le GameBoy a été ramené avant le début de l'enregistrement");
+        }
+        // Les événements ayant lieu au cycle de fin n'auraient pas été appliqués lors de la lecture du film
+        forgetEventsAfter(endCycle - 1);
+        return new InputMovie(romChecksum, startState, startCycle, endCycle, new InputScript(events));
+    }
+
+    private void forgetEventsAfter(long cycle) {
+        while (!events.isEmpty() && events.get(events.size() - 1).cycle() > cycle) {
+            events.remove(events.size() - 1);
+        }
+    }
+}
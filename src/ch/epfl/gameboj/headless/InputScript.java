@@ -0,0 +1,198 @@
+/**
+* Représente un script d'entrées, c-à-d une suite de pressions et de relâchements de touches du clavier du GameBoy,
+* chacun associé au cycle auquel il doit avoir lieu.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.headless;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import ch.epfl.gameboj.GameBoy;
+import ch.epfl.gameboj.Preconditions;
+import ch.epfl.gameboj.component.Joypad;
+import ch.epfl.gameboj.component.Joypad.Key;
+
+public final class InputScript {
+    private static final String COMMENT_PREFIX = "#";
+    private static final String PRESS = "press";
+    private static final String RELEASE = "release";
+
+    /**
+     * Script ne contenant aucun événement.
+     */
+    public static final InputScript EMPTY = new InputScript(Collections.emptyList());
+
+    private final List<Event> events;
+
+    /**
+     * Représente un événement du script : la pression ou le relâchement d'une touche à un cycle donné.
+     */
+    public static final class Event {
+        private final long cycle;
+        private final Key key;
+        private final boolean pressed;
+
+        /**
+         * Construit un événement.
+         *
+         * @param cycle
+         *            le cycle auquel l'événement a lieu
+         * @param key
+         *            la touche concernée
+         * @param pressed
+         *            vrai si la touche est pressée, faux si elle est relâchée
+         * @throws IllegalArgumentException
+         *             si le cycle est négatif
+         * @throws NullPointerException
+         *             si la touche est nulle
+         */
+        public Event(long cycle, Key key, boolean pressed) {
+            Preconditions.checkArgument(cycle >= 0);
+            this.cycle = cycle;
+            this.key = Objects.requireNonNull(key);
+            this.pressed = pressed;
+        }
+
+        /**
+         * Retourne le cycle auquel l'événement a lieu.
+         *
+         * @return le cycle de l'événement
+         */
+        public long cycle() {
+            return cycle;
+        }
+
+        /**
+         * Retourne la touche concernée par l'événement.
+         *
+         * @return la touche de l'événement
+         */
+        public Key key() {
+            return key;
+        }
+
+        /**
+         * Retourne vrai si l'événement est une pression, faux si c'est un relâchement.
+         *
+         * @return vrai si la touche est pressée
+         */
+        public boolean pressed() {
+            return pressed;
+        }
+
+        /**
+         * Applique l'événement au clavier donné.
+         *
+         * @param joypad
+         *            le clavier auquel appliquer l'événement
+         */
+        public void applyTo(Joypad joypad) {
+            if (pressed) {
+                joypad.keyPressed(key);
+            } else {
+                joypad.keyReleased(key);
+            }
+        }
+    }
+
+    /**
+     * Construit un script à partir de la liste d'événements donnée, qui sont triés par cycle croissant.
+     *
+     * @param events
+     *            les événements du script
+     */
+    public InputScript(List<Event> events) {
+        List<Event> sorted = new ArrayList<>(events);
+        sorted.sort(Comparator.comparingLong(Event::cycle));
+        this.events = Collections.unmodifiableList(sorted);
+    }
+
+    /**
+     * Lit un script depuis le fichier texte donné. Chaque ligne non vide qui ne commence pas par # est de la forme
+     * "cycle press|release touche", par exemple "35112 press START".
+     *
+     * @param file
+     *            le fichier contenant le script
+     * @throws IOException
+     *             en cas d'erreur de lecture du fichier
+     * @throws IllegalArgumentException
+     *             si une ligne du fichier est mal formée
+     * @return le script lu
+     */
+    public static InputScript ofFile(File file) throws IOException {
+        List<Event> events = new ArrayList<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith(COMMENT_PREFIX)) {
+                continue;
+            }
+            String[] parts = trimmed.split("\\s+");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Ligne de script invalide : " + line);
+            }
+            String action = parts[1].toLowerCase(Locale.ROOT);
+            Preconditions.checkArgument(action.equals(PRESS) || action.equals(RELEASE));
+            events.add(new Event(Long.parseLong(parts[0]), Key.valueOf(parts[2].toUpperCase(Locale.ROOT)),
+                    action.equals(PRESS)));
+        }
+        return new InputScript(events);
+    }
+
+    /**
+     * Retourne la liste (non modifiable) des événements du script, triés par cycle croissant.
+     *
+     * @return les événements du script
+     */
+    public List<Event> events() {
+        return events;
+    }
+
+    /**
+     * Simule le GameBoy donné jusqu'au cycle donné, en appliquant à son clavier, exactement au bon cycle, chacun des
+     * événements du script ayant lieu entre le cycle actuel du GameBoy (compris) et le cycle donné (non compris).
+     *
+     * @param gameBoy
+     *            le GameBoy à simuler
+     * @param cycle
+     *            le cycle jusqu'auquel simuler
+     */
+    public void runUntil(GameBoy gameBoy, long cycle) {
+        for (int i = firstEventIndex(gameBoy.cycles()); i < events.size() && events.get(i).cycle() < cycle; i++) {
+            gameBoy.runUntil(events.get(i).cycle());
+            events.get(i).applyTo(gameBoy.joypad());
+        }
+        gameBoy.runUntil(cycle);
+    }
+
+    /**
+     * Retourne, par recherche dichotomique, l'indice du premier événement ayant lieu au cycle donné ou après.
+     *
+     * @param cycle
+     *            le cycle à partir duquel chercher
+     * @return l'indice du premier événement dont le cycle est supérieur ou égal au cycle donné
+     */
+    private int firstEventIndex(long cycle) {
+        int low = 0, high = events.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (events.get(middle).cycle() < cycle) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
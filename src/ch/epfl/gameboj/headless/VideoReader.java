@@ -0,0 +1,157 @@
+/**
+* Lit, image par image, un fichier vidéo écrit par VideoRecorder.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.headless;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import ch.epfl.gameboj.Preconditions;
+
+public final class VideoReader implements AutoCloseable {
+    private final DataInputStream input;
+    private final int width;
+    private final int height;
+    private final int frameCount;
+    private final byte[] packed;
+    private final byte[] data;
+    private final Inflater inflater;
+    private byte[] compressed;
+    private int framesRead;
+
+    /**
+     * Ouvre le fichier vidéo donné et lit son en-tête.
+     *
+     * @param file
+     *            le fichier vidéo
+     * @throws IOException
+     *             en cas d'erreur de lecture, ou si le fichier n'est pas un fichier vidéo de la version actuelle
+     */
+    public VideoReader(File file) throws IOException {
+        input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (input.readInt() != VideoRecorder.MAGIC || input.readInt() != VideoRecorder.VERSION) {
+                throw new IOException("Fichier vidéo invalide : " + file);
+            }
+            width = input.readUnsignedShort();
+            height = input.readUnsignedShort();
+            input.readInt();
+            frameCount = input.readInt();
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+        packed = new byte[width * height / VideoRecorder.PIXELS_PER_BYTE];
+        data = new byte[packed.length];
+        inflater = new Inflater();
+        compressed = new byte[packed.length];
+    }
+
+    /**
+     * Retourne la largeur des images.
+     *
+     * @return la largeur des images, en pixels
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Retourne la hauteur des images.
+     *
+     * @return la hauteur des images, en pixels
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Retourne le nombre d'images du fichier.
+     *
+     * @return le nombre d'images
+     */
+    public int frameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Lit l'image suivante et écrit les couleurs de ses pixels dans le tableau donné, ligne par ligne, à raison d'un
+     * octet par pixel.
+     *
+     * @param pixels
+     *            le tableau dans lequel écrire les couleurs, entre 0 et 3, le pixel (x, y) étant à l'index
+     *            y * width() + x
+     * @throws IOException
+     *             en cas d'erreur de lecture, ou si le fichier est corrompu
+     * @throws IllegalArgumentException
+     *             si le tableau est trop petit
+     * @return vrai si une image a été lue, faux si toutes l'ont déjà été
+     */
+    public boolean readFrame(byte[] pixels) throws IOException {
+        Preconditions.checkArgument(pixels.length >= width * height);
+        if (framesRead == frameCount) {
+            return false;
+        }
+        int type = input.readUnsignedByte();
+        int length = input.readInt();
+        switch (type) {
+        case VideoRecorder.KEYFRAME:
+            if (length != packed.length) {
+                throw new IOException("Image clef de taille invalide : " + length);
+            }
+            input.readFully(packed);
+            break;
+        case VideoRecorder.DELTA:
+            if (compressed.length < length) {
+                compressed = new byte[length];
+            }
+            input.readFully(compressed, 0, length);
+            inflate(length);
+            for (int i = 0; i < packed.length; i++) {
+                packed[i] ^= data[i];
+            }
+            break;
+        default:
+            throw new IOException("Type d'image inconnu : " + type);
+        }
+        for (int i = 0; i < width * height; i++) {
+            pixels[i] = (byte) ((packed[i / VideoRecorder.PIXELS_PER_BYTE] >> 2 * (i % VideoRecorder.PIXELS_PER_BYTE))
+                    & 0b11);
+        }
+        framesRead++;
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.AutoCloseable#close()
+     */
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        input.close();
+    }
+
+    private void inflate(int length) throws IOException {
+        inflater.reset();
+        inflater.setInput(compressed, 0, length);
+        try {
+            if (inflater.inflate(data) != data.length) {
+                throw new EOFException("Image différentielle incomplète");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/**
+* Enregistre dans un fichier les images calculées par le contrôleur LCD d'un GameBoy, sans passer par l'interface
+* graphique. Les images sont transmises par une file bornée à un fil d'exécution dédié, qui les encode et les écrit,
+* de sorte que la simulation n'est ralentie que si celui-ci ne parvient pas à suivre.
+*
+* Le fichier commence par un en-tête (le nombre magique "GBJV", la version du format, la largeur et la hauteur des
+* images, l'intervalle entre les images clefs et le nombre d'images), suivi des images. Chacune d'elles est formée de
+* son type, de la taille de ses données et de ses données : une image clef contient les couleurs de ses pixels, à
+* raison de deux bits par pixel, une image différentielle leur ou exclusif avec celles de l'image précédente,
+* compressé.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.headless;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.Deflater;
+
+import ch.epfl.gameboj.Preconditions;
+import ch.epfl.gameboj.SpscQueue;
+import ch.epfl.gameboj.component.lcd.LcdController;
+import ch.epfl.gameboj.component.lcd.LcdImage;
+
+public final class VideoRecorder implements LcdController.FrameListener, AutoCloseable {
+    /**
+     * Nombre magique au début de chaque fichier vidéo, "GBJV"
+     */
+    public static final int MAGIC = 0x47424A56;
+    /**
+     * Version du format des fichiers vidéo
+     */
+    public static final int VERSION = 1;
+    /**
+     * Type d'une image clef, dont les données sont les couleurs des pixels
+     */
+    public static final int KEYFRAME = 0;
+    /**
+     * Type d'une image différentielle, dont les données sont la différence compressée avec l'image précédente
+     */
+    public static final int DELTA = 1;
+
+    static final int HEADER_SIZE = 4 + 4 + 2 + 2 + 4 + 4;
+    static final int PIXELS_PER_BYTE = 4;
+
+    // Une seconde d'images peut attendre d'être écrite
+    private static final int QUEUE_CAPACITY = 64;
+    private static final long EMPTY_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int FRAME_COUNT_POSITION = HEADER_SIZE - 4;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int keyframeInterval;
+    private final SpscQueue<LcdImage> images;
+    private final Thread writer;
+    private volatile boolean closing;
+    private volatile int frames;
+    private volatile IOException error;
+
+    // Utilisés uniquement par le fil d'écriture
+    private final int[] row;
+    private final Deflater deflater;
+    private byte[] packed;
+    private byte[] previous;
+    private final byte[] compressed;
+    private final ByteBuffer record;
+
+    /**
+     * Construit un enregistreur écrivant dans le fichier donné, créé ou tronqué, les images de la taille de l'écran,
+     * et démarre son fil d'écriture.
+     *
+     * @param file
+     *            le fichier vidéo
+     * @param keyframeInterval
+     *            le nombre d'images séparant deux images clefs, 1 pour n'écrire que des images clefs
+     * @throws IOException
+     *             en cas d'erreur d'ouverture du fichier
+     * @throws IllegalArgumentException
+     *             si l'intervalle n'est pas strictement positif
+     */
+    public VideoRecorder(File file, int keyframeInterval) throws IOException {
+        Preconditions.checkArgument(keyframeInterval > 0);
+        this.keyframeInterval = keyframeInterval;
+        this.file = new RandomAccessFile(file, "rw");
+        this.file.setLength(0);
+        channel = this.file.getChannel();
+        images = new SpscQueue<>(QUEUE_CAPACITY);
+        row = new int[LcdController.LCD_WIDTH];
+        deflater = new Deflater(Deflater.BEST_SPEED);
+        int size = LcdController.LCD_WIDTH * LcdController.LCD_HEIGHT / PIXELS_PER_BYTE;
+        packed = new byte[size];
+        previous = new byte[size];
+        // Taille maximale des données compressées, selon la documentation de zlib
+        compressed = new byte[size + (size >> 12) + (size >> 14) + (size >> 25) + 13];
+        record = ByteBuffer.allocate(1 + 4 + compressed.length);
+
+        // Le nombre d'images est complété à la fermeture
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putShort((short) LcdController.LCD_WIDTH)
+                .putShort((short) LcdController.LCD_HEIGHT).putInt(keyframeInterval).putInt(0).flip();
+        writeFully(header);
+
+        writer = new Thread(this::write, "video-recorder");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Transmet l'image donnée au fil d'écriture, en attendant qu'il y ait de la place dans la file si nécessaire.
+     * Cette méthode est appelée par le contrôleur LCD, sur le fil d'exécution de la simulation.
+     *
+     * @see ch.epfl.gameboj.component.lcd.LcdController.FrameListener#frameCompleted(ch.epfl.gameboj.component.lcd.LcdImage)
+     */
+    @Override
+    public void frameCompleted(LcdImage image) {
+        while (!images.offer(image)) {
+            if (!writer.isAlive()) {
+                return;
+            }
+            Thread.yield();
+        }
+        LockSupport.unpark(writer);
+    }
+
+    /**
+     * Retourne le nombre d'images déjà écrites.
+     *
+     * @return le nombre d'images écrites
+     */
+    public int frames() {
+        return frames;
+    }
+
+    /**
+     * Écrit les images encore dans la file, complète l'en-tête avec le nombre d'images, arrête le fil d'écriture et
+     * ferme le fichier. L'enregistreur ne doit plus recevoir d'images.
+     *
+     * @throws IOException
+     *             en cas d'erreur d'écriture, y compris sur le fil d'écriture, ou de fermeture du fichier
+     */
+    @Override
+    public void close() throws IOException {
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (error != null) {
+                throw error;
+            }
+            ByteBuffer count = ByteBuffer.allocate(4).putInt(0, frames);
+            channel.write(count, FRAME_COUNT_POSITION);
+        } finally {
+            file.close();
+        }
+    }
+
+    private void write() {
+        try {
+            LcdImage image;
+            while ((image = images.poll()) != null || !closing) {
+                if (image == null) {
+                    LockSupport.parkNanos(EMPTY_WAIT_NANOS);
+                } else {
+                    writeFrame(image);
+                }
+            }
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    private void writeFrame(LcdImage image) throws IOException {
+        pack(image, packed);
+
+        record.clear();
+        if (frames % keyframeInterval == 0) {
+            record.put((byte) KEYFRAME).putInt(packed.length).put(packed);
+        } else {
+            for (int i = 0; i < packed.length; i++) {
+                previous[i] ^= packed[i];
+            }
+            deflater.reset();
+            deflater.setInput(previous);
+            deflater.finish();
+            int length = deflater.deflate(compressed);
+            record.put((byte) DELTA).putInt(length).put(compressed, 0, length);
+        }
+        record.flip();
+        writeFully(record);
+
+        byte[] t = previous;
+        previous = packed;
+        packed = t;
+        frames++;
+    }
+
+    private void pack(LcdImage image, byte[] out) {
+        int i = 0;
+        for (int y = 0; y < image.height(); y++) {
+            image.copyRowTo(y, row);
+            for (int x = 0; x < image.width(); x += PIXELS_PER_BYTE) {
+                out[i++] = (byte) (row[x] | row[x + 1] << 2 | row[x + 2] << 4 | row[x + 3] << 6);
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/**
+* Écrit dans un fichier WAV les échantillons produits par l'unité de traitement audio d'un GameBoy, lorsque celui-ci
+* est simulé sans interface graphique.
+*
+*@author Vignoud Julien (282142)
+*@author Benhaim Julien (284558)
+*/
+
+package ch.epfl.gameboj.headless;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import ch.epfl.gameboj.component.apu.Apu;
+import ch.epfl.gameboj.component.apu.SampleBuffer;
+
+public final class WavWriter implements AutoCloseable {
+    private static final int HEADER_SIZE = 44;
+    private static final int CHANNELS = 2;
+    private static final int BYTES_PER_SAMPLE = 2;
+    private static final int CHUNK_SAMPLES = 4096;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final short[] samples;
+    private final ByteBuffer bytes;
+    private long dataSize;
+
+    /**
+     * Construit un écrivain de fichier WAV stéréo, 16 bits, à la fréquence d'échantillonnage de l'unité de traitement
+     * audio. Le fichier est créé, ou tronqué s'il existe déjà.
+     *
+     * @param file
+     *            le fichier à écrire
+     * @throws IOException
+     *             en cas d'erreur d'ouverture du fichier
+     */
+    public WavWriter(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "rw");
+        this.file.setLength(0);
+        channel = this.file.getChannel();
+        samples = new short[CHUNK_SAMPLES];
+        bytes = ByteBuffer.allocate(CHUNK_SAMPLES * BYTES_PER_SAMPLE).order(ByteOrder.LITTLE_ENDIAN);
+        // L'en-tête est réécrit à la fermeture, lorsque la taille des données est connue
+        writeHeader();
+    }
+
+    /**
+     * Vide le tampon donné en écrivant tous les échantillons qu'il contient dans le fichier.
+     *
+     * @param buffer
+     *            le tampon d'échantillons à vider
+     * @throws IOException
+     *             en cas d'erreur d'écriture
+     * @return le nombre d'échantillons écrits
+     */
+    public int drain(SampleBuffer buffer) throws IOException {
+        int total = 0;
+        int read;
+        while ((read = buffer.read(samples, 0, samples.length)) > 0) {
+            bytes.clear();
+            for (int i = 0; i < read; i++) {
+                bytes.putShort(samples[i]);
+            }
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            dataSize += read * BYTES_PER_SAMPLE;
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * Complète l'en-tête du fichier avec la taille des données écrites, puis ferme celui-ci.
+     *
+     * @throws IOException
+     *             en cas d'erreur d'écriture ou de fermeture du fichier
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writeHeader();
+        } finally {
+            file.close();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put("RIFF".getBytes(StandardCharsets.US_ASCII));
+        header.putInt((int) (HEADER_SIZE - 8 + dataSize));
+        header.put("WAVEfmt ".getBytes(StandardCharsets.US_ASCII));
+        header.putInt(16); // taille du bloc de format
+        header.putShort((short) 1); // PCM
+        header.putShort((short) CHANNELS);
+        header.putInt(Apu.SAMPLE_RATE);
+        header.putInt(Apu.SAMPLE_RATE * CHANNELS * BYTES_PER_SAMPLE);
+        header.putShort((short) (CHANNELS * BYTES_PER_SAMPLE));
+        header.putShort((short) (8 * BYTES_PER_SAMPLE));
+        header.put("data".getBytes(StandardCharsets.US_ASCII));
+        header.putInt((int) dataSize);
+        header.flip();
+        long position = channel.position();
+        channel.position(0);
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.position(Math.max(position, HEADER_SIZE));
+    }
+}
@@ -0,0 +1,92 @@
+package ch.epfl.gameboj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.component.Component;
+import ch.epfl.gameboj.component.memory.Ram;
+import ch.epfl.gameboj.component.memory.RamController;
+
+public class BusTest {
+
+    @Test
+    void readReturnsDefaultValueWhenNoComponentCoversAddress() {
+        Bus bus = new Bus();
+        bus.attach(new RamController(new Ram(0x100), 0xC000));
+        assertEquals(0xFF, bus.read(0x1234));
+        assertEquals(0xFF, bus.read(0xC100));
+    }
+
+    @Test
+    void readReturnsValueOfFirstAttachedComponent() {
+        Bus bus = new Bus();
+        Ram ram1 = new Ram(0x10);
+        Ram ram2 = new Ram(0x10);
+        ram1.write(0, 1);
+        ram2.write(0, 2);
+        bus.attach(new RamController(ram1, 0xFF80));
+        bus.attach(new RamController(ram2, 0xFF80));
+        assertEquals(1, bus.read(0xFF80));
+    }
+
+    @Test
+    void readWorksForComponentsSharingAPage() {
+        Bus bus = new Bus();
+        Ram ram1 = new Ram(0x10);
+        Ram ram2 = new Ram(0x10);
+        bus.attach(new RamController(ram1, 0xFF00));
+        bus.attach(new RamController(ram2, 0xFF40));
+        bus.write(0xFF05, 0x12);
+        bus.write(0xFF45, 0x34);
+        assertEquals(0x12, bus.read(0xFF05));
+        assertEquals(0x34, bus.read(0xFF45));
+        assertEquals(0xFF, bus.read(0xFF25));
+    }
+
+    @Test
+    void writeReachesEveryComponentCoveringAddress() {
+        Bus bus = new Bus();
+        Ram ram1 = new Ram(0x10);
+        Ram ram2 = new Ram(0x20);
+        bus.attach(new RamController(ram1, 0xFF80));
+        bus.attach(new RamController(ram2, 0xFF70));
+        bus.write(0xFF81, 0xAB);
+        assertEquals(0xAB, ram1.read(1));
+        assertEquals(0xAB, ram2.read(0x11));
+    }
+
+    @Test
+    void writeIsSentToComponentsCoveringEverything() {
+        Bus bus = new Bus();
+        int[] written = new int[1];
+        bus.attach(new Component() {
+            @Override
+            public int read(int address) {
+                return NO_DATA;
+            }
+
+            @Override
+            public void write(int address, int data) {
+                written[0] = data;
+            }
+        });
+        bus.write(0x4321, 0x42);
+        assertEquals(0x42, written[0]);
+        assertEquals(0xFF, bus.read(0x4321));
+    }
+
+    @Test
+    void readAndWriteFailForInvalidArguments() {
+        Bus bus = new Bus();
+        assertThrows(IllegalArgumentException.class, () -> bus.read(0x10000));
+        assertThrows(IllegalArgumentException.class, () -> bus.write(-1, 0));
+        assertThrows(IllegalArgumentException.class, () -> bus.write(0, 0x100));
+    }
+
+    @Test
+    void attachFailsForNullComponent() {
+        assertThrows(NullPointerException.class, () -> new Bus().attach(null));
+    }
+}
@@ -0,0 +1,82 @@
+package ch.epfl.gameboj;
+
+import static ch.epfl.test.TestGameBoys.newGameBoy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.component.Joypad.Key;
+import ch.epfl.gameboj.component.lcd.LcdController;
+
+public class EmulatorTest {
+
+    private static Emulator newEmulator(GameBoy gameBoy) {
+        return new Emulator(gameBoy, new RewindBuffer(gameBoy, 100, 1, 10));
+    }
+
+    @Test
+    void emulatorCannotBeStartedTwice() throws IOException {
+        try (Emulator emulator = newEmulator(newGameBoy())) {
+            emulator.start();
+            assertThrows(IllegalStateException.class, () -> emulator.start());
+        }
+    }
+
+    @Test
+    void emulatorRunsAndPublishesImages() throws IOException, InterruptedException {
+        GameBoy gameBoy = newGameBoy();
+        try (Emulator emulator = newEmulator(gameBoy)) {
+            emulator.start();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (emulator.latestImage() == null && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertNotNull(emulator.latestImage());
+            Thread.sleep(200);
+        }
+        assertTrue(gameBoy.cycles() > 0);
+    }
+
+    @Test
+    void fastForwardRunsFasterThanRealTime() throws IOException, InterruptedException {
+        GameBoy gameBoy = newGameBoy();
+        long start;
+        try (Emulator emulator = newEmulator(gameBoy)) {
+            emulator.setFastForward(true);
+            start = System.nanoTime();
+            emulator.start();
+            Thread.sleep(500);
+        }
+        double realTimeFrames = (System.nanoTime() - start) / (double) FramePacer.FRAME_NANOS;
+        assertTrue(gameBoy.cycles() / LcdController.CYCLES_PER_FRAME > 2 * realTimeFrames);
+    }
+
+    @Test
+    void tasksAndKeysAreExecutedInOrderOnEmulatorThread() throws IOException, InterruptedException {
+        GameBoy gameBoy = newGameBoy();
+        try (Emulator emulator = newEmulator(gameBoy)) {
+            emulator.setPaused(true);
+            emulator.start();
+            AtomicInteger step = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(1);
+            emulator.keyPressed(Key.A);
+            emulator.execute(() -> {
+                // Sélection de la ligne des boutons, dont A est le bit 0
+                gameBoy.joypad().write(AddressMap.REG_P1, 0b0001_0000);
+                step.compareAndSet(0, (gameBoy.joypad().read(AddressMap.REG_P1) & 1) == 0 ? 1 : -1);
+                done.countDown();
+            });
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(1, step.get());
+            assertEquals(0, gameBoy.cycles());
+        }
+    }
+}
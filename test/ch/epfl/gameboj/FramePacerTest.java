@@ -0,0 +1,87 @@
+package ch.epfl.gameboj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class FramePacerTest {
+    private static final long FRAME = FramePacer.FRAME_NANOS;
+
+    @Test
+    void frameRateIsThatOfTheGameBoyScreen() {
+        assertEquals(59.73, FramePacer.FRAME_RATE, 0.01);
+        assertEquals(16_742_706, FRAME, 1);
+    }
+
+    @Test
+    void constructorFailsForInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new FramePacer(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new FramePacer(4, 0));
+    }
+
+    @Test
+    void oneFrameIsDuePerFrameDuration() {
+        FramePacer pacer = new FramePacer(4, 10);
+        pacer.reset(0);
+        assertEquals(0, pacer.framesDue(FRAME / 2, 1));
+        assertEquals(FRAME / 2, pacer.nanosUntilNextFrame(FRAME / 2, 1), 1);
+        assertEquals(1, pacer.framesDue(FRAME, 1));
+        assertEquals(1, pacer.framesDue(2 * FRAME, 1));
+        assertEquals(2, pacer.framesDue(4 * FRAME, 1));
+    }
+
+    @Test
+    void lateWakeUpsDoNotDrift() {
+        FramePacer pacer = new FramePacer(4, 10);
+        pacer.reset(0);
+        long now = 0;
+        long frames = 0;
+        for (int i = 0; i < 1000; i++) {
+            // Réveils alternativement en retard et à l'heure
+            now += pacer.nanosUntilNextFrame(now, 1) + (i % 2 == 0 ? 3_000_000 : 0);
+            frames += pacer.framesDue(now, 1);
+        }
+        assertEquals(now / FRAME, frames);
+        assertEquals(0, pacer.droppedFrames());
+    }
+
+    @Test
+    void catchUpIsCapped() {
+        FramePacer pacer = new FramePacer(4, 10);
+        pacer.reset(0);
+        assertEquals(4, pacer.framesDue(10 * FRAME, 1));
+        assertEquals(6, pacer.droppedFrames());
+        assertEquals(1, pacer.framesDue(11 * FRAME, 1));
+        assertEquals(16, pacer.framesDue(31 * FRAME, 4));
+    }
+
+    @Test
+    void acceleratedSpeedRunsSeveralFramesPerScreenFrame() {
+        FramePacer pacer = new FramePacer(4, 10);
+        pacer.reset(0);
+        assertEquals(FRAME, pacer.nanosUntilNextFrame(0, 4), 1);
+        assertEquals(4, pacer.framesDue(FRAME, 4));
+        assertEquals(2 * FRAME, pacer.nanosUntilNextFrame(FRAME, 0.5f), 1);
+        assertEquals(0, pacer.framesDue(2 * FRAME, 0.5f));
+        assertEquals(1, pacer.framesDue(3 * FRAME, 0.5f));
+    }
+
+    @Test
+    void statisticsMeasureShownFrames() {
+        FramePacer pacer = new FramePacer(4, 10);
+        assertEquals(0, pacer.fps(), 0);
+        assertEquals(0, pacer.frameTimePercentile(0.5));
+        long now = 0;
+        for (int i = 0; i < 100; i++) {
+            pacer.frameShown(now);
+            now += i % 10 == 0 ? 20_000_000 : 10_000_000;
+        }
+        assertEquals(10_000_000, pacer.frameTimePercentile(0.5));
+        assertEquals(10_000_000, pacer.frameTimePercentile(0));
+        assertEquals(20_000_000, pacer.frameTimePercentile(1));
+        assertTrue(pacer.fps() > 90 && pacer.fps() < 92);
+        assertThrows(IllegalArgumentException.class, () -> pacer.frameTimePercentile(1.5));
+    }
+}
@@ -0,0 +1,124 @@
+package ch.epfl.gameboj;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.component.Joypad.Key;
+import ch.epfl.gameboj.component.cartridge.Cartridge;
+import ch.epfl.gameboj.component.lcd.LcdController;
+import ch.epfl.gameboj.component.lcd.LcdController.Renderer;
+
+public class GameBoyStateTest {
+    private static final File ROM_DIRECTORY = new File("data/ROMs");
+    private static final long FRAME = LcdController.CYCLES_PER_FRAME;
+
+    private static GameBoy newGameBoy(String rom, Renderer renderer) throws IOException {
+        GameBoy gameBoy = new GameBoy(Cartridge.ofFile(new File(ROM_DIRECTORY, rom)));
+        gameBoy.lcdController().setRenderer(renderer);
+        gameBoy.cpu().setCodeCacheEnabled(renderer == Renderer.DIRECT);
+        return gameBoy;
+    }
+
+    private static void runWithInputs(GameBoy gameBoy, long cycle) {
+        // Presse START toutes les 50 images afin que le jeu ne reste pas sur son écran titre
+        while (gameBoy.cycles() < cycle) {
+            long next = Math.min(cycle, gameBoy.cycles() + FRAME);
+            gameBoy.runUntil(next);
+            if (next / FRAME % 50 == 0) {
+                gameBoy.joypad().keyPressed(Key.START);
+            } else if (next / FRAME % 50 == 1) {
+                gameBoy.joypad().keyReleased(Key.START);
+            }
+        }
+    }
+
+    @Test
+    void restoredGameBoyBehavesLikeOriginal() throws IOException {
+        for (String rom : new String[] { "Tetris.gb", "Mario Land.gb", "Zelda.gb" }) {
+            for (Renderer renderer : Renderer.values()) {
+                GameBoy original = newGameBoy(rom, renderer);
+                // Sauvegarde au milieu d'une image, pendant le calcul d'une ligne
+                runWithInputs(original, 120 * FRAME + 12_345);
+                byte[] state = original.saveState();
+                runWithInputs(original, 180 * FRAME);
+
+                GameBoy restored = newGameBoy(rom, renderer);
+                restored.loadState(state);
+                assertArrayEquals(state, restored.saveState());
+                runWithInputs(restored, 180 * FRAME);
+
+                assertEquals(original.lcdController().currentImage(), restored.lcdController().currentImage());
+                assertArrayEquals(original.cpu()._testGetPcSpAFBCDEHL(), restored.cpu()._testGetPcSpAFBCDEHL());
+                assertArrayEquals(original.saveState(), restored.saveState());
+            }
+        }
+    }
+
+    @Test
+    void stateIsWrittenInPlaceInGivenBuffer() throws IOException {
+        GameBoy gameBoy = newGameBoy("Tetris.gb", Renderer.BIT_VECTOR);
+        gameBoy.runUntil(10 * FRAME);
+        ByteBuffer buffer = ByteBuffer.allocate(gameBoy.stateSize() + 3);
+        buffer.position(3);
+        gameBoy.saveState(buffer);
+        assertEquals(buffer.capacity(), buffer.position());
+
+        buffer.position(3);
+        GameBoy restored = newGameBoy("Tetris.gb", Renderer.BIT_VECTOR);
+        restored.loadState(buffer);
+        assertEquals(buffer.capacity(), buffer.position());
+        assertEquals(gameBoy.cycles(), restored.cycles());
+    }
+
+    @Test
+    void loadStateFailsForInvalidHeader() throws IOException {
+        GameBoy gameBoy = newGameBoy("Tetris.gb", Renderer.BIT_VECTOR);
+        byte[] state = gameBoy.saveState();
+        state[0] ^= 1;
+        assertThrows(IllegalArgumentException.class, () -> gameBoy.loadState(state));
+        byte[] tooLong = new byte[gameBoy.stateSize() + 1];
+        System.arraycopy(gameBoy.saveState(), 0, tooLong, 0, gameBoy.stateSize());
+        assertThrows(IllegalArgumentException.class, () -> gameBoy.loadState(tooLong));
+    }
+
+    @Test
+    void loadStateOfWrongSizeLeavesGameBoyUnchanged() throws IOException {
+        GameBoy gameBoy = newGameBoy("Tetris.gb", Renderer.BIT_VECTOR);
+        runWithInputs(gameBoy, 100 * FRAME);
+        byte[] before = gameBoy.saveState();
+
+        GameBoy other = newGameBoy("Zelda.gb", Renderer.BIT_VECTOR);
+        runWithInputs(other, 50 * FRAME);
+        byte[] otherState = other.saveState();
+        assertThrows(IllegalArgumentException.class, () -> gameBoy.loadState(otherState));
+        assertArrayEquals(before, gameBoy.saveState());
+
+        byte[] tooShort = new byte[before.length - 1];
+        System.arraycopy(before, 0, tooShort, 0, tooShort.length);
+        assertThrows(IllegalArgumentException.class, () -> gameBoy.loadState(tooShort));
+        assertThrows(IllegalArgumentException.class, () -> gameBoy.loadState(ByteBuffer.wrap(tooShort)));
+        assertArrayEquals(before, gameBoy.saveState());
+    }
+
+    @Test
+    void loadStateFailsForOtherCartridgeWithSameStateSize() throws IOException {
+        GameBoy gameBoy = newGameBoy("Zelda.gb", Renderer.BIT_VECTOR);
+        runWithInputs(gameBoy, 100 * FRAME);
+        byte[] before = gameBoy.saveState();
+
+        // Mario Land 2 utilise, comme Zelda, un MBC1 avec 8 Ko de mémoire vive
+        GameBoy other = newGameBoy("Mario Land 2.gb", Renderer.BIT_VECTOR);
+        runWithInputs(other, 50 * FRAME);
+        byte[] otherState = other.saveState();
+        assertEquals(before.length, otherState.length);
+        assertThrows(IllegalArgumentException.class, () -> gameBoy.loadState(otherState));
+        assertArrayEquals(before, gameBoy.saveState());
+    }
+}
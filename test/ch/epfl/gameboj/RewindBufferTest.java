@@ -0,0 +1,93 @@
+package ch.epfl.gameboj;
+
+import static ch.epfl.test.TestGameBoys.newGameBoy;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.component.Joypad.Key;
+import ch.epfl.gameboj.component.lcd.LcdController;
+
+public class RewindBufferTest {
+    private static final long FRAME = LcdController.CYCLES_PER_FRAME;
+
+    @Test
+    void constructorFailsForInvalidArguments() throws IOException {
+        GameBoy gameBoy = newGameBoy();
+        assertThrows(IllegalArgumentException.class, () -> new RewindBuffer(gameBoy, 10, 0, 5));
+        assertThrows(IllegalArgumentException.class, () -> new RewindBuffer(gameBoy, 10, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RewindBuffer(gameBoy, 4, 1, 5));
+    }
+
+    @Test
+    void rewindRestoresCapturedStatesInReverseOrder() throws IOException {
+        GameBoy gameBoy = newGameBoy();
+        RewindBuffer rewindBuffer = new RewindBuffer(gameBoy, 1000, 2, 7);
+        List<byte[]> states = new ArrayList<>();
+        for (int f = 1; f <= 200; f++) {
+            gameBoy.runUntil(f * FRAME);
+            if (f % 40 == 0) {
+                gameBoy.joypad().keyPressed(Key.START);
+            } else if (f % 40 == 2) {
+                gameBoy.joypad().keyReleased(Key.START);
+            }
+            if (rewindBuffer.captureIfDue()) {
+                states.add(gameBoy.saveState());
+            }
+        }
+        assertEquals(100, states.size());
+        assertEquals(100, rewindBuffer.size());
+
+        for (int i = states.size() - 1; i >= 0; i--) {
+            assertTrue(rewindBuffer.rewind());
+            assertArrayEquals(states.get(i), gameBoy.saveState());
+        }
+        assertFalse(rewindBuffer.rewind());
+        assertEquals(0, rewindBuffer.memoryUsage());
+    }
+
+    @Test
+    void oldestGroupIsForgottenWhenFull() throws IOException {
+        GameBoy gameBoy = newGameBoy();
+        RewindBuffer rewindBuffer = new RewindBuffer(gameBoy, 10, 1, 4);
+        List<byte[]> states = new ArrayList<>();
+        for (int f = 1; f <= 13; f++) {
+            gameBoy.runUntil(f * FRAME);
+            rewindBuffer.capture();
+            states.add(gameBoy.saveState());
+        }
+        // Les groupes contiennent les états 1-4, 5-8, 9-12 et 13 : seul le premier est oublié
+        assertEquals(9, rewindBuffer.size());
+        for (int i = 12; i >= 4; i--) {
+            assertTrue(rewindBuffer.rewind());
+            assertArrayEquals(states.get(i), gameBoy.saveState());
+        }
+        assertFalse(rewindBuffer.rewind());
+    }
+
+    @Test
+    void simulationContinuesAfterRewind() throws IOException {
+        GameBoy gameBoy = newGameBoy();
+        GameBoy reference = newGameBoy();
+        RewindBuffer rewindBuffer = new RewindBuffer(gameBoy, 100, 1, 10);
+        for (int f = 1; f <= 30; f++) {
+            gameBoy.runUntil(f * FRAME);
+            rewindBuffer.captureIfDue();
+        }
+        for (int i = 0; i < 15; i++) {
+            rewindBuffer.rewind();
+        }
+        assertEquals(16 * FRAME, gameBoy.cycles());
+        gameBoy.runUntil(40 * FRAME);
+        reference.runUntil(40 * FRAME);
+        assertEquals(reference.lcdController().currentImage(), gameBoy.lcdController().currentImage());
+    }
+}
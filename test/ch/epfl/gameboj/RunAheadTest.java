@@ -0,0 +1,117 @@
+package ch.epfl.gameboj;
+
+import static ch.epfl.test.TestGameBoys.newGameBoy;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.component.Joypad.Key;
+import ch.epfl.gameboj.component.lcd.LcdController;
+import ch.epfl.gameboj.component.lcd.LcdImage;
+
+public class RunAheadTest {
+    private static final long FRAME = LcdController.CYCLES_PER_FRAME;
+
+    @Test
+    void setFramesFailsForNegativeFrames() throws IOException {
+        RunAhead runAhead = new RunAhead(newGameBoy());
+        assertThrows(IllegalArgumentException.class, () -> runAhead.setFrames(-1));
+    }
+
+    @Test
+    void disabledRunAheadShowsCurrentImage() throws IOException {
+        GameBoy gameBoy = newGameBoy();
+        RunAhead runAhead = new RunAhead(gameBoy);
+        assertEquals(0, runAhead.frames());
+        LcdImage image = runAhead.runUntil(100 * FRAME);
+        assertEquals(100 * FRAME, gameBoy.cycles());
+        assertEquals(gameBoy.lcdController().currentImage(), image);
+    }
+
+    @Test
+    void runAheadShowsFutureImageAndKeepsState() throws IOException {
+        GameBoy gameBoy = newGameBoy();
+        GameBoy reference = newGameBoy();
+        RunAhead runAhead = new RunAhead(gameBoy);
+        runAhead.setFrames(2);
+
+        for (int f = 1; f <= 300; f++) {
+            if (f % 50 == 0) {
+                gameBoy.joypad().keyPressed(Key.START);
+                reference.joypad().keyPressed(Key.START);
+            } else if (f % 50 == 3) {
+                gameBoy.joypad().keyReleased(Key.START);
+                reference.joypad().keyReleased(Key.START);
+            }
+            LcdImage image = runAhead.runUntil(f * FRAME);
+            reference.runUntil(f * FRAME);
+            assertEquals(f * FRAME, gameBoy.cycles());
+            assertArrayEquals(reference.saveState(), gameBoy.saveState());
+
+            GameBoy future = newGameBoy();
+            future.loadState(reference.saveState());
+            future.runUntil((f + 2) * FRAME);
+            assertEquals(future.lcdController().currentImage(), image);
+        }
+    }
+
+    @Test
+    void runAheadKeepsDisabledAudioOutputDisabled() throws IOException {
+        GameBoy gameBoy = newGameBoy();
+        RunAhead runAhead = new RunAhead(gameBoy);
+        runAhead.setFrames(2);
+        gameBoy.apu().setOutputEnabled(false);
+        runAhead.runUntil(10 * FRAME);
+        assertFalse(gameBoy.apu().outputEnabled());
+        assertEquals(0, gameBoy.apu().samples().size());
+    }
+
+    @Test
+    void runAheadKeepsTileCacheValid() throws IOException {
+        GameBoy gameBoy = newGameBoy();
+        RunAhead runAhead = new RunAhead(gameBoy);
+        runAhead.setFrames(1);
+        for (int f = 1; f <= 300; f++) {
+            runAhead.runUntil(f * FRAME);
+        }
+        long hits = gameBoy.lcdController().tileCacheHits();
+        long misses = gameBoy.lcdController().tileCacheMisses();
+        for (int f = 301; f <= 400; f++) {
+            runAhead.runUntil(f * FRAME);
+        }
+        hits = gameBoy.lcdController().tileCacheHits() - hits;
+        misses = gameBoy.lcdController().tileCacheMisses() - misses;
+        // La mémoire vidéo restaurée étant celle qui a été sauvegardée, aucune tuile ne doit être décodée à nouveau
+        assertTrue(hits > 0);
+        assertTrue(misses <= hits / 1000, misses + " défauts pour " + hits + " succès");
+    }
+
+    @Test
+    void runAheadWithCodeCacheBehavesLikeReference() throws IOException {
+        // Zelda change de banque de mémoire morte, ce qui doit invalider le cache des instructions lors des
+        // restaurations
+        GameBoy gameBoy = newGameBoy("Zelda.gb");
+        gameBoy.cpu().setCodeCacheEnabled(true);
+        GameBoy reference = newGameBoy("Zelda.gb");
+        RunAhead runAhead = new RunAhead(gameBoy);
+        runAhead.setFrames(1);
+        for (int f = 1; f <= 600; f++) {
+            if (f % 100 == 0) {
+                gameBoy.joypad().keyPressed(Key.START);
+                reference.joypad().keyPressed(Key.START);
+            } else if (f % 100 == 3) {
+                gameBoy.joypad().keyReleased(Key.START);
+                reference.joypad().keyReleased(Key.START);
+            }
+            runAhead.runUntil(f * FRAME);
+            reference.runUntil(f * FRAME);
+        }
+        assertArrayEquals(reference.saveState(), gameBoy.saveState());
+    }
+}
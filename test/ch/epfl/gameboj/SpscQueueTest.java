@@ -0,0 +1,63 @@
+package ch.epfl.gameboj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class SpscQueueTest {
+
+    @Test
+    void constructorFailsForInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SpscQueue<Integer>(0));
+        assertThrows(IllegalArgumentException.class, () -> new SpscQueue<Integer>(12));
+    }
+
+    @Test
+    void offerFailsForNullElement() {
+        assertThrows(NullPointerException.class, () -> new SpscQueue<Integer>(4).offer(null));
+    }
+
+    @Test
+    void elementsArePolledInOrderUntilQueueIsEmpty() {
+        SpscQueue<Integer> queue = new SpscQueue<>(4);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(queue.offer(i));
+            }
+            assertFalse(queue.offer(4));
+            assertEquals(4, queue.size());
+            for (int i = 0; i < 4; i++) {
+                assertEquals(i, (int) queue.poll());
+            }
+            assertNull(queue.poll());
+            assertEquals(0, queue.size());
+        }
+    }
+
+    @Test
+    void concurrentConsumerSeesEveryElementInOrder() throws InterruptedException {
+        int count = 100_000;
+        SpscQueue<Integer> queue = new SpscQueue<>(64);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                while (!queue.offer(i)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+        for (int i = 0; i < count; i++) {
+            Integer e;
+            while ((e = queue.poll()) == null) {
+                Thread.yield();
+            }
+            assertEquals(i, (int) e);
+        }
+        producer.join();
+        assertNull(queue.poll());
+    }
+}
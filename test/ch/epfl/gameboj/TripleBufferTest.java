@@ -0,0 +1,55 @@
+package ch.epfl.gameboj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class TripleBufferTest {
+
+    @Test
+    void latestIsNullBeforeFirstPublication() {
+        TripleBuffer<String> buffer = new TripleBuffer<>();
+        assertFalse(buffer.hasNew());
+        assertNull(buffer.latest());
+    }
+
+    @Test
+    void latestReturnsMostRecentPublication() {
+        TripleBuffer<String> buffer = new TripleBuffer<>();
+        buffer.publish("a");
+        assertTrue(buffer.hasNew());
+        assertEquals("a", buffer.latest());
+        assertFalse(buffer.hasNew());
+        assertEquals("a", buffer.latest());
+        for (int i = 0; i < 10; i++) {
+            buffer.publish("b" + i);
+        }
+        assertEquals("b9", buffer.latest());
+        buffer.publish("c");
+        assertEquals("c", buffer.latest());
+    }
+
+    @Test
+    void concurrentConsumerSeesIncreasingValues() throws InterruptedException {
+        int count = 100_000;
+        TripleBuffer<Integer> buffer = new TripleBuffer<>();
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                buffer.publish(i);
+            }
+        });
+        producer.start();
+        int last = -1;
+        while (last < count - 1) {
+            Integer value = buffer.latest();
+            if (value != null) {
+                assertTrue(value >= last);
+                last = value;
+            }
+        }
+        producer.join();
+    }
+}
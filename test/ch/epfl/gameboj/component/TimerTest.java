@@ -0,0 +1,66 @@
+package ch.epfl.gameboj.component;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.AddressMap;
+import ch.epfl.gameboj.component.cpu.Cpu;
+
+public class TimerTest {
+
+    private static Timer newTimer(Cpu cpu, int tac, int tma) {
+        Timer timer = new Timer(cpu);
+        timer.write(AddressMap.REG_TMA, tma);
+        timer.write(AddressMap.REG_TAC, tac);
+        return timer;
+    }
+
+    private static void assertSameState(Timer expected, Cpu expectedCpu, Timer actual, Cpu actualCpu) {
+        for (int address = AddressMap.REG_DIV; address <= AddressMap.REG_TAC; address++) {
+            assertEquals(expected.read(address), actual.read(address));
+        }
+        assertEquals(expectedCpu.read(AddressMap.REG_IF), actualCpu.read(AddressMap.REG_IF));
+    }
+
+    @Test
+    void skippingCyclesGivesSameStateAsCyclingEachCycle() {
+        for (int tac = 0; tac < 8; tac++) {
+            Cpu cpu1 = new Cpu(), cpu2 = new Cpu();
+            Timer stepped = newTimer(cpu1, tac, 0xF0);
+            Timer skipped = newTimer(cpu2, tac, 0xF0);
+            for (long c = 0; c < 50_000; c++) {
+                stepped.cycle(c);
+                if (c % 997 == 0) {
+                    skipped.cycle(c);
+                }
+            }
+            skipped.cycle(49_999);
+            assertSameState(stepped, cpu1, skipped, cpu2);
+        }
+    }
+
+    @Test
+    void nextEventCycleIsCycleOfNextOverflow() {
+        for (int tac = 4; tac < 8; tac++) {
+            Cpu cpu = new Cpu();
+            Timer timer = newTimer(cpu, tac, 0xFE);
+            timer.cycle(0);
+            long next = timer.nextEventCycle(0);
+            for (long c = 1; c < next; c++) {
+                timer.cycle(c);
+                assertEquals(0, cpu.read(AddressMap.REG_IF));
+            }
+            timer.cycle(next);
+            assertEquals(1 << Cpu.Interrupt.TIMER.index(), cpu.read(AddressMap.REG_IF));
+        }
+    }
+
+    @Test
+    void nextEventCycleIsInfiniteWhenTimerIsDisabled() {
+        Timer timer = newTimer(new Cpu(), 0b011, 0);
+        timer.cycle(0);
+        assertEquals(Long.MAX_VALUE, timer.nextEventCycle(0));
+        assertEquals(0, timer.read(AddressMap.REG_TIMA));
+    }
+}
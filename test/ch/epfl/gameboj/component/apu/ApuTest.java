@@ -0,0 +1,165 @@
+package ch.epfl.gameboj.component.apu;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.AddressMap;
+import ch.epfl.gameboj.GameBoy;
+
+public class ApuTest {
+    private static final int NR12 = 0xFF12, NR14 = 0xFF14, NR11 = 0xFF11;
+    private static final int NR22 = 0xFF17, NR24 = 0xFF19;
+    private static final int NR50 = 0xFF24, NR51 = 0xFF25, NR52 = 0xFF26;
+
+    private static Apu newPlayingApu() {
+        Apu apu = new Apu();
+        apu.write(NR52, 0x80);
+        apu.write(NR50, 0x77);
+        apu.write(NR51, 0xFF);
+        apu.write(NR22, 0xF0);
+        apu.write(NR24, 0x87);
+        return apu;
+    }
+
+    private static short[] drain(Apu apu) {
+        short[] samples = new short[apu.samples().capacity()];
+        return Arrays.copyOf(samples, apu.samples().read(samples, 0, samples.length));
+    }
+
+    @Test
+    void unusedBitsAreReadAsOne() {
+        Apu apu = new Apu();
+        apu.write(NR52, 0x80);
+        for (int a = AddressMap.REGS_APU_START; a < AddressMap.WAVE_RAM_START; a++) {
+            if (a != NR52) {
+                apu.write(a, 0);
+            }
+        }
+        assertEquals(0x80, apu.read(0xFF10));
+        assertEquals(0x3F, apu.read(NR11));
+        assertEquals(0xFF, apu.read(0xFF13));
+        assertEquals(0xBF, apu.read(NR14));
+        assertEquals(0xF0, apu.read(NR52));
+        assertEquals(0xFF, apu.read(0xFF27));
+    }
+
+    @Test
+    void registersAreClearedAndReadOnlyWhenPoweredOff() {
+        Apu apu = newPlayingApu();
+        apu.write(AddressMap.WAVE_RAM_START, 0x12);
+        apu.write(NR52, 0);
+        assertEquals(0x70, apu.read(NR52));
+        assertEquals(0, apu.read(NR50));
+        apu.write(NR50, 0x77);
+        assertEquals(0, apu.read(NR50));
+        assertEquals(0x12, apu.read(AddressMap.WAVE_RAM_START));
+    }
+
+    @Test
+    void triggeredChannelIsDisabledWhenItsLengthExpires() {
+        Apu apu = new Apu();
+        apu.write(NR52, 0x80);
+        apu.write(NR12, 0xF0);
+        apu.write(NR11, 0x3F);
+        apu.write(NR14, 0xC0);
+        assertEquals(0xF1, apu.read(NR52));
+        // Le compteur de longueur est décrémenté au premier pas du séquenceur, après 8192 cycles d'horloge
+        for (long c = 0; c <= 2048; c++) {
+            apu.cycle(c);
+        }
+        assertEquals(0xF0, apu.read(NR52));
+    }
+
+    @Test
+    void channelIsNotEnabledWhenItsDacIsOff() {
+        Apu apu = new Apu();
+        apu.write(NR52, 0x80);
+        apu.write(NR12, 0x00);
+        apu.write(NR14, 0x80);
+        assertEquals(0xF0, apu.read(NR52));
+    }
+
+    @Test
+    void samplesAreProducedAtSampleRate() {
+        Apu apu = newPlayingApu();
+        long cycles = GameBoy.CYCLES_PER_SECOND / 10;
+        for (long c = 0; c < cycles; c += 100) {
+            apu.cycle(c);
+        }
+        apu.cycle(cycles);
+        apu.read(NR52);
+        short[] samples = drain(apu);
+        assertEquals(2 * Apu.SAMPLE_RATE / 10, samples.length, 2);
+        assertTrue(Arrays.stream(toInts(samples)).anyMatch(s -> s != 0));
+    }
+
+    @Test
+    void noSampleIsProducedWhenOutputIsDisabled() {
+        Apu apu = newPlayingApu();
+        apu.setOutputEnabled(false);
+        for (long c = 0; c < 20_000; c++) {
+            apu.cycle(c);
+        }
+        assertEquals(0, apu.samples().size());
+        assertFalse(apu.samples().droppedSamples() > 0);
+    }
+
+    @Test
+    void batchingGivesSameSamplesAsCyclingEachCycle() {
+        Apu stepped = newPlayingApu(), skipped = newPlayingApu();
+        for (long c = 0; c < 50_000; c++) {
+            stepped.cycle(c);
+            if (c % 997 == 0 || c == 49_999) {
+                skipped.cycle(c);
+            }
+            if (c == 30_000) {
+                stepped.write(NR22, 0x3F);
+                skipped.cycle(c);
+                skipped.write(NR22, 0x3F);
+            }
+        }
+        stepped.read(NR52);
+        skipped.read(NR52);
+        assertArrayEquals(drain(stepped), drain(skipped));
+    }
+
+    @Test
+    void loadingStateReproducesSamples() {
+        Apu apu = newPlayingApu();
+        for (long c = 0; c < 10_000; c++) {
+            apu.cycle(c);
+        }
+        ByteBuffer state = ByteBuffer.allocate(apu.stateSize());
+        apu.saveState(state);
+        assertFalse(state.hasRemaining());
+        drain(apu);
+        for (long c = 10_000; c < 20_000; c++) {
+            apu.cycle(c);
+        }
+        apu.read(NR52);
+        short[] expected = drain(apu);
+
+        state.flip();
+        apu.loadState(state);
+        for (long c = 10_000; c < 20_000; c++) {
+            apu.cycle(c);
+        }
+        apu.read(NR52);
+        assertArrayEquals(expected, drain(apu));
+    }
+
+    private static int[] toInts(short[] samples) {
+        int[] ints = new int[samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            ints[i] = samples[i];
+        }
+        return ints;
+    }
+}
@@ -0,0 +1,53 @@
+package ch.epfl.gameboj.component.apu;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class SampleBufferTest {
+
+    @Test
+    void constructorFailsForInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SampleBuffer(0));
+        assertThrows(IllegalArgumentException.class, () -> new SampleBuffer(1));
+        assertThrows(IllegalArgumentException.class, () -> new SampleBuffer(6));
+    }
+
+    @Test
+    void samplesAreReadInOrderAcrossWrapAround() {
+        SampleBuffer buffer = new SampleBuffer(8);
+        short[] out = new short[8];
+        for (int round = 0; round < 5; round++) {
+            short[] in = { (short) round, 1, 2, 3, 4, (short) -round };
+            assertEquals(6, buffer.write(in, 0, in.length));
+            assertEquals(6, buffer.size());
+            assertEquals(6, buffer.read(out, 0, out.length));
+            assertArrayEquals(in, Arrays.copyOf(out, 6));
+            assertEquals(0, buffer.size());
+        }
+    }
+
+    @Test
+    void excessSamplesAreDroppedAndCounted() {
+        SampleBuffer buffer = new SampleBuffer(4);
+        short[] in = { 1, 2, 3, 4, 5, 6 };
+        assertEquals(4, buffer.write(in, 0, in.length));
+        assertEquals(2, buffer.droppedSamples());
+        assertEquals(0, buffer.write(in, 0, 2));
+        assertEquals(4, buffer.droppedSamples());
+    }
+
+    @Test
+    void onlyWholeStereoPairsAreTransferred() {
+        SampleBuffer buffer = new SampleBuffer(8);
+        short[] in = { 1, 2, 3, 4 };
+        buffer.write(in, 0, 4);
+        short[] out = new short[3];
+        assertEquals(2, buffer.read(out, 0, 3));
+        assertEquals(2, buffer.size());
+    }
+}
@@ -0,0 +1,104 @@
+package ch.epfl.gameboj.component.cartridge;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+
+public class BatteryRamWriterTest {
+    private static final int RAM_SIZE = 8192;
+
+    private static Cartridge newMbc1Cartridge() throws IOException {
+        byte[] rom = new byte[0x8000];
+        rom[0x147] = 1;
+        rom[0x149] = 2;
+        File file = Files.createTempFile("mbc1", ".gb").toFile();
+        file.deleteOnExit();
+        Files.write(file.toPath(), rom);
+        Cartridge cartridge = Cartridge.ofFile(file);
+        // Activation de la mémoire vive
+        cartridge.write(0x0000, 0x0A);
+        return cartridge;
+    }
+
+    private static File newSaveFile() throws IOException {
+        File file = Files.createTempFile("mbc1", ".sav").toFile();
+        file.deleteOnExit();
+        return file;
+    }
+
+    @Test
+    void onlyModifiedPagesAreWritten() throws IOException {
+        Cartridge cartridge = newMbc1Cartridge();
+        File saveFile = newSaveFile();
+        try (BatteryRamWriter writer = new BatteryRamWriter(cartridge, saveFile, 60_000)) {
+            // La première écriture réécrit toute la mémoire vive
+            assertEquals(RAM_SIZE / 256, writer.flush());
+            assertEquals(0, writer.flush());
+
+            cartridge.write(0xA000, 1);
+            cartridge.write(0xA0FF, 2);
+            cartridge.write(0xA100, 3);
+            cartridge.write(0xBFFF, 4);
+            assertEquals(3, writer.flush());
+            assertEquals(0, writer.flush());
+        }
+        byte[] saved = Files.readAllBytes(saveFile.toPath());
+        assertEquals(RAM_SIZE, saved.length);
+        assertEquals(1, saved[0]);
+        assertEquals(2, saved[0xFF]);
+        assertEquals(3, saved[0x100]);
+        assertEquals(4, saved[0x1FFF]);
+    }
+
+    @Test
+    void loadingStateOnlyMarksChangedPages() throws IOException {
+        Cartridge cartridge = newMbc1Cartridge();
+        ByteBuffer state = ByteBuffer.allocate(cartridge.stateSize());
+        cartridge.saveState(state);
+        try (BatteryRamWriter writer = new BatteryRamWriter(cartridge, newSaveFile(), 60_000)) {
+            writer.flush();
+            state.flip();
+            cartridge.loadState(state);
+            assertEquals(0, writer.flush());
+
+            cartridge.write(0xA200, 5);
+            cartridge.write(0xA300, 6);
+            writer.flush();
+            state.flip();
+            cartridge.loadState(state);
+            assertEquals(2, writer.flush());
+        }
+    }
+
+    @Test
+    void closeWritesLastModifications() throws IOException {
+        Cartridge cartridge = newMbc1Cartridge();
+        File saveFile = newSaveFile();
+        BatteryRamWriter writer = new BatteryRamWriter(cartridge, saveFile, 60_000);
+        writer.flush();
+        cartridge.write(0xA123, 0x42);
+        writer.close();
+        assertEquals(0, writer.flush());
+        assertEquals(0x42, Files.readAllBytes(saveFile.toPath())[0x123]);
+    }
+
+    @Test
+    void pagesAreWrittenPeriodically() throws IOException, InterruptedException {
+        Cartridge cartridge = newMbc1Cartridge();
+        File saveFile = newSaveFile();
+        try (BatteryRamWriter writer = new BatteryRamWriter(cartridge, saveFile, 10)) {
+            cartridge.write(0xA010, 0x24);
+            for (int i = 0; i < 500 && Files.readAllBytes(saveFile.toPath())[0x10] != 0x24; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(0x24, Files.readAllBytes(saveFile.toPath())[0x10]);
+            // La page a déjà été écrite par le fil d'exécution de l'écrivain
+            assertEquals(0, writer.flush());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ch.epfl.gameboj.component.cartridge;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.component.memory.Rom;
+
+public class RomCacheTest {
+
+    private static File newRomFile(int firstByte) throws IOException {
+        File file = Files.createTempFile("rom", ".gb").toFile();
+        file.deleteOnExit();
+        Files.write(file.toPath(), new byte[] { (byte) firstByte, 1, 2, 3 });
+        return file;
+    }
+
+    @Test
+    void constructorFailsForInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new RomCache(0));
+    }
+
+    @Test
+    void sameFileGivesSameRom() throws IOException {
+        RomCache cache = new RomCache(4);
+        File file = newRomFile(42);
+        Rom rom = cache.get(file);
+        assertSame(rom, cache.get(file));
+        assertEquals(42, rom.read(0));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void replacedFileGivesNewRom() throws IOException {
+        RomCache cache = new RomCache(4);
+        File file = newRomFile(42);
+        Rom rom = cache.get(file);
+        // Le fichier projeté n'est pas modifié sur place, mais remplacé par un nouveau fichier
+        File replacement = newRomFile(43);
+        replacement.setLastModified(file.lastModified() + 2000);
+        Files.move(replacement.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Rom replaced = cache.get(file);
+        assertNotSame(rom, replaced);
+        assertEquals(43, replaced.read(0));
+        assertEquals(42, rom.read(0));
+        assertEquals(0, cache.hits());
+    }
+
+    @Test
+    void leastRecentlyUsedRomIsEvicted() throws IOException {
+        RomCache cache = new RomCache(2);
+        File a = newRomFile(1), b = newRomFile(2), c = newRomFile(3);
+        Rom romA = cache.get(a);
+        Rom romB = cache.get(b);
+        cache.get(a);
+        cache.get(c);
+        assertEquals(2, cache.size());
+        assertSame(romA, cache.get(a));
+        assertNotSame(romB, cache.get(b));
+        assertEquals(2, cache.hits());
+        assertEquals(4, cache.misses());
+    }
+}
@@ -0,0 +1,70 @@
+package ch.epfl.gameboj.component.cpu;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.Bus;
+import ch.epfl.gameboj.component.memory.Ram;
+import ch.epfl.gameboj.component.memory.RamController;
+
+public class CpuCodeCacheTest {
+
+    private static Cpu newCpu(int[] program, boolean codeCache) {
+        Cpu cpu = new Cpu();
+        Bus bus = new Bus();
+        cpu.attachTo(bus);
+        bus.attach(new RamController(new Ram(0xFFFF), 0));
+        for (int i = 0; i < program.length; i++) {
+            bus.write(i, program[i]);
+        }
+        cpu.setCodeCacheEnabled(codeCache);
+        return cpu;
+    }
+
+    private static int[] run(int[] program, boolean codeCache, long cycles) {
+        Cpu cpu = newCpu(program, codeCache);
+        for (long c = 0; c < cycles; c++) {
+            cpu.cycle(c);
+        }
+        return cpu._testGetPcSpAFBCDEHL();
+    }
+
+    @Test
+    void cachedExecutionGivesSameStateAsInterpretation() {
+        int[] program = new int[] {
+                0x31, 0x00, 0xC0, // LD SP, 0xC000
+                0x06, 0x20,       // LD B, 0x20
+                0x80,             // ADD A, B
+                0xC5,             // PUSH BC
+                0xC1,             // POP BC
+                0x05,             // DEC B
+                0x20, 0xFA,       // JR NZ, -6
+                0xCB, 0x37,       // SWAP A
+                0x76              // HALT
+        };
+        assertArrayEquals(run(program, false, 2_000), run(program, true, 2_000));
+    }
+
+    @Test
+    void codeWrittenByCpuInvalidatesCache() {
+        int[] program = new int[0x22];
+        int[] main = new int[] {
+                0x31, 0x00, 0xC0, // LD SP, 0xC000
+                0xCD, 0x20, 0x00, // CALL 0x0020 (INC A)
+                0x21, 0x20, 0x00, // LD HL, 0x0020
+                0x36, 0x3D,       // LD (HL), 0x3D (DEC A)
+                0xCD, 0x20, 0x00, // CALL 0x0020
+                0xCD, 0x20, 0x00, // CALL 0x0020
+                0x76              // HALT
+        };
+        System.arraycopy(main, 0, program, 0, main.length);
+        program[0x20] = 0x3C; // INC A
+        program[0x21] = 0xC9; // RET
+
+        int[] interpreted = run(program, false, 500);
+        assertArrayEquals(interpreted, run(program, true, 500));
+        assertEquals(0xFF, interpreted[2]);
+    }
+}
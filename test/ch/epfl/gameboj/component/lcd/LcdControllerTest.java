@@ -0,0 +1,214 @@
+package ch.epfl.gameboj.component.lcd;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.AddressMap;
+import ch.epfl.gameboj.Bus;
+import ch.epfl.gameboj.component.cpu.Cpu;
+import ch.epfl.gameboj.component.lcd.LcdController.Renderer;
+
+public class LcdControllerTest {
+    private static final int REG_LCDC = AddressMap.REGS_LCDC_START;
+    private static final int[] REGS_SCY_SCX = { AddressMap.REGS_LCDC_START + 2, AddressMap.REGS_LCDC_START + 3 };
+    private static final int[] REGS_PALETTES_WINDOW = { AddressMap.REGS_LCDC_START + 7, AddressMap.REGS_LCDC_START + 8,
+            AddressMap.REGS_LCDC_START + 9, AddressMap.REGS_LCDC_START + 10, AddressMap.REGS_LCDC_START + 11 };
+
+    private static Bus newBus(LcdController lcdController) {
+        Bus bus = new Bus();
+        Cpu cpu = new Cpu();
+        cpu.attachTo(bus);
+        lcdController.attachTo(bus);
+        return bus;
+    }
+
+    private static void fill(Random random, Bus[] buses) {
+        int[] data = new int[0x10000];
+        for (int a = AddressMap.VIDEO_RAM_START; a < AddressMap.VIDEO_RAM_END; a++) {
+            data[a] = random.nextInt(0x100);
+        }
+        for (int a = AddressMap.OAM_START; a < AddressMap.OAM_END; a++) {
+            // Place la plupart des sprites sur l'écran
+            data[a] = random.nextInt(LcdController.LCD_HEIGHT + 16);
+        }
+        for (int r : REGS_SCY_SCX) {
+            data[r] = random.nextInt(0x100);
+        }
+        for (int r : REGS_PALETTES_WINDOW) {
+            data[r] = random.nextInt(0x100);
+        }
+        data[REG_LCDC] = random.nextInt(0x100) | 0x80;
+        for (Bus bus : buses) {
+            for (int a = AddressMap.VIDEO_RAM_START; a < AddressMap.VIDEO_RAM_END; a++) {
+                bus.write(a, data[a]);
+            }
+            for (int a = AddressMap.OAM_START; a < AddressMap.OAM_END; a++) {
+                bus.write(a, data[a]);
+            }
+            for (int r : REGS_SCY_SCX) {
+                bus.write(r, data[r]);
+            }
+            for (int r : REGS_PALETTES_WINDOW) {
+                bus.write(r, data[r]);
+            }
+            bus.write(REG_LCDC, data[REG_LCDC]);
+        }
+    }
+
+    private static void runFrames(LcdController lcdController, long start, int frames) {
+        for (long c = start; c < start + frames * LcdController.CYCLES_PER_FRAME; c++) {
+            lcdController.cycle(c);
+        }
+    }
+
+    @Test
+    void tileCacheIsInvalidatedByTileDataWrites() {
+        Random random = newRandom();
+        for (Renderer renderer : Renderer.values()) {
+            for (int i = 0; i < RANDOM_ITERATIONS / 10; i++) {
+                LcdController cached = new LcdController(new Cpu());
+                cached.setRenderer(renderer);
+                Bus cachedBus = newBus(cached);
+                LcdController fresh = new LcdController(new Cpu());
+                fresh.setRenderer(renderer);
+                Bus freshBus = newBus(fresh);
+                fill(random, new Bus[] { cachedBus, freshBus });
+                runFrames(cached, 0, 2);
+                long misses = cached.tileCacheMisses();
+
+                // Modification de quelques octets de la zone des tuiles, invisible pour le contrôleur de référence
+                // jusqu'à ce qu'on les lui écrive aussi
+                for (int j = 0; j < 16; j++) {
+                    int address = AddressMap.VIDEO_RAM_START + random.nextInt(0x1800);
+                    int data = random.nextInt(0x100);
+                    cachedBus.write(address, data);
+                    freshBus.write(address, data);
+                }
+                runFrames(cached, 2 * LcdController.CYCLES_PER_FRAME, 1);
+                runFrames(fresh, 0, 3);
+
+                assertEquals(fresh.currentImage(), cached.currentImage());
+                assertTrue(cached.tileCacheMisses() - misses <= 16);
+            }
+        }
+    }
+
+    @Test
+    void tileCacheIsNotMissedWhenVideoRamDoesNotChange() {
+        Random random = newRandom();
+        LcdController lcdController = new LcdController(new Cpu());
+        fill(random, new Bus[] { newBus(lcdController) });
+        runFrames(lcdController, 0, 1);
+        long misses = lcdController.tileCacheMisses();
+        long hits = lcdController.tileCacheHits();
+
+        runFrames(lcdController, LcdController.CYCLES_PER_FRAME, 1);
+        assertEquals(misses, lcdController.tileCacheMisses());
+        assertTrue(lcdController.tileCacheHits() > hits);
+    }
+
+    @Test
+    void setRenderIntervalFailsForInvalidInterval() {
+        LcdController lcdController = new LcdController(new Cpu());
+        assertThrows(IllegalArgumentException.class, () -> lcdController.setRenderInterval(0));
+    }
+
+    @Test
+    void onlyOneFramePerRenderIntervalIsComputed() {
+        Random random = newRandom();
+        for (Renderer renderer : Renderer.values()) {
+            LcdController reference = new LcdController(new Cpu());
+            LcdController decimated = new LcdController(new Cpu());
+            reference.setRenderer(renderer);
+            decimated.setRenderer(renderer);
+            decimated.setRenderInterval(3);
+            fill(random, new Bus[] { newBus(reference), newBus(decimated) });
+
+            runFrames(reference, 0, 1);
+            runFrames(decimated, 0, 2);
+            assertEquals(0, decimated.tileCacheHits() + decimated.tileCacheMisses());
+            assertEquals(new LcdImage.Builder(LcdController.LCD_HEIGHT, LcdController.LCD_WIDTH).build(),
+                    decimated.currentImage());
+
+            runFrames(decimated, 2 * LcdController.CYCLES_PER_FRAME, 1);
+            assertEquals(reference.currentImage(), decimated.currentImage());
+        }
+    }
+
+    @Test
+    void frameListenerReceivesEachComputedFrame() {
+        LcdController lcdController = new LcdController(new Cpu());
+        fill(newRandom(), new Bus[] { newBus(lcdController) });
+        List<LcdImage> frames = new ArrayList<>();
+        lcdController.setFrameListener(frames::add);
+        lcdController.setRenderInterval(2);
+        runFrames(lcdController, 0, 6);
+        assertEquals(3, frames.size());
+        assertSame(lcdController.currentImage(), frames.get(2));
+
+        lcdController.setFrameListener(null);
+        runFrames(lcdController, 6 * LcdController.CYCLES_PER_FRAME, 2);
+        assertEquals(3, frames.size());
+    }
+
+    @Test
+    void restoredControllerKeepsRenderPhase() {
+        LcdController original = new LcdController(new Cpu());
+        fill(newRandom(), new Bus[] { newBus(original) });
+        List<LcdImage> originalFrames = new ArrayList<>();
+        original.setFrameListener(originalFrames::add);
+        original.setRenderInterval(3);
+        runFrames(original, 0, 4);
+        ByteBuffer state = ByteBuffer.allocate(original.stateSize());
+        original.saveState(state);
+        state.flip();
+
+        LcdController restored = new LcdController(new Cpu());
+        newBus(restored);
+        restored.loadState(state);
+        List<LcdImage> restoredFrames = new ArrayList<>();
+        restored.setFrameListener(restoredFrames::add);
+        restored.setRenderInterval(3);
+
+        // Les images calculées après la restauration sont les mêmes que celles du contrôleur d'origine
+        int before = originalFrames.size();
+        runFrames(original, 4 * LcdController.CYCLES_PER_FRAME, 5);
+        runFrames(restored, 4 * LcdController.CYCLES_PER_FRAME, 5);
+        assertEquals(originalFrames.subList(before, originalFrames.size()), restoredFrames);
+    }
+
+    @Test
+    void directRendererGivesSameImageAsBitVectorRenderer() {
+        Random random = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS / 10; i++) {
+            LcdController bitVector = new LcdController(new Cpu());
+            LcdController direct = new LcdController(new Cpu());
+            direct.setRenderer(Renderer.DIRECT);
+            fill(random, new Bus[] { newBus(bitVector), newBus(direct) });
+
+            for (long c = 0; c < LcdController.CYCLES_PER_FRAME; c++) {
+                bitVector.cycle(c);
+                direct.cycle(c);
+            }
+
+            LcdImage expected = bitVector.currentImage();
+            LcdImage actual = direct.currentImage();
+            for (int y = 0; y < LcdController.LCD_HEIGHT; y++) {
+                for (int x = 0; x < LcdController.LCD_WIDTH; x++) {
+                    assertEquals(expected.get(x, y), actual.get(x, y));
+                }
+            }
+        }
+    }
+}
@@ -7,7 +7,9 @@
 
 package ch.epfl.gameboj.component.lcd;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.Arrays;
 
@@ -62,4 +64,50 @@ public class LcdImageTest {
                 assertEquals((RANDOM_LINE2.msb().testBit(j) ? 2 : 0) + (RANDOM_LINE2.lsb().testBit(j) ? 1 : 0), test1.get(j, 1));
             }
     }
+
+    @Test
+    void copyRowToWorks() {
+        LcdImage test1 = new LcdImage.Builder(2, 64).setLine(0, RANDOM_LINE1).setLine(1, RANDOM_LINE2).build();
+        int[] row = new int[70];
+        for (int y = 0; y < test1.height(); y++) {
+            test1.copyRowTo(y, row);
+            for (int x = 0; x < test1.width(); x++) {
+                assertEquals(test1.get(x, y), row[x]);
+            }
+        }
+    }
+
+    @Test
+    void copyRowToFailsForInvalidRowOrTooSmallArray() {
+        LcdImage test1 = new LcdImage.Builder(2, 64).setLine(0, RANDOM_LINE1).setLine(1, RANDOM_LINE2).build();
+        assertThrows(IllegalArgumentException.class, () -> test1.copyRowTo(2, new int[64]));
+        assertThrows(IllegalArgumentException.class, () -> test1.copyRowTo(0, new int[63]));
+    }
+
+    @Test
+    void forEachPixelVisitsEveryPixelInOrder() {
+        LcdImage test1 = new LcdImage.Builder(2, 64).setLine(0, RANDOM_LINE1).setLine(1, RANDOM_LINE2).build();
+        int[] colors = new int[test1.width() * test1.height()];
+        int[] expected = new int[colors.length];
+        int[] count = new int[1];
+        test1.forEachPixel((x, y, color) -> {
+            assertEquals(count[0], y * test1.width() + x);
+            colors[count[0]++] = color;
+        });
+        for (int y = 0; y < test1.height(); y++) {
+            for (int x = 0; x < test1.width(); x++) {
+                expected[y * test1.width() + x] = test1.get(x, y);
+            }
+        }
+        assertArrayEquals(expected, colors);
+    }
+
+    @Test
+    void equalsOnlyDependsOnColors() {
+        LcdImageLine opaque = new LcdImageLine(RANDOM_VECTOR1, RANDOM_VECTOR2, new BitVector(64, true));
+        LcdImage test1 = new LcdImage.Builder(1, 64).setLine(0, RANDOM_LINE1).build();
+        LcdImage test2 = new LcdImage.Builder(1, 64).setLine(0, opaque).build();
+        assertEquals(test1, test2);
+        assertEquals(test1.hashCode(), test2.hashCode());
+    }
 }
@@ -0,0 +1,74 @@
+package ch.epfl.gameboj.component.memory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+
+public class RamTest {
+
+    private static File newFile(byte[] content) throws IOException {
+        File file = Files.createTempFile("ram", ".sav").toFile();
+        file.deleteOnExit();
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    @Test
+    void saveThenLoadGivesSameContent() throws IOException {
+        Ram ram = new Ram(1000);
+        for (int i = 0; i < ram.size(); i++) {
+            ram.write(i, (i * 7) & 0xFF);
+        }
+        File file = newFile(new byte[0]);
+        ram.saveRam(file);
+
+        Ram loaded = new Ram(1000);
+        assertEquals(1000, loaded.loadRam(file));
+        for (int i = 0; i < ram.size(); i++) {
+            assertEquals(ram.read(i), loaded.read(i));
+        }
+    }
+
+    @Test
+    void loadRamLoadsFFBytes() throws IOException {
+        Ram ram = new Ram(4);
+        ram.loadRam(newFile(new byte[] { -1, 1, -1, 2 }));
+        assertEquals(0xFF, ram.read(0));
+        assertEquals(1, ram.read(1));
+        assertEquals(0xFF, ram.read(2));
+        assertEquals(2, ram.read(3));
+    }
+
+    @Test
+    void loadRamKeepsEndOfMemoryForShortFile() throws IOException {
+        Ram ram = new Ram(4);
+        for (int i = 0; i < ram.size(); i++) {
+            ram.write(i, 0x42);
+        }
+        assertEquals(2, ram.loadRam(newFile(new byte[] { 1, 2 })));
+        assertEquals(1, ram.read(0));
+        assertEquals(2, ram.read(1));
+        assertEquals(0x42, ram.read(2));
+        assertEquals(0x42, ram.read(3));
+    }
+
+    @Test
+    void loadRamIgnoresEndOfLongFile() throws IOException {
+        Ram ram = new Ram(2);
+        assertEquals(2, ram.loadRam(newFile(new byte[] { 1, 2, 3, 4 })));
+        assertEquals(1, ram.read(0));
+        assertEquals(2, ram.read(1));
+    }
+
+    @Test
+    void loadRamOfMissingFileChangesNothing() {
+        Ram ram = new Ram(2);
+        ram.write(0, 5);
+        assertEquals(0, ram.loadRam(new File("fichier inexistant.sav")));
+        assertEquals(5, ram.read(0));
+    }
+}
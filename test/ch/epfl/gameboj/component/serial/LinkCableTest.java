@@ -0,0 +1,115 @@
+package ch.epfl.gameboj.component.serial;
+
+import static ch.epfl.test.TestGameBoys.newGameBoy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.AddressMap;
+import ch.epfl.gameboj.GameBoy;
+import ch.epfl.gameboj.component.lcd.LcdController;
+
+public class LinkCableTest {
+    private static final long SKEW_SAMPLE_CYCLES = 64;
+
+    @Test
+    void constructorFailsForSameGameBoy() throws IOException {
+        GameBoy gameBoy = newGameBoy();
+        assertThrows(IllegalArgumentException.class, () -> new LinkCable(gameBoy, gameBoy));
+    }
+
+    @Test
+    void bytesAreExchangedBetweenMasterAndSlave() throws IOException {
+        GameBoy a = newGameBoy(), b = newGameBoy();
+        new LinkCable(a, b);
+        SerialPort master = a.serialPort(), slave = b.serialPort();
+        assertTrue(master.connected());
+        master.cycle(0);
+        slave.cycle(0);
+
+        slave.write(AddressMap.REG_SB, 0x22);
+        slave.write(AddressMap.REG_SC, 0x80);
+        master.write(AddressMap.REG_SB, 0x11);
+        master.write(AddressMap.REG_SC, 0x81);
+
+        slave.cycle(SerialPort.TRANSFER_CYCLES);
+        assertEquals(0x11, slave.read(AddressMap.REG_SB));
+        assertEquals(0x7E, slave.read(AddressMap.REG_SC));
+        master.cycle(SerialPort.TRANSFER_CYCLES);
+        assertEquals(0x22, master.read(AddressMap.REG_SB));
+        assertEquals(0x7F, master.read(AddressMap.REG_SC));
+    }
+
+    @Test
+    void masterReceivesFFWhenSlaveIsNotReady() throws IOException {
+        GameBoy a = newGameBoy(), b = newGameBoy();
+        new LinkCable(a, b);
+        SerialPort master = a.serialPort(), slave = b.serialPort();
+        master.cycle(0);
+        slave.cycle(0);
+        slave.write(AddressMap.REG_SB, 0x22);
+        master.write(AddressMap.REG_SC, 0x81);
+        slave.cycle(SerialPort.TRANSFER_CYCLES);
+        master.cycle(SerialPort.TRANSFER_CYCLES);
+        assertEquals(0x22, slave.read(AddressMap.REG_SB));
+        assertEquals(0xFF, master.read(AddressMap.REG_SB));
+    }
+
+    // Simule le GameBoy donné par petites tranches, en publiant son cycle après chacune d'elles, et retourne la plus
+    // grande avance observée sur l'autre GameBoy
+    private static long runAndMeasureSkew(GameBoy gameBoy, AtomicLong cycles, AtomicLong otherCycles, long end) {
+        long maxSkew = 0;
+        for (long c = SKEW_SAMPLE_CYCLES; c <= end; c += SKEW_SAMPLE_CYCLES) {
+            gameBoy.runUntil(c);
+            cycles.set(c);
+            maxSkew = Math.max(maxSkew, c - otherCycles.get());
+        }
+        gameBoy.runUntil(end);
+        cycles.set(end);
+        return maxSkew;
+    }
+
+    @Test
+    void linkedGameBoysStayWithinMaximalSkew() throws Exception {
+        GameBoy a = newGameBoy(), b = newGameBoy();
+        LinkCable cable = new LinkCable(a, b);
+        long end = 300 * LcdController.CYCLES_PER_FRAME;
+        AtomicLong aCycles = new AtomicLong(), bCycles = new AtomicLong();
+        AtomicLong bSkew = new AtomicLong();
+        Thread other = new Thread(() -> bSkew.set(runAndMeasureSkew(b, bCycles, aCycles, end)));
+        other.start();
+        long aSkew = runAndMeasureSkew(a, aCycles, bCycles, end);
+        other.join();
+
+        // Chaque GameBoy attend l'autre lors de ses synchronisations, espacées de TRANSFER_CYCLES cycles ; le cycle
+        // publié par l'autre peut en outre être en retard d'une tranche sur son cycle réel
+        long maxSkew = SerialPort.MAX_SKEW_CYCLES + SerialPort.TRANSFER_CYCLES + SKEW_SAMPLE_CYCLES;
+        assertTrue(aSkew <= maxSkew, "avance de a : " + aSkew);
+        assertTrue(bSkew.get() <= maxSkew, "avance de b : " + bSkew.get());
+        assertEquals(end, a.cycles());
+        assertEquals(end, b.cycles());
+        cable.close();
+        assertFalse(a.serialPort().connected());
+    }
+
+    @Test
+    void closingCableReleasesWaitingGameBoy() throws Exception {
+        GameBoy a = newGameBoy(), b = newGameBoy();
+        LinkCable cable = new LinkCable(a, b);
+        Thread runner = new Thread(() -> a.runUntil(10 * LcdController.CYCLES_PER_FRAME));
+        runner.start();
+        runner.join(200);
+        // Le GameBoy distant n'est jamais simulé, le premier l'attend donc
+        assertTrue(runner.isAlive());
+        assertTrue(a.cycles() < 10 * LcdController.CYCLES_PER_FRAME);
+        cable.close();
+        runner.join();
+        assertEquals(10 * LcdController.CYCLES_PER_FRAME, a.cycles());
+    }
+}
@@ -0,0 +1,74 @@
+package ch.epfl.gameboj.component.serial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.AddressMap;
+import ch.epfl.gameboj.component.cpu.Cpu;
+
+public class SerialPortTest {
+    private static final int SERIAL_MASK = 1 << Cpu.Interrupt.SERIAL.index();
+
+    @Test
+    void unusedBitsOfScAreReadAsOne() {
+        SerialPort port = new SerialPort(new Cpu());
+        port.write(AddressMap.REG_SC, 0);
+        assertEquals(0x7E, port.read(AddressMap.REG_SC));
+        port.write(AddressMap.REG_SB, 0x42);
+        assertEquals(0x42, port.read(AddressMap.REG_SB));
+    }
+
+    @Test
+    void unlinkedInternalTransferReceivesFFAndRaisesInterrupt() {
+        Cpu cpu = new Cpu();
+        SerialPort port = new SerialPort(cpu);
+        port.cycle(10);
+        port.write(AddressMap.REG_SB, 0x42);
+        port.write(AddressMap.REG_SC, 0x81);
+        long end = port.nextEventCycle(10);
+        assertEquals(10 + SerialPort.TRANSFER_CYCLES, end);
+        for (long c = 11; c < end; c++) {
+            port.cycle(c);
+            assertEquals(0, cpu.read(AddressMap.REG_IF) & SERIAL_MASK);
+        }
+        port.cycle(end);
+        assertEquals(0xFF, port.read(AddressMap.REG_SB));
+        assertEquals(0x7F, port.read(AddressMap.REG_SC));
+        assertEquals(SERIAL_MASK, cpu.read(AddressMap.REG_IF) & SERIAL_MASK);
+        assertEquals(Long.MAX_VALUE, port.nextEventCycle(end));
+    }
+
+    @Test
+    void unlinkedExternalTransferNeverCompletes() {
+        Cpu cpu = new Cpu();
+        SerialPort port = new SerialPort(cpu);
+        port.write(AddressMap.REG_SB, 0x42);
+        port.write(AddressMap.REG_SC, 0x80);
+        assertEquals(Long.MAX_VALUE, port.nextEventCycle(0));
+        for (long c = 0; c < 10_000; c++) {
+            port.cycle(c);
+        }
+        assertEquals(0x42, port.read(AddressMap.REG_SB));
+        assertEquals(0xFE, port.read(AddressMap.REG_SC));
+        assertEquals(0, cpu.read(AddressMap.REG_IF) & SERIAL_MASK);
+    }
+
+    @Test
+    void transferInProgressIsRestoredWithState() {
+        SerialPort port = new SerialPort(new Cpu());
+        port.cycle(100);
+        port.write(AddressMap.REG_SC, 0x81);
+        ByteBuffer state = ByteBuffer.allocate(port.stateSize());
+        port.saveState(state);
+        port.cycle(100 + SerialPort.TRANSFER_CYCLES);
+        assertEquals(0x7F, port.read(AddressMap.REG_SC));
+
+        state.flip();
+        port.loadState(state);
+        assertEquals(0xFF, port.read(AddressMap.REG_SC));
+        assertEquals(100 + SerialPort.TRANSFER_CYCLES, port.nextEventCycle(100));
+    }
+}
@@ -0,0 +1,52 @@
+package ch.epfl.gameboj.component.serial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+import org.junit.jupiter.api.Test;
+
+public class SocketLinkTest {
+
+    private static int await(IntSupplier poll) {
+        int data;
+        while ((data = poll.getAsInt()) == SerialLink.NO_DATA) {
+            Thread.yield();
+        }
+        return data;
+    }
+
+    private static void await(LongSupplier value, long expected) {
+        while (value.getAsLong() != expected) {
+            Thread.yield();
+        }
+    }
+
+    @Test
+    void messagesAreExchangedOverLoopback() throws IOException {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            SocketLink a = SocketLink.connect(server.getInetAddress().getHostAddress(), server.getLocalPort());
+            SocketLink b = new SocketLink(server.accept());
+
+            a.sendTransfer(0x11);
+            assertEquals(0x11, await(b::pollTransfer));
+            b.sendAnswer(0x22);
+            assertEquals(0x22, await(a::pollAnswer));
+            assertEquals(SerialLink.NO_DATA, a.pollTransfer());
+
+            a.publishCycle(123_456_789_012L);
+            await(b::peerCycle, 123_456_789_012L);
+
+            a.close();
+            while (b.isConnected()) {
+                Thread.yield();
+            }
+            assertFalse(a.isConnected());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ch.epfl.gameboj.headless;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.component.lcd.LcdController;
+
+public class BatchRunnerTest {
+
+    @Test
+    void failingInstanceDoesNotPreventOtherResults() throws IOException, InterruptedException {
+        // Une cartouche trop courte pour contenir un en-tête provoque une exception lors de son chargement
+        File truncated = Files.createTempFile("truncated", ".gb").toFile();
+        truncated.deleteOnExit();
+        Files.write(truncated.toPath(), new byte[] { 1, 2, 3, 4 });
+        File tetris = new File("data/ROMs/Tetris.gb");
+
+        BatchRunner runner = new BatchRunner(10 * LcdController.CYCLES_PER_FRAME, InputScript.EMPTY, null, 1, false,
+                LcdController.Renderer.BIT_VECTOR, 1, null, null);
+        List<BatchRunner.Result> results = runner.run(List.of(truncated, tetris), 1);
+        assertEquals(2, results.size());
+        assertNotNull(results.get(0).error());
+        assertEquals(0, results.get(0).cycles());
+        assertNull(results.get(1).error());
+        assertEquals(10 * LcdController.CYCLES_PER_FRAME, results.get(1).cycles());
+    }
+}
@@ -0,0 +1,95 @@
+package ch.epfl.gameboj.headless;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.component.Joypad.Key;
+import ch.epfl.gameboj.component.lcd.LcdController;
+
+public class FrameHashRegressionTest {
+
+    private static void assertMatchesGolden(boolean codeCache, LcdController.Renderer renderer, List<File> roms)
+            throws IOException {
+        File golden = FrameHashRegression.DEFAULT_GOLDEN_FILE;
+        Map<String, Long> expected = FrameHashRegression.readGolden(golden);
+        FrameHashRegression regression = new FrameHashRegression(FrameHashRegression.goldenFrames(golden),
+                InputScript.ofFile(FrameHashRegression.DEFAULT_SCRIPT_FILE), codeCache, renderer);
+        for (File rom : roms) {
+            Long hash = expected.get(rom.getName());
+            if (hash == null) {
+                continue;
+            }
+            FrameHashRegression.Result r = regression.run(rom);
+            assertNull(r.error());
+            assertEquals((long) hash, r.hash(), rom.getName());
+        }
+    }
+
+    @Test
+    void allRomsMatchGoldenHashes() throws IOException {
+        List<File> roms = FrameHashRegression.romsIn(FrameHashRegression.ROM_DIRECTORY);
+        for (String name : FrameHashRegression.readGolden(FrameHashRegression.DEFAULT_GOLDEN_FILE).keySet()) {
+            assertTrue(new File(FrameHashRegression.ROM_DIRECTORY, name).exists(), name);
+        }
+        assertMatchesGolden(false, LcdController.Renderer.BIT_VECTOR, roms);
+    }
+
+    @Test
+    void directRendererWithCodeCacheMatchesGoldenHashes() throws IOException {
+        assertMatchesGolden(true, LcdController.Renderer.DIRECT,
+                List.of(new File(FrameHashRegression.ROM_DIRECTORY, "Tetris.gb"),
+                        new File(FrameHashRegression.ROM_DIRECTORY, "Zelda.gb")));
+    }
+
+    @Test
+    void differentInputsGiveDifferentHash() {
+        File rom = new File(FrameHashRegression.ROM_DIRECTORY, "Tetris.gb");
+        FrameHashRegression.Result withoutInputs = new FrameHashRegression(600, InputScript.EMPTY, false,
+                LcdController.Renderer.BIT_VECTOR).run(rom);
+        FrameHashRegression.Result withInputs = new FrameHashRegression(600,
+                new InputScript(List.of(new InputScript.Event(450 * LcdController.CYCLES_PER_FRAME,
+                        Key.START, true))),
+                false, LcdController.Renderer.BIT_VECTOR).run(rom);
+        assertFalse(withoutInputs.hash() == withInputs.hash());
+    }
+
+    @Test
+    void runReportsEmulationErrorInResult() throws IOException {
+        // Une cartouche trop courte pour contenir un en-tête provoque une exception lors de son chargement
+        File truncated = Files.createTempFile("truncated", ".gb").toFile();
+        truncated.deleteOnExit();
+        Files.write(truncated.toPath(), new byte[] { 1, 2, 3, 4 });
+        FrameHashRegression.Result r = new FrameHashRegression(1, InputScript.EMPTY, false,
+                LcdController.Renderer.BIT_VECTOR).run(truncated);
+        assertNotNull(r.error());
+        assertEquals(0, r.images());
+    }
+
+    @Test
+    void goldenFileRoundTrips() throws IOException {
+        File file = Files.createTempFile("golden", ".txt").toFile();
+        file.deleteOnExit();
+        FrameHashRegression regression = new FrameHashRegression(60, InputScript.EMPTY, false,
+                LcdController.Renderer.BIT_VECTOR);
+        List<FrameHashRegression.Result> results = regression.run(
+                List.of(new File(FrameHashRegression.ROM_DIRECTORY, "Tetris.gb"), new File("inexistante.gb")));
+        assertNotNull(results.get(1).error());
+        regression.writeGolden(file, results);
+
+        Map<String, Long> hashes = FrameHashRegression.readGolden(file);
+        assertEquals(60, FrameHashRegression.goldenFrames(file));
+        assertEquals(1, hashes.size());
+        assertEquals(results.get(0).hash(), (long) hashes.get("Tetris.gb"));
+    }
+}
@@ -0,0 +1,178 @@
+package ch.epfl.gameboj.headless;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.GameBoy;
+import ch.epfl.gameboj.component.Joypad.Key;
+import ch.epfl.gameboj.component.cartridge.Cartridge;
+import ch.epfl.gameboj.component.lcd.LcdController;
+
+public class InputMovieTest {
+    private static final File TETRIS = new File("data/ROMs/Tetris.gb");
+    private static final int FRAMES = 300;
+
+    private static GameBoy newGameBoy(File rom) throws IOException {
+        return new GameBoy(Cartridge.ofFile(rom));
+    }
+
+    // Simule le GameBoy par tranches irrégulières, comme le simulateur de l'interface graphique, en pressant et
+    // relâchant des touches entre les tranches
+    private static void play(GameBoy gameBoy, long startCycle) {
+        Key[] keys = { Key.START, Key.A, Key.LEFT, Key.DOWN, Key.B };
+        long cycle = startCycle;
+        for (int i = 0; i < FRAMES; i++) {
+            cycle += LcdController.CYCLES_PER_FRAME + (i * 7919) % 3001 - 1500;
+            gameBoy.runUntil(cycle);
+            if (i % 20 == 10) {
+                gameBoy.joypad().keyPressed(keys[i / 20 % keys.length]);
+            } else if (i % 20 == 13) {
+                gameBoy.joypad().keyReleased(keys[i / 20 % keys.length]);
+            }
+        }
+    }
+
+    private static File newMovieFile() throws IOException {
+        File file = Files.createTempFile("movie", ".gbm").toFile();
+        file.deleteOnExit();
+        return file;
+    }
+
+    @Test
+    void movieFromPowerOnReplaysIdentically() throws IOException {
+        GameBoy original = newGameBoy(TETRIS);
+        InputRecorder recorder = new InputRecorder(original);
+        play(original, 0);
+        InputMovie movie = recorder.finish();
+        assertTrue(movie.startsAtPowerOn());
+        assertEquals(original.cycles(), movie.endCycle());
+        assertEquals(recorder.eventCount(), movie.script().events().size());
+        assertFalse(movie.script().events().isEmpty());
+
+        GameBoy replay = newGameBoy(TETRIS);
+        movie.play(replay);
+        assertEquals(original.cycles(), replay.cycles());
+        assertArrayEquals(original.saveState(), replay.saveState());
+        assertEquals(original.lcdController().currentImage(), replay.lcdController().currentImage());
+    }
+
+    @Test
+    void movieFromSavedStateReplaysIdentically() throws IOException {
+        GameBoy original = newGameBoy(TETRIS);
+        play(original, 0);
+        InputRecorder recorder = new InputRecorder(original);
+        play(original, original.cycles());
+        InputMovie movie = recorder.finish();
+        assertFalse(movie.startsAtPowerOn());
+
+        GameBoy replay = newGameBoy(TETRIS);
+        movie.start(replay);
+        assertEquals(movie.startCycle(), replay.cycles());
+        // Le film peut être rejoué en plusieurs fois, sans dépasser sa fin
+        movie.runUntil(replay, movie.startCycle() + movie.length() / 3);
+        movie.runUntil(replay, Long.MAX_VALUE);
+        assertArrayEquals(original.saveState(), replay.saveState());
+    }
+
+    @Test
+    void movieSurvivesFileRoundTrip() throws IOException {
+        GameBoy original = newGameBoy(TETRIS);
+        InputRecorder recorder = new InputRecorder(original);
+        play(original, 0);
+        File file = newMovieFile();
+        recorder.finish().writeTo(file);
+
+        InputMovie movie = InputMovie.ofFile(file);
+        GameBoy replay = newGameBoy(TETRIS);
+        movie.play(replay);
+        assertArrayEquals(original.saveState(), replay.saveState());
+    }
+
+    @Test
+    void rewindingForgetsLaterEvents() throws IOException {
+        GameBoy gameBoy = newGameBoy(TETRIS);
+        gameBoy.runUntil(LcdController.CYCLES_PER_FRAME);
+        InputRecorder recorder = new InputRecorder(gameBoy);
+        byte[] state = gameBoy.saveState();
+        gameBoy.runUntil(10 * LcdController.CYCLES_PER_FRAME);
+        gameBoy.joypad().keyPressed(Key.START);
+        gameBoy.loadState(state);
+        gameBoy.runUntil(5 * LcdController.CYCLES_PER_FRAME);
+        gameBoy.joypad().keyPressed(Key.A);
+        gameBoy.runUntil(6 * LcdController.CYCLES_PER_FRAME);
+
+        InputMovie movie = recorder.finish();
+        assertEquals(1, movie.script().events().size());
+        assertEquals(Key.A, movie.script().events().get(0).key());
+        assertNull(gameBoy.joypad().keyListener());
+        assertThrows(IllegalStateException.class, () -> recorder.finish());
+    }
+
+    @Test
+    void rewindingForgetsLaterEventsEvenWhenNextEventIsLater() throws IOException {
+        GameBoy gameBoy = newGameBoy(TETRIS);
+        gameBoy.runUntil(LcdController.CYCLES_PER_FRAME);
+        InputRecorder recorder = new InputRecorder(gameBoy);
+        byte[] state = gameBoy.saveState();
+        gameBoy.runUntil(10 * LcdController.CYCLES_PER_FRAME);
+        gameBoy.joypad().keyPressed(Key.START);
+        gameBoy.loadState(state);
+        gameBoy.runUntil(12 * LcdController.CYCLES_PER_FRAME);
+        gameBoy.joypad().keyPressed(Key.A);
+        gameBoy.runUntil(14 * LcdController.CYCLES_PER_FRAME);
+
+        InputMovie movie = recorder.finish();
+        assertEquals(1, movie.script().events().size());
+        assertEquals(Key.A, movie.script().events().get(0).key());
+
+        GameBoy replay = newGameBoy(TETRIS);
+        movie.play(replay);
+        assertArrayEquals(gameBoy.saveState(), replay.saveState());
+    }
+
+    @Test
+    void finishFailsAfterRewindingBeforeStart() throws IOException {
+        GameBoy gameBoy = newGameBoy(TETRIS);
+        gameBoy.runUntil(LcdController.CYCLES_PER_FRAME);
+        byte[] state = gameBoy.saveState();
+        gameBoy.runUntil(2 * LcdController.CYCLES_PER_FRAME);
+        InputRecorder recorder = new InputRecorder(gameBoy);
+        gameBoy.loadState(state);
+        gameBoy.runUntil(3 * LcdController.CYCLES_PER_FRAME);
+        assertThrows(IllegalStateException.class, () -> recorder.finish());
+    }
+
+    @Test
+    void startFailsForOtherCartridge() throws IOException {
+        GameBoy original = newGameBoy(TETRIS);
+        InputMovie movie = new InputRecorder(original).finish();
+        GameBoy other = newGameBoy(new File("data/ROMs/flappyboy.gb"));
+        assertThrows(IllegalArgumentException.class, () -> movie.start(other));
+    }
+
+    @Test
+    void powerOnMovieFailsForRunningGameBoy() throws IOException {
+        InputMovie movie = new InputRecorder(newGameBoy(TETRIS)).finish();
+        GameBoy gameBoy = newGameBoy(TETRIS);
+        gameBoy.runUntil(1);
+        assertThrows(IllegalArgumentException.class, () -> movie.start(gameBoy));
+    }
+
+    @Test
+    void constructorFailsForEventOutsideMovie() {
+        InputScript script = new InputScript(List.of(new InputScript.Event(100, Key.A, true)));
+        assertThrows(IllegalArgumentException.class, () -> new InputMovie(0, null, 0, 100, script));
+        assertThrows(IllegalArgumentException.class, () -> new InputMovie(0, new byte[0], 101, 200, script));
+    }
+}
@@ -0,0 +1,89 @@
+package ch.epfl.gameboj.headless;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.component.Joypad.Key;
+
+public class InputScriptTest {
+
+    private static File newScriptFile(String... lines) throws IOException {
+        File file = Files.createTempFile("script", ".txt").toFile();
+        file.deleteOnExit();
+        Files.write(file.toPath(), List.of(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    void ofFileParsesEventsAndSortsThemByCycle() throws IOException {
+        InputScript script = InputScript.ofFile(newScriptFile(
+                "# Commentaire",
+                "",
+                "  35112 PRESS start  ",
+                "100\trelease\tA",
+                "35112 release START"));
+        List<InputScript.Event> events = script.events();
+        assertEquals(3, events.size());
+
+        assertEquals(100, events.get(0).cycle());
+        assertEquals(Key.A, events.get(0).key());
+        assertFalse(events.get(0).pressed());
+
+        assertEquals(35112, events.get(1).cycle());
+        assertEquals(Key.START, events.get(1).key());
+        assertTrue(events.get(1).pressed());
+
+        // Les événements d'un même cycle gardent l'ordre du fichier
+        assertEquals(35112, events.get(2).cycle());
+        assertFalse(events.get(2).pressed());
+    }
+
+    @Test
+    void ofFileAcceptsEmptyScript() throws IOException {
+        assertTrue(InputScript.ofFile(newScriptFile("# rien", "")).events().isEmpty());
+    }
+
+    @Test
+    void ofFileFailsForWrongNumberOfFields() throws IOException {
+        File file = newScriptFile("100 press");
+        assertThrows(IllegalArgumentException.class, () -> InputScript.ofFile(file));
+        File longer = newScriptFile("100 press A B");
+        assertThrows(IllegalArgumentException.class, () -> InputScript.ofFile(longer));
+    }
+
+    @Test
+    void ofFileFailsForInvalidAction() throws IOException {
+        File file = newScriptFile("100 push A");
+        assertThrows(IllegalArgumentException.class, () -> InputScript.ofFile(file));
+    }
+
+    @Test
+    void ofFileFailsForInvalidKey() throws IOException {
+        File file = newScriptFile("100 press X");
+        assertThrows(IllegalArgumentException.class, () -> InputScript.ofFile(file));
+    }
+
+    @Test
+    void ofFileFailsForInvalidCycle() throws IOException {
+        File notNumber = newScriptFile("abc press A");
+        assertThrows(IllegalArgumentException.class, () -> InputScript.ofFile(notNumber));
+        File negative = newScriptFile("-1 press A");
+        assertThrows(IllegalArgumentException.class, () -> InputScript.ofFile(negative));
+    }
+
+    @Test
+    void eventsAreNotModifiable() {
+        InputScript script = new InputScript(List.of(new InputScript.Event(0, Key.B, true)));
+        assertThrows(UnsupportedOperationException.class, () -> script.events().clear());
+    }
+}
@@ -0,0 +1,99 @@
+package ch.epfl.gameboj.headless;
+
+import static ch.epfl.test.TestGameBoys.newGameBoy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.GameBoy;
+import ch.epfl.gameboj.component.Joypad.Key;
+import ch.epfl.gameboj.component.lcd.LcdController;
+import ch.epfl.gameboj.component.lcd.LcdImage;
+
+public class VideoRecorderTest {
+    private static final int FRAMES = 200;
+
+    private static File newVideoFile() throws IOException {
+        File file = Files.createTempFile("video", ".gbv").toFile();
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static List<LcdImage> record(File file, int keyframeInterval) throws IOException {
+        GameBoy gameBoy = newGameBoy();
+        List<LcdImage> images = new ArrayList<>();
+        try (VideoRecorder recorder = new VideoRecorder(file, keyframeInterval)) {
+            gameBoy.lcdController().setFrameListener(image -> {
+                images.add(image);
+                recorder.frameCompleted(image);
+            });
+            for (int f = 1; f <= FRAMES; f++) {
+                if (f % 40 == 0) {
+                    gameBoy.joypad().keyPressed(Key.START);
+                } else if (f % 40 == 5) {
+                    gameBoy.joypad().keyReleased(Key.START);
+                }
+                gameBoy.runUntil(f * LcdController.CYCLES_PER_FRAME);
+            }
+        }
+        return images;
+    }
+
+    private static void assertSameFrames(List<LcdImage> expected, File file) throws IOException {
+        try (VideoReader reader = new VideoReader(file)) {
+            assertEquals(LcdController.LCD_WIDTH, reader.width());
+            assertEquals(LcdController.LCD_HEIGHT, reader.height());
+            assertEquals(expected.size(), reader.frameCount());
+            byte[] pixels = new byte[reader.width() * reader.height()];
+            for (LcdImage image : expected) {
+                assertTrue(reader.readFrame(pixels));
+                for (int y = 0; y < image.height(); y++) {
+                    for (int x = 0; x < image.width(); x++) {
+                        assertEquals(image.get(x, y), pixels[y * image.width() + x]);
+                    }
+                }
+            }
+            assertFalse(reader.readFrame(pixels));
+        }
+    }
+
+    @Test
+    void constructorFailsForInvalidKeyframeInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new VideoRecorder(newVideoFile(), 0));
+    }
+
+    @Test
+    void keyframesOnlyGiveSameFrames() throws IOException {
+        File file = newVideoFile();
+        List<LcdImage> images = record(file, 1);
+        assertSameFrames(images, file);
+        // Deux bits par pixel, plus l'en-tête de chaque image
+        assertEquals(VideoRecorder.HEADER_SIZE
+                + images.size() * (1 + 4 + LcdController.LCD_WIDTH * LcdController.LCD_HEIGHT / 4), file.length());
+    }
+
+    @Test
+    void deltasGiveSameFramesInLessSpace() throws IOException {
+        File keyframes = newVideoFile(), deltas = newVideoFile();
+        record(keyframes, 1);
+        List<LcdImage> images = record(deltas, 60);
+        assertSameFrames(images, deltas);
+        assertTrue(deltas.length() < keyframes.length() / 4);
+    }
+
+    @Test
+    void emptyRecordingHasNoFrame() throws IOException {
+        File file = newVideoFile();
+        new VideoRecorder(file, 60).close();
+        assertSameFrames(new ArrayList<>(), file);
+    }
+}
@@ -0,0 +1,20 @@
+package ch.epfl.test;
+
+import java.io.File;
+import java.io.IOException;
+
+import ch.epfl.gameboj.GameBoy;
+import ch.epfl.gameboj.component.cartridge.Cartridge;
+
+public interface TestGameBoys {
+    // Cartouche utilisée par défaut, sans contrôleur de banques ni mémoire vive
+    public final static String DEFAULT_ROM = "Tetris.gb";
+
+    public static GameBoy newGameBoy(String rom) throws IOException {
+        return new GameBoy(Cartridge.ofFile(new File("data/ROMs", rom)));
+    }
+
+    public static GameBoy newGameBoy() throws IOException {
+        return newGameBoy(DEFAULT_ROM);
+    }
+}